@@ -0,0 +1,137 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Throughputs of an earlier benchmark run to compare against. Stored as properties with the rows per second of each
+ * benchmark.
+ */
+public final class Baseline {
+
+    private static final String ROWS_PER_SECOND = ".rowsPerSecond";
+
+    private static final String BYTES_PER_SECOND = ".bytesPerSecond";
+
+    private final Properties m_values = new Properties();
+
+    /**
+     * Reads a baseline file. An empty baseline is created if the file does not exist.
+     *
+     * @param file the file to read
+     * @return the baseline
+     * @throws IOException if the file cannot be read
+     */
+    public static Baseline read(final File file) throws IOException {
+        final Baseline baseline = new Baseline();
+        if (file.exists()) {
+            try (final InputStream in = Files.newInputStream(file.toPath())) {
+                baseline.m_values.load(in);
+            }
+        }
+        return baseline;
+    }
+
+    /**
+     * Writes the results of a benchmark run as new baseline.
+     *
+     * @param file the file to write
+     * @param results the results of the benchmark run
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(final File file, final List<BenchmarkResult> results) throws IOException {
+        final Properties values = new Properties();
+        for (final BenchmarkResult result : results) {
+            values.setProperty(result.getName() + ROWS_PER_SECOND, String.format("%.0f", result.getRowsPerSecond()));
+            values.setProperty(result.getName() + BYTES_PER_SECOND,
+                String.format("%.0f", result.getBytesPerSecond()));
+        }
+        try (final OutputStream out = Files.newOutputStream(file.toPath())) {
+            values.store(out, "Tableau extract benchmark baseline (" + System.getProperty("os.name") + ", "
+                + Runtime.getRuntime().availableProcessors() + " cores, Java " + System.getProperty("java.version")
+                + ")");
+        }
+    }
+
+    /**
+     * Compares results with the baseline.
+     *
+     * @param results the results of the current run
+     * @param tolerance the relative slowdown which is still accepted, e.g. 0.1 for 10%
+     * @return a message for each benchmark which is slower than the baseline
+     */
+    public List<String> findRegressions(final List<BenchmarkResult> results, final double tolerance) {
+        final List<String> regressions = new ArrayList<>();
+        for (final BenchmarkResult result : results) {
+            final String value = m_values.getProperty(result.getName() + ROWS_PER_SECOND);
+            if (value == null) {
+                continue;
+            }
+            final double baseline = Double.parseDouble(value);
+            if (result.getRowsPerSecond() < baseline * (1 - tolerance)) {
+                regressions.add(String.format("%s: %.0f rows/s, baseline %.0f rows/s (%+.1f%%)", result.getName(),
+                    result.getRowsPerSecond(), baseline, (result.getRowsPerSecond() / baseline - 1) * 100));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * @return if the baseline contains no values
+     */
+    public boolean isEmpty() {
+        return m_values.isEmpty();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.knime.ext.tableau.TableauExtractAPI;
+import org.knime.ext.tableau.TableauPlugin;
+import org.knime.ext.tableau.TableauPlugin.TABLEAU_SDK;
+import org.knime.ext.tableau.benchmark.SyntheticTable.ColumnType;
+import org.knime.ext.tableau.hyper.ColumnBlockBenchmark;
+import org.knime.ext.tableau.hyper.TableauHyperExtractAPI;
+import org.knime.ext.tableau.hyper.TableauHyperExtractOpener;
+import org.knime.ext.tableau.hyper.sendtable.api.MockTableauServer;
+import org.knime.ext.tableau.inmemory.InMemoryExtractAPI;
+import org.knime.ext.tableau.inmemory.InMemoryExtractOpener;
+import org.knime.ext.tableau.tde.TableauTDEExtractAPI;
+import org.knime.ext.tableau.tde.TableauTDEExtractOpener;
+
+/**
+ * Runs the extract writing benchmarks and compares the results with a baseline. Only the Tableau backend which is
+ * selected in the preferences can be measured (the other native library is not loaded). With the in-memory backend
+ * the Java side is measured without a native library.
+ *
+ * The uploads are measured against a {@link MockTableauServer} with a simulated latency per request and bandwidth.
+ *
+ * <pre>
+ * knime -nosplash -consoleLog -application org.knime.ext.tableau.benchmark.run
+ *     [-rows &lt;n&gt;] [-warmup &lt;n&gt;] [-iterations &lt;n&gt;]
+ *     [-baseline &lt;file&gt;] [-saveBaseline] [-tolerance &lt;percent&gt;]
+ *     [-uploadSize &lt;MB&gt;] [-latency &lt;ms&gt;] [-bandwidth &lt;MB/s&gt;]
+ * </pre>
+ */
+public final class BenchmarkApplication implements IApplication {
+
+    private static final Integer EXIT_REGRESSION = 1;
+
+    private static final ColumnType[] ALL_TYPES = ColumnType.values();
+
+    private static final double[] MISSING_RATIOS = {0.0, 0.1, 0.5};
+
+    /** Number of times the types are repeated in a wide table */
+    private static final int WIDE_REPEAT = 16;
+
+    private static final long SEED = 42L;
+
+    /** The chunk sizes of the upload benchmarks, 0 is the adaptive chunk size */
+    private static final int[] CHUNK_SIZES = {256 * 1024, 1024 * 1024, 8 * 1024 * 1024, 0};
+
+    private static final int[] PARALLEL_UPLOADS = {1, 4};
+
+    private static final long MB = 1024L * 1024L;
+
+    private int m_rows = 100000;
+
+    private int m_warmups = 2;
+
+    private int m_iterations = 5;
+
+    private File m_baselineFile;
+
+    private boolean m_saveBaseline = false;
+
+    private double m_tolerance = 0.1;
+
+    private long m_uploadSize = 16 * MB;
+
+    private long m_latency = 0L;
+
+    private long m_bandwidth = 0L;
+
+    @Override
+    public Object start(final IApplicationContext context) throws Exception {
+        parseArguments((String[])context.getArguments().get(IApplicationContext.APPLICATION_ARGS));
+        final BenchmarkRunner runner = new BenchmarkRunner(m_warmups, m_iterations);
+        final List<BenchmarkResult> results = new ArrayList<>();
+
+        // Conversion of the cells on their own: Each type separately
+        for (final ColumnType type : ALL_TYPES) {
+            for (final double missingRatio : new double[]{0.0, 0.1}) {
+                final List<SyntheticTable> tables = new ArrayList<>();
+                tables.add(new SyntheticTable(type.name().toLowerCase(), new ColumnType[]{type}, 4, m_rows / 4,
+                    missingRatio, SEED));
+                results.addAll(print(ColumnBlockBenchmark.run(runner, tables)));
+            }
+        }
+
+        // Writing extracts with narrow and wide tables
+        for (final double missingRatio : MISSING_RATIOS) {
+            final List<SyntheticTable> tables = new ArrayList<>();
+            tables.add(new SyntheticTable("narrow", ALL_TYPES, 1, m_rows, missingRatio, SEED));
+            tables.add(new SyntheticTable("wide", ALL_TYPES, WIDE_REPEAT, m_rows / 10, missingRatio, SEED));
+            results.addAll(print(ColumnBlockBenchmark.run(runner, tables)));
+            results.addAll(print(runWriteBenchmarks(runner, tables)));
+        }
+
+        // Uploading and publishing
+        try (final MockTableauServer server = new MockTableauServer()) {
+            server.setLatency(m_latency);
+            server.setBandwidth(m_bandwidth);
+            results.addAll(
+                print(new UploadBenchmark(server, m_uploadSize).run(runner, CHUNK_SIZES, PARALLEL_UPLOADS)));
+        }
+
+        if (m_saveBaseline) {
+            Baseline.write(m_baselineFile, results);
+            System.out.println("Baseline written to " + m_baselineFile.getAbsolutePath());
+            return EXIT_OK;
+        }
+        if (m_baselineFile != null) {
+            final Baseline baseline = Baseline.read(m_baselineFile);
+            if (baseline.isEmpty()) {
+                System.out.println("The baseline " + m_baselineFile.getAbsolutePath() + " contains no values.");
+                return EXIT_OK;
+            }
+            final List<String> regressions = baseline.findRegressions(results, m_tolerance);
+            if (!regressions.isEmpty()) {
+                System.out.println("Slower than the baseline:");
+                regressions.forEach(r -> System.out.println("  " + r));
+                return EXIT_REGRESSION;
+            }
+            System.out.println("No benchmark is slower than the baseline.");
+        }
+        return EXIT_OK;
+    }
+
+    private static List<BenchmarkResult> runWriteBenchmarks(final BenchmarkRunner runner,
+        final List<SyntheticTable> tables) throws Exception {
+        final TableauExtractAPI api;
+        final List<ExtractWriteBenchmark> benchmarks = new ArrayList<>();
+        if (TableauPlugin.getSelectedSDK() == TABLEAU_SDK.HYPER) {
+            api = new TableauHyperExtractAPI();
+            benchmarks.add(new ExtractWriteBenchmark("hyper", new TableauHyperExtractOpener()));
+            benchmarks.add(new ExtractWriteBenchmark("hyper-blocks",
+                new TableauHyperExtractOpener(TableauHyperExtractOpener.DEFAULT_BLOCK_SIZE)));
+        } else if (TableauPlugin.getSelectedSDK() == TABLEAU_SDK.IN_MEMORY) {
+            // The Java side on its own
+            api = new InMemoryExtractAPI();
+            benchmarks.add(new ExtractWriteBenchmark("in-memory-counting", new InMemoryExtractOpener(false)));
+            benchmarks.add(new ExtractWriteBenchmark("in-memory-recording", new InMemoryExtractOpener(true)));
+        } else {
+            api = new TableauTDEExtractAPI();
+            benchmarks.add(new ExtractWriteBenchmark("tde", new TableauTDEExtractOpener()));
+        }
+        final List<BenchmarkResult> results = new ArrayList<>();
+        api.initialize();
+        try {
+            for (final ExtractWriteBenchmark benchmark : benchmarks) {
+                results.addAll(benchmark.run(runner, tables));
+            }
+        } finally {
+            api.cleanup();
+        }
+        return results;
+    }
+
+    private static List<BenchmarkResult> print(final List<BenchmarkResult> results) {
+        results.forEach(System.out::println);
+        return results;
+    }
+
+    private void parseArguments(final String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-rows":
+                    m_rows = Integer.parseInt(args[++i]);
+                    break;
+                case "-warmup":
+                    m_warmups = Integer.parseInt(args[++i]);
+                    break;
+                case "-iterations":
+                    m_iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "-baseline":
+                    m_baselineFile = new File(args[++i]);
+                    break;
+                case "-saveBaseline":
+                    m_saveBaseline = true;
+                    break;
+                case "-tolerance":
+                    m_tolerance = Double.parseDouble(args[++i]) / 100;
+                    break;
+                case "-uploadSize":
+                    m_uploadSize = Long.parseLong(args[++i]) * MB;
+                    break;
+                case "-latency":
+                    m_latency = Long.parseLong(args[++i]);
+                    break;
+                case "-bandwidth":
+                    m_bandwidth = Long.parseLong(args[++i]) * MB;
+                    break;
+                default:
+                    // Arguments of the platform
+            }
+        }
+        if (m_saveBaseline && m_baselineFile == null) {
+            throw new IllegalArgumentException("-saveBaseline requires -baseline <file>");
+        }
+    }
+
+    @Override
+    public void stop() {
+        // The benchmarks cannot be interrupted
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Runs a benchmark operation several times after some warmup runs and reports the throughput of the median run.
+ */
+public final class BenchmarkRunner {
+
+    private final int m_warmups;
+
+    private final int m_iterations;
+
+    /**
+     * @param warmups the number of runs before the measurement (to let the JIT compile the hot path)
+     * @param iterations the number of measured runs
+     */
+    public BenchmarkRunner(final int warmups, final int iterations) {
+        if (warmups < 0 || iterations < 1) {
+            throw new IllegalArgumentException("At least one measured run is required.");
+        }
+        m_warmups = warmups;
+        m_iterations = iterations;
+    }
+
+    /**
+     * Measures the throughput of an operation.
+     *
+     * @param name the unique name of the benchmark
+     * @param rowsPerRun the number of rows processed by one run of the operation
+     * @param operation the operation to measure
+     * @return the throughput of the median run
+     * @throws Exception if the operation fails
+     */
+    public BenchmarkResult measure(final String name, final long rowsPerRun, final Operation operation)
+        throws Exception {
+        for (int i = 0; i < m_warmups; i++) {
+            operation.run();
+        }
+        final long[] nanos = new long[m_iterations];
+        final long[] bytes = new long[m_iterations];
+        for (int i = 0; i < m_iterations; i++) {
+            final long start = System.nanoTime();
+            bytes[i] = operation.run();
+            nanos[i] = Math.max(1, System.nanoTime() - start);
+        }
+        final long median = median(nanos);
+        return new BenchmarkResult(name, rowsPerRun * 1e9 / median, median(bytes) * 1e9 / median);
+    }
+
+    private static long median(final long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /** One run of a benchmark. */
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * @return the number of bytes which have been processed
+         * @throws Exception if the operation fails
+         */
+        long run() throws Exception;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.util.FileUtil;
+import org.knime.ext.tableau.TableauExtract;
+import org.knime.ext.tableau.TableauExtractOpener;
+import org.knime.ext.tableau.TableauTable;
+
+/**
+ * Measures how fast an extract opener writes tables: Creating a table and adding rows one by one or in batches. The
+ * extract API must be initialized by the caller.
+ */
+public final class ExtractWriteBenchmark {
+
+    private static final String TABLE_NAME = "Extract";
+
+    private final String m_name;
+
+    private final TableauExtractOpener m_opener;
+
+    /**
+     * @param name the name of the opener (part of the benchmark names)
+     * @param opener the opener to measure
+     */
+    public ExtractWriteBenchmark(final String name, final TableauExtractOpener opener) {
+        m_name = name;
+        m_opener = opener;
+    }
+
+    /**
+     * Runs the benchmarks for all tables.
+     *
+     * @param runner the runner which measures the operations
+     * @param tables the tables to write
+     * @return the results
+     * @throws Exception if writing an extract fails
+     */
+    public List<BenchmarkResult> run(final BenchmarkRunner runner, final List<SyntheticTable> tables)
+        throws Exception {
+        final List<BenchmarkResult> results = new ArrayList<>();
+        for (final SyntheticTable table : tables) {
+            // The number of bytes is the size of the written extract
+            results.add(runner.measure(m_name + ".createTable." + table.getName(), 1, () -> write(table, false, 0)));
+            results.add(runner.measure(m_name + ".addRow." + table.getName(), table.getRows().size(),
+                () -> write(table, false, table.getRows().size())));
+            results.add(runner.measure(m_name + ".addRows." + table.getName(), table.getRows().size(),
+                () -> write(table, true, table.getRows().size())));
+        }
+        return results;
+    }
+
+    private long write(final SyntheticTable table, final boolean batch, final int numRows) throws Exception {
+        final File file = FileUtil.createTempFile("tableau-benchmark-", ".extract");
+        Files.delete(file.toPath());
+        try {
+            try (final TableauExtract extract = m_opener.openExtract(file.getAbsolutePath())) {
+                final TableauTable tableWriter = extract.createTable(TABLE_NAME, table.getSpec());
+                final List<DataRow> rows = table.getRows().subList(0, numRows);
+                if (batch) {
+                    tableWriter.addRows(rows.iterator(), numRows);
+                } else {
+                    for (final DataRow row : rows) {
+                        tableWriter.addRow(row);
+                    }
+                }
+            }
+            return file.length();
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.benchmark;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.time.duration.DurationCellFactory;
+import org.knime.core.data.time.localdate.LocalDateCellFactory;
+import org.knime.core.data.time.localdatetime.LocalDateTimeCellFactory;
+
+/**
+ * A generated table with a configurable shape and ratio of missing values. The rows are created up front such that
+ * the benchmarks do not measure the data generation.
+ */
+public final class SyntheticTable {
+
+    /** The column types which are mapped to Tableau types. */
+    public enum ColumnType {
+            /** Boolean column */
+            BOOLEAN(BooleanCell.TYPE, 1),
+            /** Integer column */
+            INT(IntCell.TYPE, 4),
+            /** Double column */
+            DOUBLE(DoubleCell.TYPE, 8),
+            /** Local date column */
+            DATE(LocalDateCellFactory.TYPE, 8),
+            /** Local date time column */
+            DATETIME(LocalDateTimeCellFactory.TYPE, 12),
+            /** Duration column */
+            DURATION(DurationCellFactory.TYPE, 12),
+            /** String column (the size is the size of the average string) */
+            STRING(StringCell.TYPE, 2 * 12);
+
+        private final DataType m_type;
+
+        private final int m_size;
+
+        ColumnType(final DataType type, final int size) {
+            m_type = type;
+            m_size = size;
+        }
+
+        /**
+         * @return the KNIME type of the column
+         */
+        public DataType getDataType() {
+            return m_type;
+        }
+
+        /**
+         * @return the (approximate) number of bytes of one value
+         */
+        public int getSize() {
+            return m_size;
+        }
+    }
+
+    private static final LocalDateTime START = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final String m_name;
+
+    private final ColumnType[] m_columnTypes;
+
+    private final DataTableSpec m_spec;
+
+    private final List<DataRow> m_rows;
+
+    private final long m_bytes;
+
+    /**
+     * Generates a table. The columns are the given types repeated <code>repeat</code> times.
+     *
+     * @param name the name of the table shape (part of the benchmark names)
+     * @param types the types of the columns
+     * @param repeat how often the types are repeated
+     * @param numRows the number of rows
+     * @param missingRatio the ratio of missing cells between 0 and 1
+     * @param seed the seed of the random values
+     */
+    public SyntheticTable(final String name, final ColumnType[] types, final int repeat, final int numRows,
+        final double missingRatio, final long seed) {
+        m_name = String.format("%s-missing%d%%", name, Math.round(missingRatio * 100));
+        m_columnTypes = new ColumnType[types.length * repeat];
+        final DataColumnSpec[] colSpecs = new DataColumnSpec[m_columnTypes.length];
+        for (int i = 0; i < m_columnTypes.length; i++) {
+            m_columnTypes[i] = types[i % types.length];
+            colSpecs[i] = new DataColumnSpecCreator(m_columnTypes[i].name() + "_" + i, m_columnTypes[i].getDataType())
+                .createSpec();
+        }
+        m_spec = new DataTableSpec(colSpecs);
+
+        final Random random = new Random(seed);
+        final List<DataRow> rows = new ArrayList<>(numRows);
+        long bytes = 0;
+        for (int r = 0; r < numRows; r++) {
+            final DataCell[] cells = new DataCell[m_columnTypes.length];
+            for (int c = 0; c < cells.length; c++) {
+                if (random.nextDouble() < missingRatio) {
+                    cells[c] = DataType.getMissingCell();
+                } else {
+                    cells[c] = createCell(m_columnTypes[c], random);
+                    bytes += m_columnTypes[c].getSize();
+                }
+            }
+            rows.add(new DefaultRow(RowKey.createRowKey((long)r), cells));
+        }
+        m_rows = Collections.unmodifiableList(rows);
+        m_bytes = bytes;
+    }
+
+    private static DataCell createCell(final ColumnType type, final Random random) {
+        switch (type) {
+            case BOOLEAN:
+                return BooleanCell.get(random.nextBoolean());
+            case INT:
+                return new IntCell(random.nextInt());
+            case DOUBLE:
+                return new DoubleCell(random.nextDouble());
+            case DATE:
+                return LocalDateCellFactory.create(LocalDate.ofEpochDay(10000 + random.nextInt(10000)));
+            case DATETIME:
+                return LocalDateTimeCellFactory.create(START.plusSeconds(random.nextInt(Integer.MAX_VALUE)));
+            case DURATION:
+                return DurationCellFactory.create(Duration.ofMillis(random.nextInt(Integer.MAX_VALUE)));
+            default:
+                return new StringCell(Long.toString(random.nextLong(), 36));
+        }
+    }
+
+    /**
+     * @return the name of the table shape and missing value ratio
+     */
+    public String getName() {
+        return m_name;
+    }
+
+    /**
+     * @return the types of the columns
+     */
+    public ColumnType[] getColumnTypes() {
+        return m_columnTypes.clone();
+    }
+
+    /**
+     * @return the spec of the table
+     */
+    public DataTableSpec getSpec() {
+        return m_spec;
+    }
+
+    /**
+     * @return the rows of the table
+     */
+    public List<DataRow> getRows() {
+        return m_rows;
+    }
+
+    /**
+     * @return the (approximate) number of bytes of the values of all non-missing cells
+     */
+    public long getBytes() {
+        return m_bytes;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.util.FileUtil;
+import org.knime.ext.tableau.hyper.sendtable.api.MockTableauServer;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection;
+
+/**
+ * Measures the throughput of chunked uploads and publishing against a {@link MockTableauServer}: Each run uploads the
+ * same file with several connections at the same time and publishes it. The latency and bandwidth of the mock server
+ * must be configured by the caller.
+ */
+public final class UploadBenchmark {
+
+    private static final long TIMEOUT = 60000L;
+
+    private final MockTableauServer m_server;
+
+    private final long m_fileSize;
+
+    /**
+     * @param server the server to upload to
+     * @param fileSize the size of the uploaded file in bytes
+     */
+    public UploadBenchmark(final MockTableauServer server, final long fileSize) {
+        m_server = server;
+        m_fileSize = fileSize;
+    }
+
+    /**
+     * Runs the benchmarks for all combinations of chunk size and number of parallel uploads. A chunk size of 0 stands
+     * for the adaptive chunk size.
+     *
+     * @param runner the runner which measures the operations
+     * @param chunkSizes the chunk sizes in bytes
+     * @param parallelUploads the numbers of uploads at the same time
+     * @return the results. The rows are the uploaded files.
+     * @throws Exception if an upload fails
+     */
+    public List<BenchmarkResult> run(final BenchmarkRunner runner, final int[] chunkSizes,
+        final int[] parallelUploads) throws Exception {
+        final File file = createFile();
+        final List<BenchmarkResult> results = new ArrayList<>();
+        try {
+            for (final int chunkSize : chunkSizes) {
+                for (final int parallel : parallelUploads) {
+                    results.add(measure(runner, file, chunkSize, parallel));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+        return results;
+    }
+
+    private BenchmarkResult measure(final BenchmarkRunner runner, final File file, final int chunkSize,
+        final int parallel) throws Exception {
+        final String name = "upload." + (chunkSize == 0 ? "adaptive" : (chunkSize / 1024) + "k") + "." + parallel;
+        final ExecutorService executor = Executors.newFixedThreadPool(parallel);
+        // All uploads share one connection: Its client pool allows one request per upload
+        try (final RestApiConnection connection =
+            new RestApiConnection(m_server.getUrl(), TIMEOUT, TIMEOUT, parallel, TIMEOUT)) {
+            if (chunkSize == 0) {
+                connection.setUploadChunkSize(1024 * 1024, true);
+            } else {
+                connection.setUploadChunkSize(chunkSize, false);
+            }
+            connection.invokeSignIn("benchmark", "benchmark", "");
+            return runner.measure(name, parallel, () -> upload(connection, executor, file, parallel));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long upload(final RestApiConnection connection, final ExecutorService executor, final File file,
+        final int parallel) throws Exception {
+        final List<Future<?>> uploads = new ArrayList<>();
+        for (int i = 0; i < parallel; i++) {
+            final String datasourceName = "upload-benchmark-" + i;
+            uploads.add(executor.submit(() -> {
+                final String uploadSessionId =
+                    connection.invokeUploadFile(file, datasourceName, new ExecutionMonitor());
+                return connection.invokePublishDataSource(uploadSessionId, datasourceName, "hyper",
+                    m_server.getDefaultProjectId(), true, false);
+            }));
+        }
+        for (final Future<?> upload : uploads) {
+            try {
+                upload.get();
+            } catch (final ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+            }
+        }
+        return m_fileSize * parallel;
+    }
+
+    private File createFile() throws IOException {
+        final File file = FileUtil.createTempFile("tableau-upload-benchmark-", ".hyper");
+        // Random content: The size must not shrink if anything on the way compresses
+        final Random random = new Random(42L);
+        final byte[] buffer = new byte[1024 * 1024];
+        try (final OutputStream out = Files.newOutputStream(file.toPath())) {
+            for (long written = 0; written < m_fileSize; written += buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, (int)Math.min(buffer.length, m_fileSize - written));
+            }
+        }
+        return file;
+    }
+}
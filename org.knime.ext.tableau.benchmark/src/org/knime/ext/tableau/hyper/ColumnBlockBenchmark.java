@@ -0,0 +1,121 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.knime.core.data.DataRow;
+import org.knime.ext.tableau.benchmark.BenchmarkResult;
+import org.knime.ext.tableau.benchmark.BenchmarkRunner;
+import org.knime.ext.tableau.benchmark.SyntheticTable;
+import org.knime.ext.tableau.benchmark.SyntheticTable.ColumnType;
+
+import com.tableausoftware.common.Type;
+
+/**
+ * Measures the conversion of KNIME cells into the primitive column vectors of a {@link ColumnBlock} on its own. No
+ * native library is needed for this benchmark.
+ */
+public final class ColumnBlockBenchmark {
+
+    private ColumnBlockBenchmark() {
+    }
+
+    /**
+     * Runs the benchmarks for all tables.
+     *
+     * @param runner the runner which measures the operations
+     * @param tables the tables to convert
+     * @return the results
+     * @throws Exception if the conversion fails
+     */
+    public static List<BenchmarkResult> run(final BenchmarkRunner runner, final List<SyntheticTable> tables)
+        throws Exception {
+        final List<BenchmarkResult> results = new ArrayList<>();
+        for (final SyntheticTable table : tables) {
+            final ColumnType[] columnTypes = table.getColumnTypes();
+            final Type[] types = new Type[columnTypes.length];
+            final int[] colIndices = new int[columnTypes.length];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = toTableauType(columnTypes[i]);
+                colIndices[i] = i;
+            }
+            final ColumnBlock block =
+                new ColumnBlock(types, colIndices, TableauHyperExtractOpener.DEFAULT_BLOCK_SIZE);
+            final List<DataRow> rows = table.getRows();
+            results.add(runner.measure("hyper.convert." + table.getName(), rows.size(), () -> {
+                final Iterator<DataRow> it = rows.iterator();
+                while (it.hasNext()) {
+                    block.fill(it, TableauHyperExtractOpener.DEFAULT_BLOCK_SIZE);
+                }
+                return table.getBytes();
+            }));
+        }
+        return results;
+    }
+
+    private static Type toTableauType(final ColumnType type) {
+        switch (type) {
+            case BOOLEAN:
+                return Type.BOOLEAN;
+            case INT:
+                return Type.INTEGER;
+            case DOUBLE:
+                return Type.DOUBLE;
+            case DATE:
+                return Type.DATE;
+            case DATETIME:
+                return Type.DATETIME;
+            case DURATION:
+                return Type.DURATION;
+            default:
+                return Type.CHAR_STRING;
+        }
+    }
+}
@@ -0,0 +1,716 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import javax.ws.rs.core.MediaType;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.knime.ext.tableau.hyper.sendtable.api.binding.DataSourceListType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.DataSourceType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.ErrorType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.FileUploadType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.JobType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.ObjectFactory;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.PaginationType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.ProjectListType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.ProjectType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.SiteType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.TableauCredentialsType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.TsRequest;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.TsResponse;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded stand-in for a Tableau Server which implements the part of the REST API (version 2.8) used by
+ * {@link RestApiConnection}: sign in and out, querying projects and datasources (with paging and the name filters),
+ * chunked file uploads and publishing a datasource (also as a job, which can be queried). Nothing is stored:
+ * Uploads are only counted and published datasources are kept in memory.
+ *
+ * The server can simulate a slow network (latency per request and a bandwidth cap per upload request), fail requests
+ * on purpose and expire all sessions, such that the publish path can be load-tested without a Tableau Server.
+ */
+public final class MockTableauServer implements AutoCloseable {
+
+    private static final String API_PATH = "/api/2.8/";
+
+    private static final String SITE_ID = "mock-site";
+
+    private static final String AUTH_HEADER = "X-Tableau-Auth";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final ObjectFactory OBJECT_FACTORY = new ObjectFactory();
+
+    private final HttpServer m_server;
+
+    private final ExecutorService m_executor;
+
+    private final Map<String, String> m_tokens = new ConcurrentHashMap<>();
+
+    private final Map<String, ProjectType> m_projects = new ConcurrentHashMap<>();
+
+    /** Published datasources by project id and name */
+    private final Map<String, DataSourceType> m_datasources = new ConcurrentHashMap<>();
+
+    /** Start times (System.currentTimeMillis) of the publish jobs by id */
+    private final Map<String, Long> m_jobs = new ConcurrentHashMap<>();
+
+    /** Number of bytes in the upload sessions */
+    private final Map<String, AtomicLong> m_uploads = new ConcurrentHashMap<>();
+
+    private final AtomicLong m_requests = new AtomicLong();
+
+    private final AtomicLong m_uploadedBytes = new AtomicLong();
+
+    private final AtomicInteger m_failNext = new AtomicInteger();
+
+    private final String m_defaultProjectId;
+
+    private volatile long m_latencyMillis = 0L;
+
+    private volatile long m_bytesPerSecond = 0L;
+
+    private volatile long m_jobMillis = 0L;
+
+    private volatile double m_errorRate = 0.0;
+
+    /**
+     * Starts a server on a free port of the loopback interface. The server contains the project "default".
+     *
+     * @throws IOException if the server cannot be started
+     */
+    public MockTableauServer() throws IOException {
+        m_server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        m_executor = Executors.newCachedThreadPool(r -> {
+            final Thread t = new Thread(r, "Mock Tableau Server");
+            t.setDaemon(true);
+            return t;
+        });
+        m_server.setExecutor(m_executor);
+        m_server.createContext(API_PATH, this::handle);
+        m_defaultProjectId = addProject("default", null);
+        m_server.start();
+    }
+
+    /**
+     * @return the url of the server which can be passed to {@link RestApiConnection}
+     */
+    public String getUrl() {
+        return "http://" + m_server.getAddress().getHostString() + ":" + m_server.getAddress().getPort();
+    }
+
+    /**
+     * @return the id of the project "default"
+     */
+    public String getDefaultProjectId() {
+        return m_defaultProjectId;
+    }
+
+    /**
+     * @param latencyMillis the time in milliseconds each request waits before it is handled
+     */
+    public void setLatency(final long latencyMillis) {
+        m_latencyMillis = latencyMillis;
+    }
+
+    /**
+     * @param bytesPerSecond the maximum number of bytes per second read from one request or 0 for no limit
+     */
+    public void setBandwidth(final long bytesPerSecond) {
+        m_bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @param jobMillis the time in milliseconds a publish job runs before it is completed
+     */
+    public void setJobDuration(final long jobMillis) {
+        m_jobMillis = jobMillis;
+    }
+
+    /**
+     * @param errorRate the probability (between 0 and 1) that a request fails with an internal server error
+     */
+    public void setErrorRate(final double errorRate) {
+        m_errorRate = errorRate;
+    }
+
+    /**
+     * Lets the next requests fail with an internal server error.
+     *
+     * @param count the number of requests which fail
+     */
+    public void failNextRequests(final int count) {
+        m_failNext.set(count);
+    }
+
+    /**
+     * Invalidates the tokens of all sessions: The next request of each session is rejected as unauthorized.
+     */
+    public void expireSessions() {
+        m_tokens.clear();
+    }
+
+    /**
+     * Adds a project.
+     *
+     * @param name the name of the project
+     * @param parentProjectId the id of the parent project or <code>null</code> for a top level project
+     * @return the id of the new project
+     */
+    public String addProject(final String name, final String parentProjectId) {
+        final ProjectType project = OBJECT_FACTORY.createProjectType();
+        project.setId(UUID.randomUUID().toString());
+        project.setName(name);
+        project.setParentProjectId(parentProjectId);
+        m_projects.put(project.getId(), project);
+        return project.getId();
+    }
+
+    /**
+     * Adds datasources without uploading them, e.g. to make the datasource queries page through a large list.
+     *
+     * @param count the number of datasources
+     * @param namePrefix the prefix of the names, followed by a running number
+     * @param projectId the id of the project of the datasources
+     */
+    public void addDatasources(final int count, final String namePrefix, final String projectId) {
+        for (int i = 0; i < count; i++) {
+            putDatasource(namePrefix + i, projectId, "hyper");
+        }
+    }
+
+    /**
+     * @return the datasources which exist on the server
+     */
+    public List<DataSourceType> getDatasources() {
+        return new ArrayList<>(m_datasources.values());
+    }
+
+    /**
+     * @return the number of requests received so far
+     */
+    public long getRequestCount() {
+        return m_requests.get();
+    }
+
+    /**
+     * @return the number of file bytes received by all upload requests so far
+     */
+    public long getUploadedBytes() {
+        return m_uploadedBytes.get();
+    }
+
+    @Override
+    public void close() {
+        m_server.stop(0);
+        m_executor.shutdownNow();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            m_requests.incrementAndGet();
+            final byte[] body = readBody(exchange.getRequestBody());
+            if (m_latencyMillis > 0) {
+                Thread.sleep(m_latencyMillis);
+            }
+            if (isInjectedFailure()) {
+                sendError(exchange, 500, 500000, "Internal Server Error", "Injected failure.");
+                return;
+            }
+            route(exchange, body);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, 503000, "Service Unavailable", "The server is shutting down.");
+        } catch (final RuntimeException e) {
+            sendError(exchange, 400, 400000, "Bad Request", String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isInjectedFailure() {
+        if (m_failNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            return true;
+        }
+        return m_errorRate > 0 && ThreadLocalRandom.current().nextDouble() < m_errorRate;
+    }
+
+    private void route(final HttpExchange exchange, final byte[] body) throws IOException {
+        final String method = exchange.getRequestMethod();
+        final String[] path = exchange.getRequestURI().getPath().substring(API_PATH.length()).split("/");
+        if (path.length == 2 && "auth".equals(path[0])) {
+            if ("signin".equals(path[1]) && "POST".equals(method)) {
+                signIn(exchange, body);
+                return;
+            }
+            if ("signout".equals(path[1]) && "POST".equals(method)) {
+                final String token = exchange.getRequestHeaders().getFirst(AUTH_HEADER);
+                if (token != null) {
+                    m_tokens.remove(token);
+                }
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+        }
+        if (!isAuthorized(exchange)) {
+            sendError(exchange, 401, 401002, "Unauthorized Access", "Invalid authentication credentials.");
+            return;
+        }
+        if (path.length < 3 || !"sites".equals(path[0]) || !SITE_ID.equals(path[1])) {
+            sendError(exchange, 404, 404000, "Resource Not Found", "Unknown resource " + exchange.getRequestURI());
+            return;
+        }
+        final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        final String resource = path[2] + (path.length > 3 ? "/*" : "") + " " + method;
+        switch (resource) {
+            case "projects GET":
+                queryProjects(exchange, query);
+                break;
+            case "datasources GET":
+                queryDatasources(exchange, query);
+                break;
+            case "datasources POST":
+                publishDatasource(exchange, query, body);
+                break;
+            case "fileUploads POST":
+                initiateUpload(exchange);
+                break;
+            case "fileUploads/* PUT":
+                appendUpload(exchange, path[3], body);
+                break;
+            case "jobs/* GET":
+                queryJob(exchange, path[3]);
+                break;
+            default:
+                sendError(exchange, 405, 405000, "Method Not Allowed", resource + " is not supported.");
+        }
+    }
+
+    private boolean isAuthorized(final HttpExchange exchange) {
+        final String token = exchange.getRequestHeaders().getFirst(AUTH_HEADER);
+        return token != null && m_tokens.containsKey(token);
+    }
+
+    private void signIn(final HttpExchange exchange, final byte[] body) throws IOException {
+        final TsRequest request = readRequest(body, 0, body.length);
+        final TableauCredentialsType credentials = request.getCredentials();
+        if (credentials == null || credentials.getName() == null || credentials.getName().isEmpty()) {
+            sendError(exchange, 401, 401001, "Signin Error", "Missing credentials.");
+            return;
+        }
+        final String token = UUID.randomUUID().toString();
+        m_tokens.put(token, credentials.getName());
+        final SiteType site = OBJECT_FACTORY.createSiteType();
+        site.setId(SITE_ID);
+        site.setContentUrl(credentials.getSite() == null ? "" : credentials.getSite().getContentUrl());
+        final TableauCredentialsType result = OBJECT_FACTORY.createTableauCredentialsType();
+        result.setToken(token);
+        result.setSite(site);
+        final TsResponse response = OBJECT_FACTORY.createTsResponse();
+        response.setCredentials(result);
+        sendResponse(exchange, 200, response);
+    }
+
+    private void queryProjects(final HttpExchange exchange, final Map<String, String> query) throws IOException {
+        final ProjectListType projects = OBJECT_FACTORY.createProjectListType();
+        final TsResponse response = OBJECT_FACTORY.createTsResponse();
+        response.setPagination(page(new ArrayList<>(m_projects.values()), p -> true, query, projects.getProject()));
+        response.setProjects(projects);
+        sendResponse(exchange, 200, response);
+    }
+
+    private void queryDatasources(final HttpExchange exchange, final Map<String, String> query) throws IOException {
+        // Supports the filters used by the connection: name:eq:<name>,projectName:eq:<name>
+        final Map<String, String> filter = new HashMap<>();
+        if (query.containsKey("filter")) {
+            for (final String expression : query.get("filter").split(",")) {
+                final String[] parts = expression.split(":", 3);
+                if (parts.length != 3 || !"eq".equals(parts[1])) {
+                    sendError(exchange, 400, 400065, "Bad Request", "Unsupported filter " + expression);
+                    return;
+                }
+                filter.put(parts[0], decode(parts[2]));
+            }
+        }
+        final Predicate<DataSourceType> matches = d -> {
+            final ProjectType project = m_projects.get(d.getProject().getId());
+            return (!filter.containsKey("name") || filter.get("name").equals(d.getName()))
+                && (!filter.containsKey("projectName")
+                    || (project != null && filter.get("projectName").equals(project.getName())));
+        };
+        final DataSourceListType datasources = OBJECT_FACTORY.createDataSourceListType();
+        final TsResponse response = OBJECT_FACTORY.createTsResponse();
+        response.setPagination(
+            page(new ArrayList<>(m_datasources.values()), matches, query, datasources.getDatasource()));
+        response.setDatasources(datasources);
+        sendResponse(exchange, 200, response);
+    }
+
+    /** Adds the matching elements of the requested page to the page and returns the pagination */
+    private static <T> PaginationType page(final List<T> elements, final Predicate<T> filter,
+        final Map<String, String> query, final List<T> page) {
+        final List<T> matching = new ArrayList<>();
+        elements.stream().filter(filter).forEach(matching::add);
+        final int pageNumber = Math.max(1, Integer.parseInt(query.getOrDefault("pageNumber", "1")));
+        final int pageSize = Math.min(MAX_PAGE_SIZE,
+            Math.max(1, Integer.parseInt(query.getOrDefault("pageSize", String.valueOf(DEFAULT_PAGE_SIZE)))));
+        final long from = (long)(pageNumber - 1) * pageSize;
+        if (from < matching.size()) {
+            page.addAll(matching.subList((int)from, (int)Math.min(matching.size(), from + pageSize)));
+        }
+        final PaginationType pagination = OBJECT_FACTORY.createPaginationType();
+        pagination.setPageNumber(BigInteger.valueOf(pageNumber));
+        pagination.setPageSize(BigInteger.valueOf(pageSize));
+        pagination.setTotalAvailable(BigInteger.valueOf(matching.size()));
+        return pagination;
+    }
+
+    private void initiateUpload(final HttpExchange exchange) throws IOException {
+        final String uploadSessionId = UUID.randomUUID().toString();
+        m_uploads.put(uploadSessionId, new AtomicLong());
+        sendFileUpload(exchange, uploadSessionId, 0L);
+    }
+
+    private void appendUpload(final HttpExchange exchange, final String uploadSessionId, final byte[] body)
+        throws IOException {
+        final AtomicLong size = m_uploads.get(uploadSessionId);
+        if (size == null) {
+            sendError(exchange, 404, 404003, "Upload Session Not Found",
+                "The upload session " + uploadSessionId + " does not exist.");
+            return;
+        }
+        final Part file = findPart(exchange, body, "tableau_file");
+        if (file == null) {
+            sendError(exchange, 400, 400000, "Bad Request", "The request contains no file.");
+            return;
+        }
+        m_uploadedBytes.addAndGet(file.m_length);
+        sendFileUpload(exchange, uploadSessionId, size.addAndGet(file.m_length));
+    }
+
+    private void sendFileUpload(final HttpExchange exchange, final String uploadSessionId, final long fileSize)
+        throws IOException {
+        final FileUploadType fileUpload = OBJECT_FACTORY.createFileUploadType();
+        fileUpload.setUploadSessionId(uploadSessionId);
+        fileUpload.setFileSize(BigInteger.valueOf(fileSize / (1024 * 1024)));
+        final TsResponse response = OBJECT_FACTORY.createTsResponse();
+        response.setFileUpload(fileUpload);
+        sendResponse(exchange, 200, response);
+    }
+
+    private void publishDatasource(final HttpExchange exchange, final Map<String, String> query, final byte[] body)
+        throws IOException {
+        final String uploadSessionId = query.get("uploadSessionId");
+        if (uploadSessionId == null || m_uploads.remove(uploadSessionId) == null) {
+            sendError(exchange, 404, 404003, "Upload Session Not Found",
+                "The upload session " + uploadSessionId + " does not exist.");
+            return;
+        }
+        final Part payload = findPart(exchange, body, "request_payload");
+        final DataSourceType datasource =
+            payload == null ? null : readRequest(body, payload.m_offset, payload.m_length).getDatasource();
+        if (datasource == null || datasource.getProject() == null) {
+            sendError(exchange, 400, 400000, "Bad Request", "The request contains no datasource.");
+            return;
+        }
+        final String projectId = datasource.getProject().getId();
+        if (!m_projects.containsKey(projectId)) {
+            sendError(exchange, 404, 404005, "Project Not Found", "The project " + projectId + " does not exist.");
+            return;
+        }
+        final boolean exists = m_datasources.containsKey(key(projectId, datasource.getName()));
+        if (exists && !Boolean.parseBoolean(query.get("overwrite")) && !Boolean.parseBoolean(query.get("append"))) {
+            sendError(exchange, 409, 409004, "Resource Conflict",
+                "A datasource named '" + datasource.getName() + "' already exists in the project.");
+            return;
+        }
+        final TsResponse response = OBJECT_FACTORY.createTsResponse();
+        final DataSourceType published = putDatasource(datasource.getName(), projectId, query.get("datasourceType"));
+        if (Boolean.parseBoolean(query.get("asJob"))) {
+            final String jobId = UUID.randomUUID().toString();
+            final long start = System.currentTimeMillis();
+            m_jobs.put(jobId, start);
+            response.setJob(createJob(jobId, start));
+            sendResponse(exchange, 202, response);
+        } else {
+            response.setDatasource(published);
+            sendResponse(exchange, 201, response);
+        }
+    }
+
+    private void queryJob(final HttpExchange exchange, final String jobId) throws IOException {
+        final Long start = m_jobs.get(jobId);
+        if (start == null) {
+            sendError(exchange, 404, 404000, "Resource Not Found", "The job " + jobId + " does not exist.");
+            return;
+        }
+        final TsResponse response = OBJECT_FACTORY.createTsResponse();
+        response.setJob(createJob(jobId, start));
+        sendResponse(exchange, 200, response);
+    }
+
+    /**
+     * Creates a publish job which starts immediately and is completed after the configured job duration. Like a
+     * Tableau Server, the finish code is only set together with the completion time.
+     */
+    private JobType createJob(final String jobId, final long startMillis) throws IOException {
+        final JobType job = OBJECT_FACTORY.createJobType();
+        job.setId(jobId);
+        job.setMode("Asynchronous");
+        job.setType("PublishDatasource");
+        job.setCreatedAt(toCalendar(startMillis));
+        job.setStartedAt(toCalendar(startMillis));
+        final long jobMillis = m_jobMillis;
+        final long elapsedMillis = System.currentTimeMillis() - startMillis;
+        if (elapsedMillis >= jobMillis) {
+            job.setProgress(BigInteger.valueOf(100));
+            job.setCompletedAt(toCalendar(startMillis + jobMillis));
+            job.setFinishCode(BigInteger.ZERO);
+        } else {
+            job.setProgress(BigInteger.valueOf(elapsedMillis * 100 / jobMillis));
+        }
+        return job;
+    }
+
+    private static XMLGregorianCalendar toCalendar(final long millis) throws IOException {
+        final GregorianCalendar calendar = new GregorianCalendar();
+        calendar.setTimeInMillis(millis);
+        try {
+            return DatatypeFactory.newInstance().newXMLGregorianCalendar(calendar);
+        } catch (final DatatypeConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private DataSourceType putDatasource(final String name, final String projectId, final String type) {
+        final ProjectType project = OBJECT_FACTORY.createProjectType();
+        project.setId(projectId);
+        final DataSourceType datasource = OBJECT_FACTORY.createDataSourceType();
+        datasource.setId(UUID.randomUUID().toString());
+        datasource.setName(name);
+        datasource.setType(type);
+        datasource.setProject(project);
+        // Appending keeps the id of the existing datasource
+        final DataSourceType existing = m_datasources.putIfAbsent(key(projectId, name), datasource);
+        return existing == null ? datasource : existing;
+    }
+
+    private static String key(final String projectId, final String name) {
+        return projectId + "/" + name;
+    }
+
+    /** Reads the request body, not faster than the configured bandwidth */
+    private byte[] readBody(final InputStream in) throws IOException, InterruptedException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[64 * 1024];
+        final long start = System.nanoTime();
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            total += read;
+            final long bytesPerSecond = m_bytesPerSecond;
+            if (bytesPerSecond > 0) {
+                final long dueNanos = total * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+                final long aheadNanos = dueNanos - (System.nanoTime() - start);
+                if (aheadNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(aheadNanos);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static TsRequest readRequest(final byte[] body, final int offset, final int length) throws IOException {
+        final Object request = TsXmlProvider.INSTANCE.readFrom(Object.class, null, null,
+            MediaType.APPLICATION_XML_TYPE, null, new ByteArrayInputStream(body, offset, length));
+        if (!(request instanceof TsRequest)) {
+            throw new IllegalArgumentException("The request payload is not a tsRequest.");
+        }
+        return (TsRequest)request;
+    }
+
+    private static void sendResponse(final HttpExchange exchange, final int status, final TsResponse response)
+        throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TsXmlProvider.INSTANCE.writeTo(response, TsResponse.class, null, null, MediaType.APPLICATION_XML_TYPE, null,
+            out);
+        exchange.getResponseHeaders().set("Content-Type", MediaType.APPLICATION_XML);
+        exchange.sendResponseHeaders(status, out.size());
+        try (final OutputStream body = exchange.getResponseBody()) {
+            out.writeTo(body);
+        }
+    }
+
+    private static void sendError(final HttpExchange exchange, final int status, final int code,
+        final String summary, final String detail) throws IOException {
+        final ErrorType error = OBJECT_FACTORY.createErrorType();
+        error.setCode(BigInteger.valueOf(code));
+        error.setSummary(summary);
+        error.setDetail(detail);
+        final TsResponse response = OBJECT_FACTORY.createTsResponse();
+        response.setError(error);
+        sendResponse(exchange, status, response);
+    }
+
+    private static Map<String, String> parseQuery(final String rawQuery) {
+        final Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (final String parameter : rawQuery.split("&")) {
+                final int separator = parameter.indexOf('=');
+                if (separator > 0) {
+                    // NOTE: The filter is decoded per value, its separators are not encoded
+                    final String name = parameter.substring(0, separator);
+                    final String value = parameter.substring(separator + 1);
+                    query.put(name, "filter".equals(name) ? value : decode(value));
+                }
+            }
+        }
+        return query;
+    }
+
+    private static String decode(final String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (final UnsupportedEncodingException e) {
+            // Cannot happen: UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Finds the part of a multipart request with the given name in its content disposition */
+    private static Part findPart(final HttpExchange exchange, final byte[] body, final String name) {
+        final String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        final int boundaryIndex = contentType == null ? -1 : contentType.indexOf("boundary=");
+        if (boundaryIndex < 0) {
+            return null;
+        }
+        String boundary = contentType.substring(boundaryIndex + "boundary=".length()).split(";")[0].trim();
+        if (boundary.startsWith("\"")) {
+            boundary = boundary.substring(1, boundary.length() - 1);
+        }
+        final byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] headerEnd = "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        int position = indexOf(body, delimiter, 0);
+        while (position >= 0) {
+            final int partStart = position + delimiter.length;
+            final int headersEnd = indexOf(body, headerEnd, partStart);
+            if (headersEnd < 0) {
+                return null;
+            }
+            final int next = indexOf(body, delimiter, headersEnd);
+            if (next < 0) {
+                return null;
+            }
+            final String headers = new String(body, partStart, headersEnd - partStart, StandardCharsets.ISO_8859_1);
+            if (headers.contains("name=\"" + name + "\"")) {
+                final int offset = headersEnd + headerEnd.length;
+                // The line break before the next delimiter belongs to the delimiter
+                return new Part(offset, next - 2 - offset);
+            }
+            position = next;
+        }
+        return null;
+    }
+
+    private static int indexOf(final byte[] array, final byte[] target, final int from) {
+        outer: for (int i = from; i <= array.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (array[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /** The content of one part of a multipart request */
+    private static final class Part {
+
+        private final int m_offset;
+
+        private final int m_length;
+
+        private Part(final int offset, final int length) {
+            m_offset = offset;
+            m_length = length;
+        }
+    }
+}
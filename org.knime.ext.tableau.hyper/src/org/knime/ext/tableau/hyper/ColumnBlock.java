@@ -0,0 +1,402 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.time.duration.DurationValue;
+import org.knime.core.data.time.localdate.LocalDateValue;
+import org.knime.core.data.time.localdatetime.LocalDateTimeValue;
+import org.knime.ext.tableau.ConvertedRows;
+
+import com.tableausoftware.TableauException;
+import com.tableausoftware.common.Type;
+import com.tableausoftware.hyperextract.Row;
+import com.tableausoftware.hyperextract.Table;
+
+/**
+ * A block of rows which is converted into primitive column vectors before it is inserted into a Hyper table.
+ *
+ * The values of the KNIME cells are extracted column by column: Each column is converted by one tight loop over the
+ * rows of the block with a single cast. Inserting the block only reads the primitive arrays and calls the setters of
+ * the native row. Converting and inserting can therefore run in different threads on two blocks.
+ */
+final class ColumnBlock implements ConvertedRows {
+
+    private static final int BOOLEAN = 0;
+
+    private static final int INTEGER = 1;
+
+    private static final int DOUBLE = 2;
+
+    private static final int DATE = 3;
+
+    private static final int DATETIME = 4;
+
+    private static final int DURATION = 5;
+
+    private static final int STRING = 6;
+
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    private final int[] m_colIndices;
+
+    private final int[] m_kinds;
+
+    private final DataRow[] m_rows;
+
+    /** Null bitmap for each column */
+    private final BitSet[] m_missing;
+
+    private final boolean[][] m_booleans;
+
+    /** Integer values, the year of dates and date&times and the days of durations */
+    private final int[][] m_ints;
+
+    /** Month and day of dates, month, day and second of the day of date&times, seconds of the day of durations */
+    private final long[][] m_longs;
+
+    /** Fractions of the second of date&times and durations */
+    private final int[][] m_fracs;
+
+    private final double[][] m_doubles;
+
+    private final String[][] m_strings;
+
+    private int m_size = 0;
+
+    /**
+     * Creates a block for the given columns.
+     *
+     * @param types the Tableau types of the columns
+     * @param colIndices the indices of the columns in the KNIME rows
+     * @param capacity the maximum number of rows of the block
+     */
+    ColumnBlock(final Type[] types, final int[] colIndices, final int capacity) {
+        final int numCols = types.length;
+        m_colIndices = colIndices;
+        m_kinds = new int[numCols];
+        m_rows = new DataRow[capacity];
+        m_missing = new BitSet[numCols];
+        m_booleans = new boolean[numCols][];
+        m_ints = new int[numCols][];
+        m_longs = new long[numCols][];
+        m_fracs = new int[numCols][];
+        m_doubles = new double[numCols][];
+        m_strings = new String[numCols][];
+        for (int c = 0; c < numCols; c++) {
+            m_missing[c] = new BitSet(capacity);
+            final Type type = types[c];
+            if (type.equals(Type.BOOLEAN)) {
+                m_kinds[c] = BOOLEAN;
+                m_booleans[c] = new boolean[capacity];
+            } else if (type.equals(Type.INTEGER)) {
+                m_kinds[c] = INTEGER;
+                m_ints[c] = new int[capacity];
+            } else if (type.equals(Type.DOUBLE)) {
+                m_kinds[c] = DOUBLE;
+                m_doubles[c] = new double[capacity];
+            } else if (type.equals(Type.DATE)) {
+                m_kinds[c] = DATE;
+                m_ints[c] = new int[capacity];
+                m_longs[c] = new long[capacity];
+            } else if (type.equals(Type.DATETIME)) {
+                m_kinds[c] = DATETIME;
+                m_ints[c] = new int[capacity];
+                m_longs[c] = new long[capacity];
+                m_fracs[c] = new int[capacity];
+            } else if (type.equals(Type.DURATION)) {
+                m_kinds[c] = DURATION;
+                m_ints[c] = new int[capacity];
+                m_longs[c] = new long[capacity];
+                m_fracs[c] = new int[capacity];
+            } else if (type.equals(Type.CHAR_STRING) || type.equals(Type.UNICODE_STRING)) {
+                m_kinds[c] = STRING;
+                m_strings[c] = new String[capacity];
+            } else {
+                throw new IllegalArgumentException("Unsupported column type: " + type);
+            }
+        }
+    }
+
+    /**
+     * @return the number of rows in this block
+     */
+    @Override
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * Replaces the content of this block with the next rows of the iterator.
+     *
+     * @param rows the rows to convert
+     * @param maxRows the maximum number of rows to take from the iterator (at most the capacity of the block)
+     */
+    void fill(final Iterator<? extends DataRow> rows, final int maxRows) {
+        final int limit = Math.min(maxRows, m_rows.length);
+        m_size = 0;
+        while (m_size < limit && rows.hasNext()) {
+            m_rows[m_size++] = rows.next();
+        }
+        for (int c = 0; c < m_kinds.length; c++) {
+            m_missing[c].clear();
+            switch (m_kinds[c]) {
+                case BOOLEAN:
+                    convertBooleans(c);
+                    break;
+                case INTEGER:
+                    convertInts(c);
+                    break;
+                case DOUBLE:
+                    convertDoubles(c);
+                    break;
+                case DATE:
+                    convertDates(c);
+                    break;
+                case DATETIME:
+                    convertDateTimes(c);
+                    break;
+                case DURATION:
+                    convertDurations(c);
+                    break;
+                default:
+                    convertStrings(c);
+            }
+        }
+        // Do not keep the rows alive until the next fill
+        Arrays.fill(m_rows, 0, m_size, null);
+    }
+
+    /**
+     * Inserts all rows of this block into the table.
+     *
+     * @param table the table to insert into
+     * @param row the row buffer of the table which is reused for all rows
+     * @throws TableauException if the Tableau API fails to insert a row
+     */
+    void insert(final Table table, final Row row) throws TableauException {
+        insert(table, row, 0, m_size);
+    }
+
+    /**
+     * Inserts a range of rows of this block into the table.
+     *
+     * @param table the table to insert into
+     * @param row the row buffer of the table which is reused for all rows
+     * @param from the index of the first row to insert
+     * @param to the index after the last row to insert
+     * @throws TableauException if the Tableau API fails to insert a row
+     */
+    void insert(final Table table, final Row row, final int from, final int to) throws TableauException {
+        for (int r = from; r < to; r++) {
+            // Every column is set (either to a value or to null): No values of the previous row remain
+            for (int c = 0; c < m_kinds.length; c++) {
+                if (m_missing[c].get(r)) {
+                    row.setNull(c);
+                    continue;
+                }
+                switch (m_kinds[c]) {
+                    case BOOLEAN:
+                        row.setBoolean(c, m_booleans[c][r]);
+                        break;
+                    case INTEGER:
+                        row.setInteger(c, m_ints[c][r]);
+                        break;
+                    case DOUBLE:
+                        row.setDouble(c, m_doubles[c][r]);
+                        break;
+                    case DATE: {
+                        final long monthDay = m_longs[c][r];
+                        row.setDate(c, m_ints[c][r], (int)(monthDay >>> 5), (int)(monthDay & 0x1F));
+                        break;
+                    }
+                    case DATETIME: {
+                        final long packed = m_longs[c][r];
+                        final int second = (int)(packed & 0x1FFFF);
+                        row.setDateTime(c, m_ints[c][r], (int)(packed >>> 22), (int)((packed >>> 17) & 0x1F),
+                            second / 3600, (second / 60) % 60, second % 60, m_fracs[c][r]);
+                        break;
+                    }
+                    case DURATION: {
+                        final long seconds = m_longs[c][r];
+                        row.setDuration(c, m_ints[c][r], (int)(seconds / 3600), (int)((seconds / 60) % 60),
+                            (int)(seconds % 60), m_fracs[c][r]);
+                        break;
+                    }
+                    default:
+                        row.setCharString(c, m_strings[c][r]);
+                }
+            }
+            table.insert(row);
+        }
+    }
+
+    private void convertBooleans(final int c) {
+        final int colIndex = m_colIndices[c];
+        final boolean[] values = m_booleans[c];
+        for (int r = 0; r < m_size; r++) {
+            final DataCell cell = m_rows[r].getCell(colIndex);
+            if (cell.isMissing()) {
+                m_missing[c].set(r);
+            } else {
+                values[r] = ((BooleanValue)cell).getBooleanValue();
+            }
+        }
+    }
+
+    private void convertInts(final int c) {
+        final int colIndex = m_colIndices[c];
+        final int[] values = m_ints[c];
+        for (int r = 0; r < m_size; r++) {
+            final DataCell cell = m_rows[r].getCell(colIndex);
+            if (cell.isMissing()) {
+                m_missing[c].set(r);
+            } else {
+                values[r] = ((IntValue)cell).getIntValue();
+            }
+        }
+    }
+
+    private void convertDoubles(final int c) {
+        final int colIndex = m_colIndices[c];
+        final double[] values = m_doubles[c];
+        for (int r = 0; r < m_size; r++) {
+            final DataCell cell = m_rows[r].getCell(colIndex);
+            if (cell.isMissing()) {
+                m_missing[c].set(r);
+            } else {
+                values[r] = ((DoubleValue)cell).getDoubleValue();
+            }
+        }
+    }
+
+    private void convertDates(final int c) {
+        final int colIndex = m_colIndices[c];
+        final int[] years = m_ints[c];
+        final long[] monthDays = m_longs[c];
+        for (int r = 0; r < m_size; r++) {
+            final DataCell cell = m_rows[r].getCell(colIndex);
+            if (cell.isMissing()) {
+                m_missing[c].set(r);
+            } else {
+                final LocalDate date = ((LocalDateValue)cell).getLocalDate();
+                years[r] = date.getYear();
+                monthDays[r] = (date.getMonthValue() << 5) | date.getDayOfMonth();
+            }
+        }
+    }
+
+    private void convertDateTimes(final int c) {
+        final int colIndex = m_colIndices[c];
+        final int[] years = m_ints[c];
+        final long[] packed = m_longs[c];
+        final int[] fracs = m_fracs[c];
+        for (int r = 0; r < m_size; r++) {
+            final DataCell cell = m_rows[r].getCell(colIndex);
+            if (cell.isMissing()) {
+                m_missing[c].set(r);
+            } else {
+                final LocalDateTime dateTime = ((LocalDateTimeValue)cell).getLocalDateTime();
+                years[r] = dateTime.getYear();
+                packed[r] = ((long)dateTime.getMonthValue() << 22) | ((long)dateTime.getDayOfMonth() << 17)
+                    | dateTime.toLocalTime().toSecondOfDay();
+                // Same fractions as for the row by row conversion
+                fracs[r] = (int)(dateTime.getNano() / 10e5);
+            }
+        }
+    }
+
+    private void convertDurations(final int c) {
+        final int colIndex = m_colIndices[c];
+        final int[] days = m_ints[c];
+        final long[] seconds = m_longs[c];
+        final int[] fracs = m_fracs[c];
+        for (int r = 0; r < m_size; r++) {
+            final DataCell cell = m_rows[r].getCell(colIndex);
+            if (cell.isMissing()) {
+                m_missing[c].set(r);
+            } else {
+                final Duration duration = ((DurationValue)cell).getDuration();
+                try {
+                    days[r] = Math.toIntExact(duration.toDays());
+                } catch (final ArithmeticException e) {
+                    throw new IllegalArgumentException("Can't write durations with more than 2^31-1 days to Tableau "
+                        + "cell because of Tableau API limitations.");
+                }
+                // Keeps the sign of the duration like the row by row conversion
+                seconds[r] = duration.getSeconds() % SECONDS_PER_DAY;
+                fracs[r] = (int)(duration.getNano() / 10e5);
+            }
+        }
+    }
+
+    private void convertStrings(final int c) {
+        final int colIndex = m_colIndices[c];
+        final String[] values = m_strings[c];
+        for (int r = 0; r < m_size; r++) {
+            final DataCell cell = m_rows[r].getCell(colIndex);
+            if (cell.isMissing()) {
+                m_missing[c].set(r);
+                values[r] = null;
+            } else {
+                values[r] = ((StringValue)cell).getStringValue();
+            }
+        }
+    }
+}
@@ -68,6 +68,7 @@
 import org.knime.core.node.NodeLogger;
 import org.knime.ext.tableau.TableauPlugin;
 import org.knime.ext.tableau.TableauPlugin.TABLEAU_SDK;
+import org.knime.ext.tableau.hyper.sendtable.api.SessionCache;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 
@@ -173,6 +174,7 @@ private void loadLinuxLibraries() throws IOException {
 
     @Override
     public void stop(final BundleContext context) throws Exception {
-        // nothing to do
+        // Do not leave sessions open on the Tableau servers
+        SessionCache.getInstance().clear();
     }
 }
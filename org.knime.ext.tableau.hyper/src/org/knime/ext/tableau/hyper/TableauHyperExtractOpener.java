@@ -52,8 +52,13 @@
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.knime.core.data.BooleanValue;
 import org.knime.core.data.DataCell;
@@ -67,6 +72,7 @@
 import org.knime.core.data.time.duration.DurationValue;
 import org.knime.core.data.time.localdate.LocalDateValue;
 import org.knime.core.data.time.localdatetime.LocalDateTimeValue;
+import org.knime.ext.tableau.ConvertedRows;
 import org.knime.ext.tableau.TableauExtract;
 import org.knime.ext.tableau.TableauExtractOpener;
 import org.knime.ext.tableau.TableauTable;
@@ -88,16 +94,49 @@
  */
 public class TableauHyperExtractOpener implements TableauExtractOpener {
 
+    /** Default number of rows which are converted into primitive column vectors at once */
+    public static final int DEFAULT_BLOCK_SIZE = 16384;
+
+    /** Converts the next block of rows while the previous block is inserted. Idle threads are discarded */
+    private static final ExecutorService CONVERTER = Executors.newCachedThreadPool(r -> {
+        final Thread t = new Thread(r, "Tableau Hyper row conversion");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int m_blockSize;
+
+    /**
+     * Creates an opener for extracts whose tables convert and insert the rows one by one.
+     */
+    public TableauHyperExtractOpener() {
+        this(0);
+    }
+
+    /**
+     * Creates an opener for extracts whose tables convert the rows given to {@link TableauTable#addRows} in blocks.
+     * The rows of a block are converted into primitive column vectors in a separate thread while the previous block
+     * is inserted.
+     *
+     * @param blockSize the number of rows of one block, 0 to convert and insert the rows one by one
+     */
+    public TableauHyperExtractOpener(final int blockSize) {
+        m_blockSize = blockSize;
+    }
+
     @Override
     public TableauExtract openExtract(final String path) throws WrappingTableauException {
-        return new TableauHyperExtract(path);
+        return new TableauHyperExtract(path, m_blockSize);
     }
 
     private static class TableauHyperExtract implements TableauExtract {
 
         private final Extract m_extract;
 
-        TableauHyperExtract(final String path) throws WrappingTableauException {
+        private final int m_blockSize;
+
+        TableauHyperExtract(final String path, final int blockSize) throws WrappingTableauException {
+            m_blockSize = blockSize;
             try {
                 m_extract = new Extract(path);
             } catch (final TableauException e) {
@@ -113,7 +152,8 @@ public TableauTable createTable(final String name, final DataTableSpec spec) thr
                 final TableDefinition tableDef = createTableDefinition(typeSetters);
 
                 // Create the table
-                return new TableauHyperTable(m_extract.addTable(name, tableDef), typeSetters);
+                return new TableauHyperTable(m_extract.addTable(name, tableDef), tableDef, typeSetters,
+                    m_blockSize);
             } catch (final TableauException e) {
                 throw new WrappingTableauException(e);
             }
@@ -127,9 +167,10 @@ public TableauTable openTable(final String name, final DataTableSpec spec) throw
                 final TableDefinition tableDef = createTableDefinition(typeSetters);
 
                 final Table table = m_extract.openTable(name);
+                final TableDefinition existingTableDef = table.getTableDefinition();
 
                 // TODO check if equals is implemented correctly
-                if (!isCompatible(tableDef, table.getTableDefinition())) {
+                if (!isCompatible(tableDef, existingTableDef)) {
                     throw new WrappingTableauException("The extract contains a table with the name '" + name
                         + "' but with a different table definition. "
                         + "If you want to append to an existing table make sure the table is still the same. "
@@ -137,7 +178,7 @@ public TableauTable openTable(final String name, final DataTableSpec spec) throw
                 }
 
                 // Create the table
-                return new TableauHyperTable(table, typeSetters);
+                return new TableauHyperTable(table, existingTableDef, typeSetters, m_blockSize);
             } catch (final TableauException e) {
                 throw new WrappingTableauException(e);
             }
@@ -260,26 +301,150 @@ private static class TableauHyperTable implements TableauTable {
 
         private final TableauTypeSetter[] m_typeSetters;
 
-        public TableauHyperTable(final Table table, final TableauTypeSetter[] typeSetters) {
+        /** Row buffer which is reused for all inserts. Table#insert copies the values */
+        private final Row m_row;
+
+        private final int m_blockSize;
+
+        /** The Tableau types of the columns */
+        private final Type[] m_types;
+
+        /** The indices of the columns in the KNIME rows */
+        private final int[] m_colIndices;
+
+        /** Two blocks: One is converted while the other one is inserted. <code>null</code> to insert row by row */
+        private final ColumnBlock[] m_blocks;
+
+        public TableauHyperTable(final Table table, final TableDefinition tableDef,
+            final TableauTypeSetter[] typeSetters, final int blockSize) throws TableauException {
             m_table = table;
             m_typeSetters = typeSetters;
+            m_row = new Row(tableDef);
+            m_blockSize = blockSize;
+            m_types = new Type[typeSetters.length];
+            m_colIndices = new int[typeSetters.length];
+            for (int i = 0; i < typeSetters.length; i++) {
+                m_types[i] = typeSetters[i].getType();
+                m_colIndices[i] = typeSetters[i].getColIndex();
+            }
+            if (blockSize > 0) {
+                m_blocks = new ColumnBlock[]{new ColumnBlock(m_types, m_colIndices, blockSize),
+                    new ColumnBlock(m_types, m_colIndices, blockSize)};
+            } else {
+                m_blocks = null;
+            }
         }
 
         @Override
         public void addRow(final DataRow dataRow) throws WrappingTableauException {
             try {
-                final Row row = new Row(m_table.getTableDefinition());
-                for (int i = 0; i < m_typeSetters.length; i++) {
-                    final TableauTypeSetter typeSetter = m_typeSetters[i];
-                    final DataCell c = dataRow.getCell(typeSetter.getColIndex());
-                    typeSetter.addToRow(i, row, c);
+                insert(dataRow);
+            } catch (final TableauException e) {
+                throw new WrappingTableauException(e);
+            }
+        }
+
+        @Override
+        public long addRows(final Iterator<? extends DataRow> rows, final int batchSize)
+            throws WrappingTableauException {
+            if (m_blocks != null) {
+                try {
+                    return insertBlocks(rows, batchSize);
+                } catch (final TableauException e) {
+                    throw new WrappingTableauException(e);
+                }
+            }
+            long count = 0;
+            try {
+                while (count < batchSize && rows.hasNext()) {
+                    insert(rows.next());
+                    count++;
                 }
-                m_table.insert(row);
             } catch (final TableauException e) {
                 throw new WrappingTableauException(e);
             }
+            return count;
         }
 
+        /** Converts the rows into a new column block: Only reads the immutable column types */
+        @Override
+        public ConvertedRows convert(final List<DataRow> rows) {
+            final ColumnBlock block = new ColumnBlock(m_types, m_colIndices, Math.max(1, rows.size()));
+            block.fill(rows.iterator(), rows.size());
+            return block;
+        }
+
+        @Override
+        public void insert(final ConvertedRows rows, final int from, final int to) throws WrappingTableauException {
+            try {
+                ((ColumnBlock)rows).insert(m_table, m_row, from, to);
+            } catch (final TableauException e) {
+                throw new WrappingTableauException(e);
+            }
+        }
+
+        private void insert(final DataRow dataRow) throws TableauException {
+            // Every column is set (either to a value or to null): No values of the previous row remain
+            for (int i = 0; i < m_typeSetters.length; i++) {
+                final TableauTypeSetter typeSetter = m_typeSetters[i];
+                final DataCell c = dataRow.getCell(typeSetter.getColIndex());
+                typeSetter.addToRow(i, m_row, c);
+            }
+            m_table.insert(m_row);
+        }
+
+        /**
+         * Converts the rows in blocks and inserts them. The next block is converted in another thread while the
+         * current block is inserted. The iterator is only used by one thread at a time.
+         */
+        private long insertBlocks(final Iterator<? extends DataRow> rows, final int batchSize)
+            throws TableauException {
+            int current = 0;
+            m_blocks[current].fill(rows, Math.min(m_blockSize, batchSize));
+            long count = 0;
+            while (m_blocks[current].size() > 0) {
+                final ColumnBlock block = m_blocks[current];
+                count += block.size();
+                final int remaining = (int)Math.min(m_blockSize, batchSize - count);
+                final ColumnBlock next = m_blocks[1 - current];
+                Future<?> conversion = null;
+                if (remaining > 0 && block.size() == m_blockSize) {
+                    conversion = CONVERTER.submit(() -> next.fill(rows, remaining));
+                }
+                try {
+                    block.insert(m_table, m_row);
+                } finally {
+                    if (conversion != null) {
+                        // Also wait if the insert failed: The iterator must not be used by two threads
+                        awaitConversion(conversion);
+                    }
+                }
+                if (conversion == null) {
+                    break;
+                }
+                current = 1 - current;
+            }
+            return count;
+        }
+
+        private static void awaitConversion(final Future<?> conversion) {
+            try {
+                conversion.get();
+            } catch (final InterruptedException e) {
+                conversion.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while converting the rows.", e);
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException)cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error)cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
     }
 
     private static final class TableauTypeSetter {
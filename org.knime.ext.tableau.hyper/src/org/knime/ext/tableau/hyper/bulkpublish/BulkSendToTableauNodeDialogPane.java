@@ -0,0 +1,386 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.bulkpublish;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Frame;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+
+import javax.swing.BorderFactory;
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.ButtonGroup;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JPasswordField;
+import javax.swing.JRadioButton;
+import javax.swing.JSeparator;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.StringValue;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeDialogPane;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.util.ColumnSelectionPanel;
+import org.knime.core.node.util.DataValueColumnFilter;
+import org.knime.core.node.util.StringHistoryPanel;
+import org.knime.ext.tableau.hyper.bulkpublish.BulkSendToTableauSettings.FileOverwritePolicy;
+import org.knime.ext.tableau.hyper.sendtable.ProjectChooserPanel;
+
+/**
+ * Dialog of the node which publishes many extract files to a Tableau Server.
+ */
+final class BulkSendToTableauNodeDialogPane extends NodeDialogPane {
+
+    private final StringHistoryPanel m_hostPanel;
+
+    private final StringHistoryPanel m_usernamePanel;
+
+    private final JPasswordField m_passwordField;
+
+    private final StringHistoryPanel m_siteContentURLPanel;
+
+    private final JButton m_chooseProjectButton;
+
+    private final JTextField m_projectNamePanel;
+
+    private final ColumnSelectionPanel m_fileColumnPanel;
+
+    private final ColumnSelectionPanel m_datasourceColumnPanel;
+
+    private final ColumnSelectionPanel m_projectColumnPanel;
+
+    private final JRadioButton m_overwritePolicyAbortButton;
+
+    private final JRadioButton m_overwritePolicyAppendButton;
+
+    private final JRadioButton m_overwritePolicyOverwriteButton;
+
+    private final JSpinner m_parallelUploadsSpinner;
+
+    private final JSpinner m_maxRetriesSpinner;
+
+    private final JCheckBox m_publishAsJobCheckBox;
+
+    private String m_projectId;
+
+    private String m_projectName;
+
+    BulkSendToTableauNodeDialogPane() {
+        // NOTE: The histories are shared with the Send to Tableau Server node
+        m_hostPanel = new StringHistoryPanel("send-to-tableau-host");
+        m_usernamePanel = new StringHistoryPanel("send-to-tableau-username");
+        m_passwordField = new JPasswordField();
+        m_siteContentURLPanel = new StringHistoryPanel("send-to-tableau-siteContentURL");
+        m_projectNamePanel = new JTextField("");
+        m_projectNamePanel.setEditable(false);
+
+        m_chooseProjectButton = new JButton("Browse...");
+        m_chooseProjectButton.addActionListener(a -> chooseProject());
+
+        // Columns of the input table
+        m_fileColumnPanel =
+            new ColumnSelectionPanel(BorderFactory.createEmptyBorder(), new DataValueColumnFilter(StringValue.class));
+        m_datasourceColumnPanel = new ColumnSelectionPanel(BorderFactory.createEmptyBorder(),
+            new DataValueColumnFilter(StringValue.class), true);
+        m_projectColumnPanel = new ColumnSelectionPanel(BorderFactory.createEmptyBorder(),
+            new DataValueColumnFilter(StringValue.class), true);
+
+        m_overwritePolicyAppendButton = new JRadioButton("Append");
+        m_overwritePolicyOverwriteButton = new JRadioButton("Overwrite");
+        m_overwritePolicyAbortButton = new JRadioButton("Abort");
+        final ButtonGroup bg = new ButtonGroup();
+        bg.add(m_overwritePolicyAppendButton);
+        bg.add(m_overwritePolicyOverwriteButton);
+        bg.add(m_overwritePolicyAbortButton);
+
+        // Upload settings
+        m_parallelUploadsSpinner =
+            new JSpinner(new SpinnerNumberModel(BulkSendToTableauSettings.DEFAULT_PARALLEL_UPLOADS, 1,
+                BulkSendToTableauSettings.MAX_PARALLEL_UPLOADS, 1));
+        m_maxRetriesSpinner = new JSpinner(new SpinnerNumberModel(BulkSendToTableauSettings.DEFAULT_MAX_RETRIES, 0,
+            BulkSendToTableauSettings.MAX_RETRIES, 1));
+        m_publishAsJobCheckBox = new JCheckBox("Publish asynchronously");
+
+        addTab("Tableau Server Settings", initPanel());
+        addTab("Upload Settings", initUploadPanel());
+    }
+
+    private void chooseProject() {
+        final ProjectChooserPanel projectChooser = new ProjectChooserPanel(findParentFrame(), this::setProject);
+        projectChooser.invokeLoadingProjects(m_hostPanel.getSelectedString(), m_usernamePanel.getSelectedString(),
+            String.valueOf(m_passwordField.getPassword()), m_siteContentURLPanel.getSelectedString());
+    }
+
+    private void updateProjectTextField() {
+        if (m_projectId != null && !m_projectId.isEmpty()) {
+            m_projectNamePanel.setText(m_projectName + " (" + m_projectId + ")");
+        } else {
+            m_projectNamePanel.setText("");
+        }
+    }
+
+    private void setProject(final String id, final String name) {
+        m_projectId = id;
+        m_projectName = name;
+        updateProjectTextField();
+    }
+
+    private Frame findParentFrame() {
+        Container container = getPanel();
+        while (container != null) {
+            if (container instanceof Frame) {
+                return (Frame)container;
+            }
+            container = container.getParent();
+        }
+        return null;
+    }
+
+    private JPanel initPanel() {
+        final JPanel p = new JPanel(new GridBagLayout());
+        final GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.gridx = gbc.gridy = 0;
+
+        p.add(new JLabel("Host "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_hostPanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Username "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_usernamePanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Password "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_passwordField, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Site Content URL "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_siteContentURLPanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        gbc.gridwidth = 3;
+        p.add(new JSeparator(), gbc);
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("File column "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_fileColumnPanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Data source column "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_datasourceColumnPanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Project column "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_projectColumnPanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Default project "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        gbcComponent(gbc);
+        gbc.gridwidth = 1;
+        p.add(m_projectNamePanel, gbc);
+        gbc.gridx += 1;
+        p.add(m_chooseProjectButton, gbc);
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel(" If data source exists... "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        final JPanel overwritePane = new JPanel();
+        overwritePane.setLayout(new BoxLayout(overwritePane, BoxLayout.X_AXIS));
+        m_overwritePolicyOverwriteButton.setAlignmentY(Component.TOP_ALIGNMENT);
+        overwritePane.add(m_overwritePolicyOverwriteButton);
+        overwritePane.add(Box.createHorizontalStrut(20));
+        m_overwritePolicyAppendButton.setAlignmentY(Component.TOP_ALIGNMENT);
+        overwritePane.add(m_overwritePolicyAppendButton);
+        overwritePane.add(Box.createHorizontalStrut(20));
+        m_overwritePolicyAbortButton.setAlignmentY(Component.TOP_ALIGNMENT);
+        overwritePane.add(m_overwritePolicyAbortButton);
+        overwritePane.add(Box.createHorizontalGlue());
+        p.add(overwritePane, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        // Fill the remaining space
+        gbc.gridx = 0;
+        gbc.gridwidth = 3;
+        gbc.weighty = 1;
+        p.add(new JPanel(), gbc);
+
+        m_overwritePolicyAbortButton.doClick();
+        return p;
+    }
+
+    private JPanel initUploadPanel() {
+        final JPanel p = new JPanel(new GridBagLayout());
+        final GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.gridx = gbc.gridy = 0;
+
+        p.add(new JLabel("Parallel uploads "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_parallelUploadsSpinner, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Retries on network errors "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_maxRetriesSpinner, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        gbc.gridwidth = 3;
+        gbc.anchor = GridBagConstraints.WEST;
+        p.add(m_publishAsJobCheckBox, gbc);
+        gbc.gridy += 1;
+
+        // Fill the remaining space
+        gbc.weighty = 1;
+        p.add(new JPanel(), gbc);
+        return p;
+    }
+
+    private static GridBagConstraints gbcLabel(final GridBagConstraints gbc) {
+        gbc.anchor = GridBagConstraints.EAST;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.gridwidth = 1;
+        gbc.weightx = 0.0;
+        return gbc;
+    }
+
+    private static GridBagConstraints gbcComponent(final GridBagConstraints gbc) {
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.weightx = 1.0;
+        gbc.gridwidth = 2;
+        return gbc;
+    }
+
+    @Override
+    protected void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec[] specs)
+        throws NotConfigurableException {
+        final BulkSendToTableauSettings s = new BulkSendToTableauSettings().loadSettingsInDialog(settings);
+        m_hostPanel.setSelectedString(s.getHost());
+        m_usernamePanel.setSelectedString(s.getUsername());
+        m_passwordField.setText(s.getPassword());
+        m_siteContentURLPanel.setSelectedString(s.getSiteContentURL());
+
+        m_fileColumnPanel.update(specs[0], s.getFileColumn());
+        m_datasourceColumnPanel.update(specs[0], s.getDatasourceColumn());
+        m_projectColumnPanel.update(specs[0], s.getProjectColumn());
+        m_projectId = s.getProjectId();
+        m_projectName = s.getProjectName();
+        updateProjectTextField();
+        switch (s.getOverwrite()) {
+            case APPEND:
+                m_overwritePolicyAppendButton.doClick();
+                break;
+            case OVERWRITE:
+                m_overwritePolicyOverwriteButton.doClick();
+                break;
+            case ABORT:
+                m_overwritePolicyAbortButton.doClick();
+                break;
+        }
+
+        m_parallelUploadsSpinner.setValue(s.getParallelUploads());
+        m_maxRetriesSpinner.setValue(s.getMaxRetries());
+        m_publishAsJobCheckBox.setSelected(s.isPublishAsJob());
+    }
+
+    @Override
+    protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSettingsException {
+        final BulkSendToTableauSettings s = new BulkSendToTableauSettings();
+        s.setHost(m_hostPanel.getSelectedString());
+        s.setUsername(m_usernamePanel.getSelectedString());
+        s.setPassword(new String(m_passwordField.getPassword()));
+        s.setSiteContentURL(m_siteContentURLPanel.getSelectedString());
+
+        s.setFileColumn(m_fileColumnPanel.getSelectedColumn());
+        s.setDatasourceColumn(m_datasourceColumnPanel.getSelectedColumn());
+        s.setProjectColumn(m_projectColumnPanel.getSelectedColumn());
+        s.setProjectId(m_projectId);
+        s.setProjectName(m_projectName);
+        if (m_overwritePolicyAppendButton.isSelected()) {
+            s.setOverwrite(FileOverwritePolicy.APPEND);
+        } else if (m_overwritePolicyOverwriteButton.isSelected()) {
+            s.setOverwrite(FileOverwritePolicy.OVERWRITE);
+        } else {
+            s.setOverwrite(FileOverwritePolicy.ABORT);
+        }
+
+        s.setParallelUploads((Integer)m_parallelUploadsSpinner.getValue());
+        s.setMaxRetries((Integer)m_maxRetriesSpinner.getValue());
+        s.setPublishAsJob(m_publishAsJobCheckBox.isSelected());
+        s.saveSettings(settings);
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.bulkpublish;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.file.InvalidPathException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FilenameUtils;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.util.CheckUtils;
+import org.knime.core.util.FileUtil;
+import org.knime.ext.tableau.hyper.bulkpublish.BulkSendToTableauSettings.FileOverwritePolicy;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection.TsResponseException;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.DataSourceType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.ProjectType;
+
+/**
+ * Publishes the extract files listed in the input table as datasources to a Tableau Server. All datasources are
+ * published with one sign-in and one pool of connections. Up to the configured number of files are uploaded at the
+ * same time. The existing datasources are queried once for all rows.
+ *
+ * A row which cannot be published does not stop the others: The result of every row is written to the output table.
+ */
+final class BulkSendToTableauNodeModel extends NodeModel {
+
+    private static final NodeLogger LOG = NodeLogger.getLogger(BulkSendToTableauNodeModel.class);
+
+    /** The file types which can be published, the file extension is the type of the datasource */
+    private static final Set<String> DATASOURCE_TYPES = new HashSet<>(Arrays.asList("hyper", "tde"));
+
+    private static final String RESULT_PUBLISHED = "Published";
+
+    private static final String RESULT_CANCELED = "Canceled";
+
+    /** The maximum time to wait for the workers to stop after the execution was canceled */
+    private static final long WORKER_STOP_SECONDS = 30;
+
+    private BulkSendToTableauSettings m_settings;
+
+    BulkSendToTableauNodeModel() {
+        super(1, 1);
+    }
+
+    @Override
+    protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws InvalidSettingsException {
+        CheckUtils.checkSettingNotNull(m_settings, "No configuration available");
+        checkColumn(inSpecs[0], m_settings.getFileColumn(), "file");
+        checkColumn(inSpecs[0], m_settings.getDatasourceColumn(), "data source");
+        checkColumn(inSpecs[0], m_settings.getProjectColumn(), "project");
+        return new DataTableSpec[]{createOutputSpec()};
+    }
+
+    private static void checkColumn(final DataTableSpec spec, final String column, final String role)
+        throws InvalidSettingsException {
+        if (column == null) {
+            return;
+        }
+        final DataColumnSpec colSpec = spec.getColumnSpec(column);
+        CheckUtils.checkSetting(colSpec != null, "The %s column '%s' does not exist in the input table.", role,
+            column);
+        CheckUtils.checkSetting(colSpec.getType().isCompatible(StringValue.class),
+            "The %s column '%s' is not a string column.", role, column);
+    }
+
+    @Override
+    protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
+        throws Exception {
+        final List<Publication> publications = readPublications(inData[0], exec);
+        final long start = System.nanoTime();
+        exec.setMessage("Signing in");
+        try (final RestApiConnection restApi = connect()) {
+            resolveProjects(restApi, publications);
+            checkExistingDatasources(restApi, publications);
+            publishAll(restApi, publications, exec);
+            LOG.debug("HTTP connections of the uploads: " + restApi.getClientPoolStatistics());
+        }
+
+        final BufferedDataContainer container = exec.createDataContainer(createOutputSpec());
+        int failed = 0;
+        for (final Publication p : publications) {
+            container.addRowToTable(p.toRow());
+            if (p.m_error != null) {
+                failed++;
+            }
+        }
+        container.close();
+        LOG.infoWithFormat("Published %d of %d data sources in %d ms", publications.size() - failed,
+            publications.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (failed > 0) {
+            setWarningMessage(String.format("%d of %d data sources could not be published. See the output table.",
+                failed, publications.size()));
+        }
+        return new BufferedDataTable[]{container.getTable()};
+    }
+
+    /** Reads the file, data source and project of every row. Invalid rows are marked as failed. */
+    private List<Publication> readPublications(final BufferedDataTable table, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        final DataTableSpec spec = table.getDataTableSpec();
+        final int fileIdx = spec.findColumnIndex(m_settings.getFileColumn());
+        final int datasourceIdx = m_settings.getDatasourceColumn() == null ? -1
+            : spec.findColumnIndex(m_settings.getDatasourceColumn());
+        final int projectIdx =
+            m_settings.getProjectColumn() == null ? -1 : spec.findColumnIndex(m_settings.getProjectColumn());
+
+        final List<Publication> publications = new ArrayList<>();
+        for (final DataRow row : table) {
+            exec.checkCanceled();
+            final Publication p = new Publication(row.getKey());
+            publications.add(p);
+
+            final String path = getString(row, fileIdx);
+            if (path == null) {
+                p.fail("No file");
+                continue;
+            }
+            p.m_path = path;
+            try {
+                p.m_file = FileUtil.getFileFromURL(FileUtil.toURL(path));
+            } catch (final MalformedURLException | InvalidPathException e) {
+                p.fail("Invalid file path: " + e.getMessage());
+                continue;
+            }
+            if (p.m_file == null || !p.m_file.isFile()) {
+                p.fail("The file does not exist or is not a local file");
+                continue;
+            }
+            p.m_size = p.m_file.length();
+            p.m_datasourceType = FilenameUtils.getExtension(p.m_file.getName()).toLowerCase(Locale.ENGLISH);
+            if (!DATASOURCE_TYPES.contains(p.m_datasourceType)) {
+                p.fail("Unsupported file type '." + p.m_datasourceType + "': Only .hyper and .tde files are supported");
+                continue;
+            }
+
+            p.m_datasourceName =
+                datasourceIdx < 0 ? FilenameUtils.getBaseName(p.m_file.getName()) : getString(row, datasourceIdx);
+            if (p.m_datasourceName == null || p.m_datasourceName.isEmpty()) {
+                p.fail("No data source name");
+                continue;
+            }
+
+            p.m_projectReference = projectIdx < 0 ? null : getString(row, projectIdx);
+            if (p.m_projectReference == null) {
+                // Rows without a project are published into the configured project
+                if (m_settings.getProjectId() == null || m_settings.getProjectId().isEmpty()) {
+                    p.fail("No project");
+                    continue;
+                }
+                p.m_projectId = m_settings.getProjectId();
+                p.m_projectName = m_settings.getProjectName();
+            }
+        }
+        return publications;
+    }
+
+    private static String getString(final DataRow row, final int index) {
+        final DataCell cell = row.getCell(index);
+        return cell.isMissing() ? null : ((StringValue)cell).getStringValue();
+    }
+
+    private RestApiConnection connect() throws TsResponseException {
+        // One client for each parallel upload and one for the queries of the node
+        final RestApiConnection restApi = new RestApiConnection(m_settings.getHost(),
+            RestApiConnection.DEFAULT_CONNECTION_TIMEOUT, RestApiConnection.DEFAULT_RECEIVE_TIMEOUT,
+            m_settings.getParallelUploads() + 1, RestApiConnection.DEFAULT_IDLE_TIMEOUT);
+        try {
+            restApi.setMaxRetries(m_settings.getMaxRetries());
+            restApi.setPublishAsJob(m_settings.isPublishAsJob());
+            restApi.signIn(m_settings.getUsername(), m_settings.getPassword(), m_settings.getSiteContentURL());
+        } catch (final TsResponseException | RuntimeException e) {
+            restApi.close();
+            throw e;
+        }
+        return restApi;
+    }
+
+    /**
+     * Resolves the projects given in the project column. A project is referenced by its id or by its name, the name
+     * must be unique on the site. The projects are queried only once.
+     */
+    private static void resolveProjects(final RestApiConnection restApi, final List<Publication> publications)
+        throws TsResponseException {
+        if (publications.stream().noneMatch(p -> p.m_error == null && p.m_projectId == null)) {
+            return;
+        }
+        final Map<String, ProjectType> projectsById = new HashMap<>();
+        final Map<String, List<ProjectType>> projectsByName = new HashMap<>();
+        for (final ProjectType project : restApi.queryProjects(false).getProject()) {
+            projectsById.put(project.getId(), project);
+            projectsByName.computeIfAbsent(project.getName(), n -> new ArrayList<>()).add(project);
+        }
+        for (final Publication p : publications) {
+            if (p.m_error != null || p.m_projectId != null) {
+                continue;
+            }
+            ProjectType project = projectsById.get(p.m_projectReference);
+            if (project == null) {
+                final List<ProjectType> named = projectsByName.get(p.m_projectReference);
+                if (named == null) {
+                    p.fail("The project '" + p.m_projectReference + "' does not exist");
+                    continue;
+                } else if (named.size() > 1) {
+                    p.fail("The project name '" + p.m_projectReference + "' is not unique: Use the project id");
+                    continue;
+                }
+                project = named.get(0);
+            }
+            p.m_projectId = project.getId();
+            p.m_projectName = project.getName();
+        }
+    }
+
+    /**
+     * Applies the overwrite policy. The datasources of the site are queried once for all rows instead of searching
+     * each datasource. A datasource which is published by several rows is only published by the first one.
+     */
+    private void checkExistingDatasources(final RestApiConnection restApi, final List<Publication> publications)
+        throws TsResponseException {
+        final Set<String> published = new HashSet<>();
+        for (final Publication p : publications) {
+            if (p.m_error == null && !published.add(p.getDatasourceKey())) {
+                p.fail("The data source is published by an earlier row");
+            }
+        }
+        if (m_settings.getOverwrite() == FileOverwritePolicy.OVERWRITE
+            || publications.stream().allMatch(p -> p.m_error != null)) {
+            return;
+        }
+
+        final Set<String> existing = new HashSet<>();
+        for (final DataSourceType datasource : restApi.queryAllDatasources()) {
+            existing.add(datasourceKey(datasource.getProject().getId(), datasource.getName()));
+        }
+        for (final Publication p : publications) {
+            if (p.m_error != null || !existing.contains(p.getDatasourceKey())) {
+                continue;
+            }
+            if (m_settings.getOverwrite() == FileOverwritePolicy.APPEND) {
+                p.m_append = true;
+            } else {
+                p.fail("The data source exists already");
+            }
+        }
+    }
+
+    /** Uploads and publishes the valid rows with the configured number of threads */
+    private void publishAll(final RestApiConnection restApi, final List<Publication> publications,
+        final ExecutionContext exec) throws CanceledExecutionException, InterruptedException {
+        final List<Publication> pending = new ArrayList<>();
+        for (final Publication p : publications) {
+            if (p.m_error == null) {
+                pending.add(p);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final boolean overwrite = m_settings.getOverwrite() == FileOverwritePolicy.OVERWRITE;
+        final AtomicInteger completed = new AtomicInteger();
+        final ExecutorService executor =
+            Executors.newFixedThreadPool(Math.min(m_settings.getParallelUploads(), pending.size()), r -> {
+                final Thread t = new Thread(r, "Tableau bulk publish");
+                t.setDaemon(true);
+                return t;
+            });
+        try {
+            for (final Publication p : pending) {
+                // NOTE: The sub progress of a worker is canceled together with the node
+                final ExecutionMonitor progress = exec.createSubProgress(1.0 / pending.size());
+                executor.execute(() -> {
+                    p.publish(restApi, overwrite, progress);
+                    completed.incrementAndGet();
+                });
+            }
+            executor.shutdown();
+            do {
+                exec.setMessage(String.format("Published %d of %d data sources", completed.get(), pending.size()));
+                exec.checkCanceled();
+            } while (!executor.awaitTermination(200, TimeUnit.MILLISECONDS));
+        } finally {
+            executor.shutdownNow();
+            // The connection is closed after this method: Wait until no worker is using it anymore
+            try {
+                if (!executor.awaitTermination(WORKER_STOP_SECONDS, TimeUnit.SECONDS)) {
+                    LOG.warn("Not all uploads stopped within " + WORKER_STOP_SECONDS
+                        + " seconds. Their results are ignored.");
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // A worker which is still running must not change the results anymore
+            pending.forEach(Publication::cancelIfRunning);
+        }
+    }
+
+    private static String datasourceKey(final String projectId, final String datasourceName) {
+        return projectId + '/' + datasourceName;
+    }
+
+    private static DataTableSpec createOutputSpec() {
+        return new DataTableSpec( //
+            new DataColumnSpecCreator("Data Source", StringCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Project", StringCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("File", StringCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Size (bytes)", LongCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Upload Time (ms)", LongCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Publish Time (ms)", LongCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Result", StringCell.TYPE).createSpec());
+    }
+
+    /** The publication of the file of one input row and its result */
+    private static final class Publication {
+
+        private final RowKey m_rowKey;
+
+        private String m_path;
+
+        private File m_file;
+
+        private long m_size = -1L;
+
+        private String m_datasourceType;
+
+        private String m_datasourceName;
+
+        /** The id or name of the project from the input table, <code>null</code> for the configured project */
+        private String m_projectReference;
+
+        private String m_projectId;
+
+        private String m_projectName;
+
+        private boolean m_append = false;
+
+        // NOTE: The results of a worker are set while holding the lock of the publication
+        private long m_uploadMillis = -1L;
+
+        private long m_publishMillis = -1L;
+
+        /** The reason why the file is not published, <code>null</code> if it is published */
+        private String m_error;
+
+        /** If the result of {@link #publish(RestApiConnection, boolean, ExecutionMonitor)} is final */
+        private boolean m_done = false;
+
+        Publication(final RowKey rowKey) {
+            m_rowKey = rowKey;
+        }
+
+        void fail(final String error) {
+            m_error = error;
+        }
+
+        String getDatasourceKey() {
+            return datasourceKey(m_projectId, m_datasourceName);
+        }
+
+        /** Uploads and publishes the file. Called by a worker thread, a failure is recorded as the result. */
+        void publish(final RestApiConnection restApi, final boolean overwrite, final ExecutionMonitor progress) {
+            long uploadMillis = -1L;
+            long publishMillis = -1L;
+            String error = null;
+            try {
+                long start = System.nanoTime();
+                final String uploadSessionId = restApi.invokeUploadFile(m_file, m_datasourceName, progress);
+                uploadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                start = System.nanoTime();
+                restApi.invokePublishDataSource(uploadSessionId, m_datasourceName, m_datasourceType, m_projectId,
+                    overwrite, m_append, progress);
+                publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                LOG.debugWithFormat("Published data source '%s' (%d ms upload, %d ms publish)", m_datasourceName,
+                    uploadMillis, publishMillis);
+            } catch (final CanceledExecutionException e) {
+                error = RESULT_CANCELED;
+            } catch (final IOException | TsResponseException | RuntimeException e) {
+                LOG.debug("Publishing data source '" + m_datasourceName + "' failed: " + e.getMessage(), e);
+                error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            } finally {
+                complete(uploadMillis, publishMillis, error);
+            }
+        }
+
+        /** Records the result of the worker unless the node has stopped waiting for it */
+        private synchronized void complete(final long uploadMillis, final long publishMillis, final String error) {
+            if (m_done) {
+                return;
+            }
+            m_uploadMillis = uploadMillis;
+            m_publishMillis = publishMillis;
+            m_error = error;
+            m_done = true;
+        }
+
+        /** Marks the publication as canceled if its worker has not finished. Its later result is ignored. */
+        synchronized void cancelIfRunning() {
+            if (!m_done) {
+                m_error = RESULT_CANCELED;
+                m_done = true;
+            }
+        }
+
+        DataRow toRow() {
+            return new DefaultRow(m_rowKey, //
+                stringCell(m_datasourceName), //
+                stringCell(m_projectName), //
+                stringCell(m_path), //
+                longCell(m_size), //
+                longCell(m_uploadMillis), //
+                longCell(m_publishMillis), //
+                new StringCell(m_error == null ? RESULT_PUBLISHED : m_error));
+        }
+
+        private static DataCell stringCell(final String value) {
+            return value == null ? DataType.getMissingCell() : new StringCell(value);
+        }
+
+        private static DataCell longCell(final long value) {
+            return value < 0 ? DataType.getMissingCell() : new LongCell(value);
+        }
+    }
+
+    @Override
+    protected void reset() {
+        // nothing to do
+    }
+
+    @Override
+    protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        new BulkSendToTableauSettings().loadSettingsInModel(settings);
+    }
+
+    @Override
+    protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings = new BulkSendToTableauSettings().loadSettingsInModel(settings);
+    }
+
+    @Override
+    protected void saveSettingsTo(final NodeSettingsWO settings) {
+        if (m_settings != null) {
+            m_settings.saveSettings(settings);
+        }
+    }
+
+    @Override
+    protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        // nothing to do
+    }
+
+    @Override
+    protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        // nothing to do
+    }
+}
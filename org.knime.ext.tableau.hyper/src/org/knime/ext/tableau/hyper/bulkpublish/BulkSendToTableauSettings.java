@@ -0,0 +1,338 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.bulkpublish;
+
+import org.apache.commons.lang3.StringUtils;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.util.CheckUtils;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection;
+
+/**
+ * Settings of the node which publishes many extract files to a Tableau Server.
+ */
+final class BulkSendToTableauSettings {
+
+    private static final String PASSWORD_ENC = "tableau-knime";
+
+    private static final String CFG_HOST = "host";
+
+    private static final String CFG_USERNAME = "username";
+
+    private static final String CFG_PASSWORD = "password-enc";
+
+    private static final String CFG_SITE_CONTENT_URL = "siteContentURL";
+
+    private static final String CFG_PROJECT_ID = "projectId";
+
+    private static final String CFG_PROJECT_NAME = "projectName";
+
+    private static final String CFG_FILE_COLUMN = "fileColumn";
+
+    private static final String CFG_DATASOURCE_COLUMN = "datasourceColumn";
+
+    private static final String CFG_PROJECT_COLUMN = "projectColumn";
+
+    private static final String CFG_OVERWRITE = "overwrite";
+
+    private static final String CFG_PARALLEL_UPLOADS = "parallelUploads";
+
+    private static final String CFG_MAX_RETRIES = "maxRetries";
+
+    private static final String CFG_PUBLISH_AS_JOB = "publishAsJob";
+
+    /** Default number of data sources which are uploaded at the same time */
+    static final int DEFAULT_PARALLEL_UPLOADS = 4;
+
+    /** Maximum number of data sources which are uploaded at the same time */
+    static final int MAX_PARALLEL_UPLOADS = 32;
+
+    /** Default number of retries of a failed request */
+    static final int DEFAULT_MAX_RETRIES = RestApiConnection.DEFAULT_MAX_RETRIES;
+
+    /** Maximum number of retries of a failed request */
+    static final int MAX_RETRIES = 10;
+
+    private String m_host;
+
+    private String m_username;
+
+    private String m_password;
+
+    private String m_siteContentURL;
+
+    private String m_projectId;
+
+    private String m_projectName;
+
+    private String m_fileColumn;
+
+    private String m_datasourceColumn;
+
+    private String m_projectColumn;
+
+    private FileOverwritePolicy m_overwrite;
+
+    private int m_parallelUploads;
+
+    private int m_maxRetries;
+
+    private boolean m_publishAsJob;
+
+    /**
+     * Policy how to proceed when a data source exists (overwrite, abort, append).
+     */
+    enum FileOverwritePolicy {
+            /** Do not publish the file. */
+            ABORT,
+            /** Overwrite the existing data source. */
+            OVERWRITE,
+            /** Append to the existing data source. */
+            APPEND
+    }
+
+    String getHost() {
+        return m_host;
+    }
+
+    void setHost(final String host) {
+        m_host = host;
+    }
+
+    String getUsername() {
+        return m_username;
+    }
+
+    void setUsername(final String username) {
+        m_username = username;
+    }
+
+    String getPassword() {
+        return m_password;
+    }
+
+    void setPassword(final String password) {
+        m_password = password;
+    }
+
+    String getSiteContentURL() {
+        return m_siteContentURL;
+    }
+
+    void setSiteContentURL(final String siteContentURL) {
+        m_siteContentURL = siteContentURL;
+    }
+
+    /**
+     * @return the id of the project of the rows without a project, empty if not set
+     */
+    String getProjectId() {
+        return m_projectId;
+    }
+
+    void setProjectId(final String projectId) {
+        m_projectId = projectId;
+    }
+
+    String getProjectName() {
+        return m_projectName;
+    }
+
+    void setProjectName(final String projectName) {
+        m_projectName = projectName;
+    }
+
+    /**
+     * @return the column with the paths or URLs of the extract files
+     */
+    String getFileColumn() {
+        return m_fileColumn;
+    }
+
+    void setFileColumn(final String fileColumn) {
+        m_fileColumn = fileColumn;
+    }
+
+    /**
+     * @return the column with the names of the data sources, <code>null</code> to use the file names
+     */
+    String getDatasourceColumn() {
+        return m_datasourceColumn;
+    }
+
+    void setDatasourceColumn(final String datasourceColumn) {
+        m_datasourceColumn = datasourceColumn;
+    }
+
+    /**
+     * @return the column with the ids or names of the projects, <code>null</code> to publish into the configured
+     *         project
+     */
+    String getProjectColumn() {
+        return m_projectColumn;
+    }
+
+    void setProjectColumn(final String projectColumn) {
+        m_projectColumn = projectColumn;
+    }
+
+    FileOverwritePolicy getOverwrite() {
+        return m_overwrite;
+    }
+
+    void setOverwrite(final FileOverwritePolicy overwrite) {
+        m_overwrite = overwrite;
+    }
+
+    /**
+     * @return the number of data sources which are uploaded at the same time
+     */
+    int getParallelUploads() {
+        return m_parallelUploads;
+    }
+
+    void setParallelUploads(final int parallelUploads) {
+        m_parallelUploads = parallelUploads;
+    }
+
+    /**
+     * @return the number of retries of a request which failed with a transient error
+     */
+    int getMaxRetries() {
+        return m_maxRetries;
+    }
+
+    void setMaxRetries(final int maxRetries) {
+        m_maxRetries = maxRetries;
+    }
+
+    boolean isPublishAsJob() {
+        return m_publishAsJob;
+    }
+
+    void setPublishAsJob(final boolean publishAsJob) {
+        m_publishAsJob = publishAsJob;
+    }
+
+    void saveSettings(final NodeSettingsWO settings) {
+        settings.addString(CFG_HOST, m_host);
+        settings.addString(CFG_USERNAME, m_username);
+        settings.addPassword(CFG_PASSWORD, PASSWORD_ENC, m_password);
+        settings.addString(CFG_SITE_CONTENT_URL, m_siteContentURL);
+
+        settings.addString(CFG_PROJECT_ID, m_projectId);
+        settings.addString(CFG_PROJECT_NAME, m_projectName);
+        settings.addString(CFG_FILE_COLUMN, m_fileColumn);
+        settings.addString(CFG_DATASOURCE_COLUMN, m_datasourceColumn);
+        settings.addString(CFG_PROJECT_COLUMN, m_projectColumn);
+        settings.addString(CFG_OVERWRITE, m_overwrite.toString());
+        settings.addInt(CFG_PARALLEL_UPLOADS, m_parallelUploads);
+        settings.addInt(CFG_MAX_RETRIES, m_maxRetries);
+        settings.addBoolean(CFG_PUBLISH_AS_JOB, m_publishAsJob);
+    }
+
+    BulkSendToTableauSettings loadSettingsInDialog(final NodeSettingsRO settings) {
+        m_host = settings.getString(CFG_HOST, "");
+        m_username = settings.getString(CFG_USERNAME, "");
+        m_password = settings.getPassword(CFG_PASSWORD, PASSWORD_ENC, "");
+        m_siteContentURL = settings.getString(CFG_SITE_CONTENT_URL, "");
+
+        m_projectId = settings.getString(CFG_PROJECT_ID, "");
+        m_projectName = settings.getString(CFG_PROJECT_NAME, "");
+        m_fileColumn = settings.getString(CFG_FILE_COLUMN, null);
+        m_datasourceColumn = settings.getString(CFG_DATASOURCE_COLUMN, null);
+        m_projectColumn = settings.getString(CFG_PROJECT_COLUMN, null);
+        m_overwrite =
+            FileOverwritePolicy.valueOf(settings.getString(CFG_OVERWRITE, FileOverwritePolicy.ABORT.toString()));
+        m_parallelUploads = settings.getInt(CFG_PARALLEL_UPLOADS, DEFAULT_PARALLEL_UPLOADS);
+        m_maxRetries = settings.getInt(CFG_MAX_RETRIES, DEFAULT_MAX_RETRIES);
+        m_publishAsJob = settings.getBoolean(CFG_PUBLISH_AS_JOB, false);
+        return this;
+    }
+
+    BulkSendToTableauSettings loadSettingsInModel(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_host = settings.getString(CFG_HOST);
+        CheckUtils.checkSetting(StringUtils.isNotEmpty(m_host), "Host must not be empty");
+
+        m_username = settings.getString(CFG_USERNAME);
+        CheckUtils.checkSetting(StringUtils.isNotEmpty(m_username), "User must not be empty");
+
+        m_password = settings.getPassword(CFG_PASSWORD, PASSWORD_ENC);
+
+        m_siteContentURL = settings.getString(CFG_SITE_CONTENT_URL);
+        // Site content URL can be empty: For the default site
+
+        m_fileColumn = settings.getString(CFG_FILE_COLUMN);
+        CheckUtils.checkSetting(StringUtils.isNotEmpty(m_fileColumn), "No file column selected");
+        m_datasourceColumn = settings.getString(CFG_DATASOURCE_COLUMN);
+        m_projectColumn = settings.getString(CFG_PROJECT_COLUMN);
+
+        // The project is only needed for the rows without a project
+        m_projectId = settings.getString(CFG_PROJECT_ID);
+        m_projectName = settings.getString(CFG_PROJECT_NAME);
+        CheckUtils.checkSetting(m_projectColumn != null || StringUtils.isNotEmpty(m_projectId),
+            "Choose a project or a project column");
+
+        try {
+            m_overwrite = FileOverwritePolicy.valueOf(settings.getString(CFG_OVERWRITE));
+        } catch (final IllegalArgumentException e) {
+            throw new InvalidSettingsException("Unknown overwrite policy: " + settings.getString(CFG_OVERWRITE), e);
+        }
+
+        m_parallelUploads = settings.getInt(CFG_PARALLEL_UPLOADS);
+        CheckUtils.checkSetting(m_parallelUploads >= 1 && m_parallelUploads <= MAX_PARALLEL_UPLOADS,
+            "Parallel uploads must be between 1 and %d", MAX_PARALLEL_UPLOADS);
+
+        m_maxRetries = settings.getInt(CFG_MAX_RETRIES);
+        CheckUtils.checkSetting(m_maxRetries >= 0 && m_maxRetries <= MAX_RETRIES,
+            "Retries must be between 0 and %d", MAX_RETRIES);
+
+        m_publishAsJob = settings.getBoolean(CFG_PUBLISH_AS_JOB);
+        return this;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.refresh;
+
+import java.awt.Container;
+import java.awt.Frame;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.ButtonGroup;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JPasswordField;
+import javax.swing.JRadioButton;
+import javax.swing.JSeparator;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeDialogPane;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.util.StringHistoryPanel;
+import org.knime.ext.tableau.hyper.refresh.RefreshTableauExtractSettings.RefreshType;
+import org.knime.ext.tableau.hyper.sendtable.ProjectChooserPanel;
+
+/**
+ * Dialog of the node which refreshes the extract of a datasource on a Tableau Server.
+ */
+final class RefreshTableauExtractNodeDialogPane extends NodeDialogPane {
+
+    private final StringHistoryPanel m_hostPanel;
+
+    private final StringHistoryPanel m_usernamePanel;
+
+    private final JPasswordField m_passwordField;
+
+    private final StringHistoryPanel m_siteContentURLPanel;
+
+    private final JButton m_chooseProjectButton;
+
+    private final JTextField m_projectNamePanel;
+
+    private final StringHistoryPanel m_datasourceNamePanel;
+
+    private final JRadioButton m_fullRefreshButton;
+
+    private final JRadioButton m_incrementalRefreshButton;
+
+    private final JSpinner m_timeoutSpinner;
+
+    private String m_projectId;
+
+    private String m_projectName;
+
+    RefreshTableauExtractNodeDialogPane() {
+        // NOTE: The histories are shared with the Send to Tableau Server node
+        m_hostPanel = new StringHistoryPanel("send-to-tableau-host");
+        m_usernamePanel = new StringHistoryPanel("send-to-tableau-username");
+        m_passwordField = new JPasswordField();
+        m_siteContentURLPanel = new StringHistoryPanel("send-to-tableau-siteContentURL");
+        m_projectNamePanel = new JTextField("");
+        m_projectNamePanel.setEditable(false);
+        m_datasourceNamePanel = new StringHistoryPanel("send-to-tableau-datasourceName");
+
+        m_fullRefreshButton = new JRadioButton("Full");
+        m_incrementalRefreshButton = new JRadioButton("Incremental");
+        final ButtonGroup bg = new ButtonGroup();
+        bg.add(m_fullRefreshButton);
+        bg.add(m_incrementalRefreshButton);
+
+        m_chooseProjectButton = new JButton("Browse...");
+        m_chooseProjectButton.addActionListener(a -> chooseProject());
+
+        m_timeoutSpinner = new JSpinner(
+            new SpinnerNumberModel(RefreshTableauExtractSettings.DEFAULT_TIMEOUT, 0, Integer.MAX_VALUE, 60));
+
+        addTab("Tableau Server Settings", initPanel());
+    }
+
+    private void chooseProject() {
+        final ProjectChooserPanel projectChooser = new ProjectChooserPanel(findParentFrame(), this::setProject);
+        projectChooser.invokeLoadingProjects(m_hostPanel.getSelectedString(), m_usernamePanel.getSelectedString(),
+            String.valueOf(m_passwordField.getPassword()), m_siteContentURLPanel.getSelectedString());
+    }
+
+    private void updateProjectTextField() {
+        if (m_projectId != null && !m_projectId.isEmpty()) {
+            m_projectNamePanel.setText(m_projectName + " (" + m_projectId + ")");
+        } else {
+            m_projectNamePanel.setText("");
+        }
+    }
+
+    private void setProject(final String id, final String name) {
+        m_projectId = id;
+        m_projectName = name;
+        updateProjectTextField();
+    }
+
+    private Frame findParentFrame() {
+        Container container = getPanel();
+        while (container != null) {
+            if (container instanceof Frame) {
+                return (Frame)container;
+            }
+            container = container.getParent();
+        }
+        return null;
+    }
+
+    private JPanel initPanel() {
+        final JPanel p = new JPanel(new GridBagLayout());
+        final GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.gridx = gbc.gridy = 0;
+
+        p.add(new JLabel("Host "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_hostPanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Username "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_usernamePanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Password "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_passwordField, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Site Content URL "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_siteContentURLPanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        gbc.gridwidth = 3;
+        p.add(new JSeparator(), gbc);
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Project"), gbcLabel(gbc));
+        gbc.gridx += 1;
+        gbcComponent(gbc);
+        gbc.gridwidth = 1;
+        p.add(m_projectNamePanel, gbc);
+        gbc.gridx += 1;
+        p.add(m_chooseProjectButton, gbc);
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Data Source"), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_datasourceNamePanel, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Refresh "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        final JPanel refreshTypePane = new JPanel();
+        refreshTypePane.setLayout(new BoxLayout(refreshTypePane, BoxLayout.X_AXIS));
+        refreshTypePane.add(m_fullRefreshButton);
+        refreshTypePane.add(Box.createHorizontalStrut(20));
+        refreshTypePane.add(m_incrementalRefreshButton);
+        refreshTypePane.add(Box.createHorizontalGlue());
+        p.add(refreshTypePane, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Timeout (s) "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_timeoutSpinner, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        gbc.gridwidth = 3;
+        gbc.weighty = 1;
+        p.add(new JPanel(), gbc);
+        return p;
+    }
+
+    private static GridBagConstraints gbcLabel(final GridBagConstraints gbc) {
+        gbc.anchor = GridBagConstraints.EAST;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.gridwidth = 1;
+        gbc.weightx = 0.0;
+        return gbc;
+    }
+
+    private static GridBagConstraints gbcComponent(final GridBagConstraints gbc) {
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.weightx = 1.0;
+        gbc.gridwidth = 2;
+        return gbc;
+    }
+
+    @Override
+    protected void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec[] specs) {
+        final RefreshTableauExtractSettings s = new RefreshTableauExtractSettings().loadSettingsInDialog(settings);
+        m_hostPanel.setSelectedString(s.getHost());
+        m_usernamePanel.setSelectedString(s.getUsername());
+        m_passwordField.setText(s.getPassword());
+        m_siteContentURLPanel.setSelectedString(s.getSiteContentURL());
+
+        m_projectId = s.getProjectId();
+        m_projectName = s.getProjectName();
+        updateProjectTextField();
+        m_datasourceNamePanel.setSelectedString(s.getDatasourceName());
+        if (s.getRefreshType() == RefreshType.INCREMENTAL) {
+            m_incrementalRefreshButton.doClick();
+        } else {
+            m_fullRefreshButton.doClick();
+        }
+        m_timeoutSpinner.setValue(s.getTimeout());
+    }
+
+    @Override
+    protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSettingsException {
+        final RefreshTableauExtractSettings s = new RefreshTableauExtractSettings();
+        s.setHost(m_hostPanel.getSelectedString());
+        s.setUsername(m_usernamePanel.getSelectedString());
+        s.setPassword(new String(m_passwordField.getPassword()));
+        s.setSiteContentURL(m_siteContentURLPanel.getSelectedString());
+
+        s.setProjectId(m_projectId);
+        s.setProjectName(m_projectName);
+        s.setDatasourceName(m_datasourceNamePanel.getSelectedString());
+        s.setRefreshType(m_incrementalRefreshButton.isSelected() ? RefreshType.INCREMENTAL : RefreshType.FULL);
+        s.setTimeout((Integer)m_timeoutSpinner.getValue());
+        s.saveSettings(settings);
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.refresh;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.time.zoneddatetime.ZonedDateTimeCellFactory;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.util.CheckUtils;
+import org.knime.ext.tableau.hyper.refresh.RefreshTableauExtractSettings.RefreshType;
+import org.knime.ext.tableau.hyper.sendtable.api.JobPoller;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection.TsResponseException;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.DataSourceType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.JobType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.TaskExtractRefreshType;
+
+/**
+ * Triggers the refresh of the extract of a datasource on a Tableau Server and waits until the server completed it.
+ * The server reads the underlying data itself: No data is sent from KNIME.
+ */
+final class RefreshTableauExtractNodeModel extends NodeModel {
+
+    private static final NodeLogger LOG = NodeLogger.getLogger(RefreshTableauExtractNodeModel.class);
+
+    /** Type of an extract refresh task which refreshes incrementally */
+    private static final String INCREMENTAL_REFRESH_TASK_TYPE = "IncrementalRefresh";
+
+    private RefreshTableauExtractSettings m_settings;
+
+    RefreshTableauExtractNodeModel() {
+        super(0, 1);
+    }
+
+    @Override
+    protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws InvalidSettingsException {
+        CheckUtils.checkSettingNotNull(m_settings, "No configuration available");
+        return new DataTableSpec[]{createOutputSpec()};
+    }
+
+    @Override
+    protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
+        throws Exception {
+        try (final RestApiConnection restApi = new RestApiConnection(m_settings.getHost())) {
+            restApi.signIn(m_settings.getUsername(), m_settings.getPassword(), m_settings.getSiteContentURL());
+            final DataSourceType datasource = restApi.findDatasource(m_settings.getDatasourceName(),
+                m_settings.getProjectId(), m_settings.getProjectName());
+            CheckUtils.checkSetting(datasource != null, "The data source '%s' does not exist in the project '%s'.",
+                m_settings.getDatasourceName(), m_settings.getProjectName());
+
+            exec.setMessage("Starting the extract refresh");
+            final JobType started = startRefresh(restApi, datasource.getId());
+            LOG.debugWithFormat("Started the extract refresh of '%s' (job %s)", m_settings.getDatasourceName(),
+                started.getId());
+            final JobPoller poller = new JobPoller(restApi);
+            final JobType job = poller.waitFor(started.getId(), m_settings.getTimeout() * 1000L, exec);
+            if (!JobPoller.isSuccessful(job)) {
+                throw new IllegalStateException(
+                    "The extract refresh job " + job.getId() + " did not succeed: " + JobPoller.describeResult(job));
+            }
+
+            final BufferedDataContainer container = exec.createDataContainer(createOutputSpec());
+            container.addRowToTable(createStatisticsRow(job, poller.getQueryCount()));
+            container.close();
+            return new BufferedDataTable[]{container.getTable()};
+        }
+    }
+
+    /** Starts a full refresh or runs the incremental refresh task of the datasource */
+    private JobType startRefresh(final RestApiConnection restApi, final String datasourceId)
+        throws TsResponseException, InvalidSettingsException {
+        if (m_settings.getRefreshType() == RefreshType.FULL) {
+            return restApi.invokeRefreshDatasource(datasourceId);
+        }
+        final List<TaskExtractRefreshType> tasks = restApi.invokeQueryExtractRefreshTasks(datasourceId);
+        final TaskExtractRefreshType task = tasks.stream() //
+            .filter(t -> Boolean.TRUE.equals(t.isIncremental())
+                || INCREMENTAL_REFRESH_TASK_TYPE.equalsIgnoreCase(t.getType())) //
+            .findFirst() //
+            .orElseThrow(() -> new InvalidSettingsException("No incremental extract refresh is scheduled for the "
+                + "data source '" + m_settings.getDatasourceName() + "'. Schedule an incremental refresh on the "
+                + "server or use a full refresh."));
+        return restApi.invokeRunExtractRefreshTask(task.getId());
+    }
+
+    private static DataTableSpec createOutputSpec() {
+        return new DataTableSpec( //
+            new DataColumnSpecCreator("Job ID", StringCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Data Source", StringCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Refresh Type", StringCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Result", StringCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Created", ZonedDateTimeCellFactory.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Started", ZonedDateTimeCellFactory.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Completed", ZonedDateTimeCellFactory.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Queue Time (ms)", LongCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Run Time (ms)", LongCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Status Queries", IntCell.TYPE).createSpec());
+    }
+
+    private DefaultRow createStatisticsRow(final JobType job, final int queryCount) {
+        final ZonedDateTime created = toDateTime(job.getCreatedAt());
+        final ZonedDateTime started = toDateTime(job.getStartedAt());
+        final ZonedDateTime completed = toDateTime(job.getCompletedAt());
+        return new DefaultRow(RowKey.createRowKey(0L), //
+            new StringCell(job.getId()), //
+            new StringCell(m_settings.getDatasourceName()), //
+            new StringCell(m_settings.getRefreshType() == RefreshType.FULL ? "Full" : "Incremental"), //
+            new StringCell(JobPoller.describeResult(job)), //
+            toCell(created), //
+            toCell(started), //
+            toCell(completed), //
+            durationCell(created, started), //
+            durationCell(started, completed), //
+            new IntCell(queryCount));
+    }
+
+    private static ZonedDateTime toDateTime(final XMLGregorianCalendar calendar) {
+        return calendar == null ? null : calendar.toGregorianCalendar().toZonedDateTime();
+    }
+
+    private static DataCell toCell(final ZonedDateTime dateTime) {
+        return dateTime == null ? DataType.getMissingCell() : ZonedDateTimeCellFactory.create(dateTime);
+    }
+
+    private static DataCell durationCell(final ZonedDateTime from, final ZonedDateTime to) {
+        return from == null || to == null ? DataType.getMissingCell()
+            : new LongCell(Duration.between(from, to).toMillis());
+    }
+
+    @Override
+    protected void reset() {
+        // nothing to do
+    }
+
+    @Override
+    protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        new RefreshTableauExtractSettings().loadSettingsInModel(settings);
+    }
+
+    @Override
+    protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings = new RefreshTableauExtractSettings().loadSettingsInModel(settings);
+    }
+
+    @Override
+    protected void saveSettingsTo(final NodeSettingsWO settings) {
+        if (m_settings != null) {
+            m_settings.saveSettings(settings);
+        }
+    }
+
+    @Override
+    protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        // nothing to do
+    }
+
+    @Override
+    protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        // nothing to do
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.refresh;
+
+import org.apache.commons.lang3.StringUtils;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Settings of the node which refreshes the extract of a datasource on a Tableau Server.
+ */
+final class RefreshTableauExtractSettings {
+
+    private static final String PASSWORD_ENC = "tableau-knime";
+
+    private static final String CFG_HOST = "host";
+
+    private static final String CFG_USERNAME = "username";
+
+    private static final String CFG_PASSWORD = "password-enc";
+
+    private static final String CFG_SITE_CONTENT_URL = "siteContentURL";
+
+    private static final String CFG_PROJECT_ID = "projectId";
+
+    private static final String CFG_PROJECT_NAME = "projectName";
+
+    private static final String CFG_DATASOURCE_NAME = "datasourceName";
+
+    private static final String CFG_REFRESH_TYPE = "refreshType";
+
+    private static final String CFG_TIMEOUT = "timeout";
+
+    /** Default time to wait for the refresh in seconds (one hour) */
+    static final int DEFAULT_TIMEOUT = 3600;
+
+    private String m_host;
+
+    private String m_username;
+
+    private String m_password;
+
+    private String m_siteContentURL;
+
+    private String m_projectId;
+
+    private String m_projectName;
+
+    private String m_datasourceName;
+
+    private RefreshType m_refreshType;
+
+    private int m_timeout;
+
+    /**
+     * How the extract is refreshed.
+     */
+    enum RefreshType {
+            /** Recreate the whole extract from the underlying data. */
+            FULL,
+            /** Run the incremental extract refresh task which is scheduled for the datasource. */
+            INCREMENTAL
+    }
+
+    String getHost() {
+        return m_host;
+    }
+
+    void setHost(final String host) {
+        m_host = host;
+    }
+
+    String getUsername() {
+        return m_username;
+    }
+
+    void setUsername(final String username) {
+        m_username = username;
+    }
+
+    String getPassword() {
+        return m_password;
+    }
+
+    void setPassword(final String password) {
+        m_password = password;
+    }
+
+    String getSiteContentURL() {
+        return m_siteContentURL;
+    }
+
+    void setSiteContentURL(final String siteContentURL) {
+        m_siteContentURL = siteContentURL;
+    }
+
+    String getProjectId() {
+        return m_projectId;
+    }
+
+    void setProjectId(final String projectId) {
+        m_projectId = projectId;
+    }
+
+    String getProjectName() {
+        return m_projectName;
+    }
+
+    void setProjectName(final String projectName) {
+        m_projectName = projectName;
+    }
+
+    String getDatasourceName() {
+        return m_datasourceName;
+    }
+
+    void setDatasourceName(final String datasourceName) {
+        m_datasourceName = datasourceName;
+    }
+
+    RefreshType getRefreshType() {
+        return m_refreshType;
+    }
+
+    void setRefreshType(final RefreshType refreshType) {
+        m_refreshType = refreshType;
+    }
+
+    /**
+     * @return the maximum time to wait for the refresh in seconds, 0 to wait until it is completed
+     */
+    int getTimeout() {
+        return m_timeout;
+    }
+
+    void setTimeout(final int timeout) {
+        m_timeout = timeout;
+    }
+
+    void saveSettings(final NodeSettingsWO settings) {
+        settings.addString(CFG_HOST, m_host);
+        settings.addString(CFG_USERNAME, m_username);
+        settings.addPassword(CFG_PASSWORD, PASSWORD_ENC, m_password);
+        settings.addString(CFG_SITE_CONTENT_URL, m_siteContentURL);
+
+        settings.addString(CFG_PROJECT_ID, m_projectId);
+        settings.addString(CFG_PROJECT_NAME, m_projectName);
+        settings.addString(CFG_DATASOURCE_NAME, m_datasourceName);
+        settings.addString(CFG_REFRESH_TYPE, m_refreshType.toString());
+        settings.addInt(CFG_TIMEOUT, m_timeout);
+    }
+
+    RefreshTableauExtractSettings loadSettingsInDialog(final NodeSettingsRO settings) {
+        m_host = settings.getString(CFG_HOST, "");
+        m_username = settings.getString(CFG_USERNAME, "");
+        m_password = settings.getPassword(CFG_PASSWORD, PASSWORD_ENC, "");
+        m_siteContentURL = settings.getString(CFG_SITE_CONTENT_URL, "");
+
+        m_projectId = settings.getString(CFG_PROJECT_ID, "");
+        m_projectName = settings.getString(CFG_PROJECT_NAME, "");
+        m_datasourceName = settings.getString(CFG_DATASOURCE_NAME, "");
+        m_refreshType = RefreshType.valueOf(settings.getString(CFG_REFRESH_TYPE, RefreshType.FULL.toString()));
+        m_timeout = settings.getInt(CFG_TIMEOUT, DEFAULT_TIMEOUT);
+        return this;
+    }
+
+    RefreshTableauExtractSettings loadSettingsInModel(final NodeSettingsRO settings)
+        throws InvalidSettingsException {
+        m_host = settings.getString(CFG_HOST);
+        CheckUtils.checkSetting(StringUtils.isNotEmpty(m_host), "Host must not be empty");
+
+        m_username = settings.getString(CFG_USERNAME);
+        CheckUtils.checkSetting(StringUtils.isNotEmpty(m_username), "User must not be empty");
+
+        m_password = settings.getPassword(CFG_PASSWORD, PASSWORD_ENC);
+
+        m_siteContentURL = settings.getString(CFG_SITE_CONTENT_URL);
+        // Site content URL can be empty: For the default site
+
+        m_projectId = settings.getString(CFG_PROJECT_ID);
+        CheckUtils.checkSetting(StringUtils.isNotEmpty(m_projectId), "Project id must not be empty");
+
+        m_projectName = settings.getString(CFG_PROJECT_NAME);
+        CheckUtils.checkSetting(StringUtils.isNotEmpty(m_projectName), "Project name must not be empty");
+
+        m_datasourceName = settings.getString(CFG_DATASOURCE_NAME);
+        CheckUtils.checkSetting(StringUtils.isNotEmpty(m_datasourceName), "Data source name must not be empty");
+
+        try {
+            m_refreshType = RefreshType.valueOf(settings.getString(CFG_REFRESH_TYPE));
+        } catch (final IllegalArgumentException e) {
+            throw new InvalidSettingsException("Unknown refresh type: " + settings.getString(CFG_REFRESH_TYPE), e);
+        }
+
+        m_timeout = settings.getInt(CFG_TIMEOUT);
+        CheckUtils.checkSetting(m_timeout >= 0, "The timeout must not be negative");
+        return this;
+    }
+}
@@ -53,10 +53,8 @@
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.ExecutionException;
 import java.util.function.BiConsumer;
 
@@ -74,12 +72,14 @@
 
 import org.knime.core.node.NodeLogger;
 import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection;
-import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection.TsResponseException;
-import org.knime.ext.tableau.hyper.sendtable.api.binding.ProjectListType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.ProjectType;
 
-/** @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany */
-final class ProjectChooserPanel {
+/**
+ * A window which shows the projects of a Tableau Server site as a tree and lets the user choose one.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class ProjectChooserPanel {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(ProjectChooserPanel.class);
 
@@ -89,6 +89,8 @@ final class ProjectChooserPanel {
 
     private final JButton m_cancel;
 
+    private final JButton m_refresh;
+
     private final JDialog m_dialog;
 
     private final BiConsumer<String, String> m_selector;
@@ -97,6 +99,14 @@ final class ProjectChooserPanel {
 
     private boolean m_projectsLoaded = false;
 
+    private String m_host;
+
+    private String m_user;
+
+    private String m_password;
+
+    private String m_contentUrl;
+
     /**
      * Creates a new project chooser window.
      *
@@ -104,12 +114,13 @@ final class ProjectChooserPanel {
      * @param selector a {@link BiConsumer} that is called with the id and name of the project when a project was
      *            selected
      */
-    ProjectChooserPanel(final Frame parent, final BiConsumer<String, String> selector) {
+    public ProjectChooserPanel(final Frame parent, final BiConsumer<String, String> selector) {
         m_selector = selector;
 
         m_tree = new JTree(new String[]{"Loading..."});
         m_accept = new JButton("Accept");
         m_cancel = new JButton("Cancel");
+        m_refresh = new JButton("Refresh");
         m_dialog = new JDialog(parent);
         m_dialog.setTitle("Choose project...");
         m_dialog.setLocationRelativeTo(parent);
@@ -123,7 +134,9 @@ final class ProjectChooserPanel {
 
         m_accept.addActionListener(a -> clickAccept());
         m_cancel.addActionListener(a -> clickCancel());
+        m_refresh.addActionListener(a -> clickRefresh());
         m_accept.setEnabled(false);
+        m_refresh.setEnabled(false);
 
         show();
     }
@@ -134,7 +147,7 @@ private void show() {
         gbc.insets = new Insets(5, 5, 5, 5);
         gbc.gridx = gbc.gridy = 0;
 
-        gbc.gridwidth = 2;
+        gbc.gridwidth = 3;
         gbc.fill = GridBagConstraints.BOTH;
         gbc.weightx = 1;
         gbc.weighty = 1;
@@ -148,22 +161,33 @@ private void show() {
         m_dialog.add(m_accept, gbc);
         gbc.gridx += 1;
         m_dialog.add(m_cancel, gbc);
+        gbc.gridx += 1;
+        m_dialog.add(m_refresh, gbc);
 
         m_dialog.pack();
         m_dialog.setVisible(true);
     }
 
     /**
-     * Start loading projects from the server to be shown in the window.
+     * Start loading projects from the server to be shown in the window. Projects which were loaded recently for the
+     * same server, site and user are shown without asking the server again.
      *
      * @param host
      * @param user
      * @param password
      * @param contentUrl
      */
-    void invokeLoadingProjects(final String host, final String user, final String password,
+    public void invokeLoadingProjects(final String host, final String user, final String password,
         final String contentUrl) {
-        m_projectLoader = new ProjectLoader(host, user, password, contentUrl);
+        m_host = host;
+        m_user = user;
+        m_password = password;
+        m_contentUrl = contentUrl;
+        loadProjects(false);
+    }
+
+    private void loadProjects(final boolean refresh) {
+        m_projectLoader = new ProjectLoader(m_host, m_user, m_password, m_contentUrl, refresh);
         m_projectLoader.execute();
     }
 
@@ -181,6 +205,47 @@ private void clickCancel() {
         }
     }
 
+    private void clickRefresh() {
+        m_projectsLoaded = false;
+        m_accept.setEnabled(false);
+        m_refresh.setEnabled(false);
+        final DefaultMutableTreeNode root = new DefaultMutableTreeNode("");
+        root.add(new DefaultMutableTreeNode("Loading..."));
+        ((DefaultTreeModel)m_tree.getModel()).setRoot(root);
+        loadProjects(true);
+    }
+
+    /**
+     * Builds the tree of the given projects. The nodes of all projects are created first, such that every project is
+     * added to its parent with one lookup.
+     *
+     * @throws IllegalStateException if the parent of a project is missing or the projects contain a cycle
+     */
+    private static TreeNode buildProjectTree(final List<ProjectType> projects) {
+        final Map<String, DefaultMutableTreeNode> nodes = new HashMap<>();
+        for (final ProjectType p : projects) {
+            nodes.putIfAbsent(p.getId(), new DefaultMutableTreeNode(new ProjectDesc(p.getName(), p.getId())));
+        }
+
+        final DefaultMutableTreeNode root = new DefaultMutableTreeNode("");
+        for (final ProjectType p : projects) {
+            final DefaultMutableTreeNode node = nodes.get(p.getId());
+            if (node.getParent() != null) {
+                // The project was listed twice (e.g. it moved between two pages while they were queried)
+                continue;
+            }
+            final String parentId = p.getParentProjectId();
+            final DefaultMutableTreeNode parent = parentId == null ? root : nodes.get(parentId);
+            // NOTE: A parent which is a descendant of the node would close a cycle
+            if (parent == null || parent == node || node.isNodeDescendant(parent)) {
+                throw new IllegalStateException(
+                    "Tableau Server send an invalid list of projects. Can't find parent projects for some nodes.");
+            }
+            parent.add(node);
+        }
+        return root;
+    }
+
     private static class ProjectDesc {
 
         private String m_name;
@@ -216,18 +281,23 @@ private class ProjectLoader extends SwingWorker<TreeNode, Void> {
 
         private String m_contentUrl;
 
-        ProjectLoader(final String host, final String user, final String password, final String contentUrl) {
+        private boolean m_refresh;
+
+        ProjectLoader(final String host, final String user, final String password, final String contentUrl,
+            final boolean refresh) {
             m_host = host;
             m_user = user;
             m_password = password;
             m_contentUrl = contentUrl;
+            m_refresh = refresh;
         }
 
         @Override
         protected TreeNode doInBackground() throws Exception {
-            final RestApiConnection apiConnection = new RestApiConnection(m_host);
-            apiConnection.invokeSignIn(m_user, m_password, m_contentUrl);
-            return buildProjectTree(apiConnection);
+            try (final RestApiConnection apiConnection = new RestApiConnection(m_host)) {
+                apiConnection.signIn(m_user, m_password, m_contentUrl);
+                return buildProjectTree(apiConnection.queryProjects(m_refresh).getProject());
+            }
         }
 
         @Override
@@ -236,6 +306,7 @@ protected void done() {
             try {
                 model.setRoot(get());
                 m_projectsLoaded = true;
+                m_refresh.setEnabled(true);
             } catch (final InterruptedException e) {
                 // Do nothing
             } catch (final ExecutionException e) {
@@ -245,48 +316,5 @@ protected void done() {
                 m_dialog.dispose();
             }
         }
-
-        private TreeNode buildProjectTree(final RestApiConnection apiConnection) throws TsResponseException {
-            // Get all projects
-            final ProjectListType projects = apiConnection.invokeQueryProjects();
-            final Queue<ProjectType> queue = new LinkedList<>(projects.getProject());
-            final List<String> readIds = new LinkedList<>();
-
-            final Map<String, DefaultMutableTreeNode> tree = new HashMap<>();
-            final DefaultMutableTreeNode root = new DefaultMutableTreeNode("");
-
-            while (!queue.isEmpty()) {
-                final ProjectType p = queue.poll();
-                final String parentId = p.getParentProjectId();
-                if (parentId == null) {
-                    // Add it to the root node
-                    final DefaultMutableTreeNode node =
-                        new DefaultMutableTreeNode(new ProjectDesc(p.getName(), p.getId()));
-                    root.add(node);
-                    tree.put(p.getId(), node);
-                    readIds.clear();
-                } else if (tree.containsKey(parentId)) {
-                    // We know about the parent
-                    final DefaultMutableTreeNode node =
-                        new DefaultMutableTreeNode(new ProjectDesc(p.getName(), p.getId()));
-                    final DefaultMutableTreeNode parent = tree.get(parentId);
-                    parent.add(node);
-                    tree.put(p.getId(), node);
-                    readIds.clear();
-                } else {
-                    if (readIds.contains(p.getId())) {
-                        // We added no node to the tree since the last time we saw this node:
-                        // Something is wrong
-                        throw new IllegalStateException(
-                            "Tableau Server send an invalid list of projects. Can't find parent projects for some nodes.");
-                    }
-                    // We don't know where the parent is in the tree:
-                    // Add it back to the queue
-                    queue.add(p);
-                    readIds.add(p.getId());
-                }
-            }
-            return root;
-        }
     }
 }
@@ -0,0 +1,350 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection;
+
+/**
+ * Uploads and publishes the segments of a datasource in the background while the next segment is being written.
+ *
+ * Each segment is uploaded in its own upload session. Up to the configured number of segments are uploaded in
+ * parallel (the chunks of one upload session must be appended in order). The segments are published in the order in
+ * which they were submitted: The first segment creates (or overwrites or appends to) the datasource, all further
+ * segments are appended to it. A segment file is deleted after it has been uploaded.
+ *
+ * <b>Note:</b> Publishing is not atomic: If a segment fails, the datasource keeps the segments published before.
+ * Therefore the first segment should not overwrite an existing datasource.
+ *
+ * The size of the segments which wait on the local disk can be limited: {@link #submit(File)} blocks until enough
+ * earlier segments have been uploaded and deleted, which throttles the writer to the speed of the upload.
+ */
+final class SegmentPublisher implements AutoCloseable {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(SegmentPublisher.class);
+
+    private static final String DATASOURCE_TYPE = "hyper";
+
+    private final RestApiConnection m_restApi;
+
+    private final String m_projectId;
+
+    private final String m_datasourceName;
+
+    private final boolean m_overwrite;
+
+    private final boolean m_append;
+
+    /** Maximum size of the submitted segments which are not uploaded yet, 0 if not limited */
+    private final long m_maxBytesOnDisk;
+
+    /** Monitor of the writing thread, checked while it waits for disk space */
+    private final ExecutionMonitor m_exec;
+
+    /** Monitor which receives the progress of the background uploads */
+    private final ExecutionMonitor m_uploadProgress;
+
+    /** Share of one segment in the upload progress, 0 if the number of segments is unknown */
+    private final double m_segmentWeight;
+
+    private final Object m_diskLock = new Object();
+
+    /** Size of the submitted segments which are not deleted yet (guarded by m_diskLock) */
+    private long m_bytesOnDisk = 0L;
+
+    private final ExecutorService m_uploadExecutor;
+
+    private final ExecutorService m_publishExecutor;
+
+    private final List<Future<?>> m_pending = new ArrayList<>();
+
+    private final List<File> m_segments = new ArrayList<>();
+
+    private final AtomicInteger m_uploadedSegments = new AtomicInteger();
+
+    private final AtomicLong m_uploadedBytes = new AtomicLong();
+
+    private long m_submittedBytes = 0L;
+
+    /** Set if publishing a segment failed: No further segment must be appended */
+    private volatile boolean m_failed = false;
+
+    private boolean m_finished = false;
+
+    /**
+     * Creates a new publisher for the segments of one datasource.
+     *
+     * @param restApi a signed in connection to the server
+     * @param projectId the id of the project to which the datasource should be added
+     * @param datasourceName the name of the data source
+     * @param overwrite if the datasource should be overwritten by the first segment
+     * @param append if the first segment should be appended to an existing datasource
+     * @param parallelUploads the maximum number of segments which are uploaded at the same time
+     * @param maxBytesOnDisk the maximum size of the submitted segments which are not uploaded yet, 0 if not limited
+     * @param exec the monitor to check for cancellation while {@link #submit(File)} waits for disk space
+     * @param uploadProgress the monitor which receives the progress of the uploads
+     * @param numSegments the expected number of segments, 0 if unknown (no progress is reported then)
+     */
+    SegmentPublisher(final RestApiConnection restApi, final String projectId, final String datasourceName,
+        final boolean overwrite, final boolean append, final int parallelUploads, final long maxBytesOnDisk,
+        final ExecutionMonitor exec, final ExecutionMonitor uploadProgress, final long numSegments) {
+        m_restApi = restApi;
+        m_projectId = projectId;
+        m_datasourceName = datasourceName;
+        m_overwrite = overwrite;
+        m_append = append;
+        m_maxBytesOnDisk = maxBytesOnDisk;
+        m_exec = exec;
+        m_uploadProgress = uploadProgress;
+        m_segmentWeight = numSegments > 0 ? 1.0 / numSegments : 0;
+        m_uploadExecutor = Executors.newFixedThreadPool(parallelUploads, r -> {
+            final Thread t = new Thread(r, "Tableau segment upload - " + datasourceName);
+            t.setDaemon(true);
+            return t;
+        });
+        m_publishExecutor = Executors.newSingleThreadExecutor(r -> {
+            final Thread t = new Thread(r, "Tableau segment publish - " + datasourceName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Schedules the upload and publishing of the next segment. The file is deleted after it was uploaded. Blocks while
+     * the segment does not fit into the local disk limit.
+     *
+     * @param segment the finished hyper file of the segment
+     * @throws Exception if the upload of a previous segment failed or the execution was canceled
+     */
+    void submit(final File segment) throws Exception {
+        final long size = segment.length();
+        try {
+            checkFailures();
+            waitForDiskSpace(size);
+        } catch (final Exception e) {
+            deleteSegment(segment);
+            throw e;
+        }
+        final int index = m_pending.size();
+        m_segments.add(segment);
+        m_submittedBytes += size;
+        final Future<String> upload = m_uploadExecutor.submit(() -> uploadSegment(segment, size, index));
+        m_pending.add(m_publishExecutor.submit(() -> {
+            publishSegment(upload, index);
+            return null;
+        }));
+    }
+
+    /**
+     * Waits until all submitted segments are published.
+     *
+     * @param exec the monitor to check for cancellation
+     * @throws Exception if the upload of a segment failed or the execution was canceled
+     */
+    void finish(final ExecutionMonitor exec) throws Exception {
+        for (int i = 0; i < m_pending.size(); i++) {
+            final Future<?> future = m_pending.get(i);
+            while (!future.isDone()) {
+                exec.setMessage(String.format("Uploaded %d/%d segments (%s of %s), publishing segment %d",
+                    m_uploadedSegments.get(), m_pending.size(),
+                    FileUtils.byteCountToDisplaySize(m_uploadedBytes.get()),
+                    FileUtils.byteCountToDisplaySize(m_submittedBytes), i + 1));
+                exec.checkCanceled();
+                try {
+                    future.get(200, TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException e) {
+                    // Check cancellation and wait again
+                } catch (final ExecutionException e) {
+                    // Handled below
+                }
+            }
+            getResult(future);
+        }
+        m_finished = true;
+    }
+
+    @Override
+    public void close() {
+        if (!m_finished) {
+            // Stop the remaining uploads after the current chunk
+            m_failed = true;
+        }
+        m_uploadExecutor.shutdownNow();
+        m_publishExecutor.shutdownNow();
+        if (!m_finished) {
+            // Segments which have not been uploaded yet are not deleted by the upload task
+            m_segments.forEach(SegmentPublisher::deleteSegment);
+        }
+    }
+
+    /**
+     * Waits until the segments on the disk and a new segment of the given size fit into the limit and reserves the
+     * space. A segment which is larger than the limit is admitted once no other segment waits for its upload.
+     */
+    private void waitForDiskSpace(final long size) throws Exception {
+        synchronized (m_diskLock) {
+            if (m_maxBytesOnDisk > 0 && m_bytesOnDisk > 0 && m_bytesOnDisk + size > m_maxBytesOnDisk) {
+                LOGGER.debugWithFormat("Waiting for the upload of earlier segments: %s of the %s local disk limit used",
+                    FileUtils.byteCountToDisplaySize(m_bytesOnDisk),
+                    FileUtils.byteCountToDisplaySize(m_maxBytesOnDisk));
+            }
+            while (m_maxBytesOnDisk > 0 && m_bytesOnDisk > 0 && m_bytesOnDisk + size > m_maxBytesOnDisk) {
+                m_exec.checkCanceled();
+                checkFailures();
+                m_diskLock.wait(200);
+            }
+            m_bytesOnDisk += size;
+        }
+    }
+
+    /** Releases the disk space of a segment which has been deleted */
+    private void releaseDiskSpace(final long size) {
+        synchronized (m_diskLock) {
+            m_bytesOnDisk -= size;
+            m_diskLock.notifyAll();
+        }
+    }
+
+    private String uploadSegment(final File segment, final long size, final int index) throws Exception {
+        try {
+            if (m_failed) {
+                throw new IllegalStateException("Upload skipped because a previous segment failed.");
+            }
+            LOGGER.debugWithFormat("Uploading segment %d of datasource '%s' (%s)", index + 1, m_datasourceName,
+                FileUtils.byteCountToDisplaySize(size));
+            final String uploadSessionId =
+                m_restApi.invokeUploadFile(segment, m_datasourceName, new SegmentProgress(m_segmentWeight));
+            m_uploadedSegments.incrementAndGet();
+            m_uploadedBytes.addAndGet(size);
+            return uploadSessionId;
+        } finally {
+            deleteSegment(segment);
+            releaseDiskSpace(size);
+        }
+    }
+
+    private void publishSegment(final Future<String> upload, final int index) throws Exception {
+        if (m_failed) {
+            throw new IllegalStateException("Publishing skipped because a previous segment failed.");
+        }
+        try {
+            final String uploadSessionId = getResult(upload);
+            // The first segment creates the datasource, all others are appended
+            final boolean first = index == 0;
+            m_restApi.invokePublishDataSource(uploadSessionId, m_datasourceName, DATASOURCE_TYPE, m_projectId,
+                first && m_overwrite, !first || m_append, new SegmentProgress(0));
+        } catch (final Exception e) {
+            m_failed = true;
+            throw e;
+        }
+    }
+
+    /** Rethrows the failure of an already finished segment such that writing can stop early */
+    private void checkFailures() throws Exception {
+        for (final Future<?> future : m_pending) {
+            if (future.isDone()) {
+                getResult(future);
+            }
+        }
+    }
+
+    private static <T> T getResult(final Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void deleteSegment(final File segment) {
+        try {
+            Files.deleteIfExists(segment.toPath());
+        } catch (final IOException e) {
+            LOGGER.debug("Could not delete segment file " + segment.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Sub-progress of the upload progress for one segment. It is also canceled if the publisher is closed before all
+     * segments are published or a segment failed.
+     */
+    private final class SegmentProgress extends ExecutionMonitor {
+
+        SegmentProgress(final double weight) {
+            super(m_uploadProgress.createSubProgress(weight).getProgressMonitor());
+        }
+
+        @Override
+        public void checkCanceled() throws CanceledExecutionException {
+            if (m_failed) {
+                throw new CanceledExecutionException("Another segment failed or the upload was stopped.");
+            }
+            super.checkCanceled();
+        }
+    }
+}
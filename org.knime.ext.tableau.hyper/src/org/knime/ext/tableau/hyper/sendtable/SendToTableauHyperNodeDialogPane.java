@@ -57,12 +57,15 @@
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JPasswordField;
 import javax.swing.JRadioButton;
 import javax.swing.JSeparator;
+import javax.swing.JSpinner;
 import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
 
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.node.InvalidSettingsException;
@@ -98,6 +101,26 @@ final class SendToTableauHyperNodeDialogPane extends NodeDialogPane {
 
     private final JRadioButton m_overwritePolicyOverwriteButton;
 
+    private final JCheckBox m_segmentedUploadCheckBox;
+
+    private final JSpinner m_segmentSizeSpinner;
+
+    private final JSpinner m_parallelUploadsSpinner;
+
+    private final JSpinner m_diskWindowSpinner;
+
+    private final JSpinner m_chunkSizeSpinner;
+
+    private final JCheckBox m_adaptiveChunkSizeCheckBox;
+
+    private final JSpinner m_readerThreadsSpinner;
+
+    private final JSpinner m_maxRetriesSpinner;
+
+    private final JCheckBox m_skipUnchangedCheckBox;
+
+    private final JCheckBox m_publishAsJobCheckBox;
+
     private String m_projectId;
 
     private String m_projectName;
@@ -124,7 +147,26 @@ final class SendToTableauHyperNodeDialogPane extends NodeDialogPane {
         m_chooseProjectButton = new JButton("Browse...");
         m_chooseProjectButton.addActionListener(a -> chooseProject());
 
+        // Upload settings
+        m_segmentedUploadCheckBox = new JCheckBox("Upload while writing");
+        m_segmentSizeSpinner = new JSpinner(new SpinnerNumberModel(SendToTableauHyperSettings.DEFAULT_SEGMENT_SIZE, 1,
+            Integer.MAX_VALUE, SendToTableauHyperSettings.DEFAULT_SEGMENT_SIZE / 10));
+        m_parallelUploadsSpinner =
+            new JSpinner(new SpinnerNumberModel(1, 1, SendToTableauHyperSettings.MAX_PARALLEL_UPLOADS, 1));
+        m_diskWindowSpinner = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 256));
+        m_segmentedUploadCheckBox.addChangeListener(e -> updateUploadSettingsEnabled());
+        m_chunkSizeSpinner = new JSpinner(new SpinnerNumberModel(SendToTableauHyperSettings.DEFAULT_CHUNK_SIZE, 1,
+            SendToTableauHyperSettings.MAX_CHUNK_SIZE, SendToTableauHyperSettings.DEFAULT_CHUNK_SIZE));
+        m_adaptiveChunkSizeCheckBox = new JCheckBox("Increase chunk size while the throughput improves");
+        m_readerThreadsSpinner =
+            new JSpinner(new SpinnerNumberModel(1, 1, SendToTableauHyperSettings.MAX_READER_THREADS, 1));
+        m_maxRetriesSpinner = new JSpinner(new SpinnerNumberModel(SendToTableauHyperSettings.DEFAULT_MAX_RETRIES, 0,
+            SendToTableauHyperSettings.MAX_RETRIES, 1));
+        m_skipUnchangedCheckBox = new JCheckBox("Skip the upload if the input has not changed");
+        m_publishAsJobCheckBox = new JCheckBox("Publish asynchronously");
+
         addTab("Tableau Server Settings", initPanel());
+        addTab("Upload Settings", initUploadPanel());
     }
 
     private void chooseProject() {
@@ -234,6 +276,82 @@ private JPanel initPanel() {
         return p;
     }
 
+    private JPanel initUploadPanel() {
+        final JPanel p = new JPanel(new GridBagLayout());
+        final GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.gridx = gbc.gridy = 0;
+
+        gbc.gridwidth = 3;
+        gbc.anchor = GridBagConstraints.WEST;
+        p.add(m_segmentedUploadCheckBox, gbc);
+        gbc.gridy += 1;
+
+        p.add(new JLabel("Rows per segment "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_segmentSizeSpinner, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Parallel uploads "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_parallelUploadsSpinner, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Local disk limit (MB) "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_diskWindowSpinner, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Chunk size (KB) "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_chunkSizeSpinner, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 1;
+        p.add(m_adaptiveChunkSizeCheckBox, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Reader threads "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_readerThreadsSpinner, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Retries on network errors "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        p.add(m_maxRetriesSpinner, gbcComponent(gbc));
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        gbc.gridwidth = 3;
+        gbc.anchor = GridBagConstraints.WEST;
+        p.add(m_skipUnchangedCheckBox, gbc);
+        gbc.gridy += 1;
+
+        p.add(m_publishAsJobCheckBox, gbc);
+        gbc.gridy += 1;
+
+        // Fill the remaining space
+        gbc.gridx = 0;
+        gbc.weighty = 1;
+        p.add(new JPanel(), gbc);
+
+        updateUploadSettingsEnabled();
+        return p;
+    }
+
+    private void updateUploadSettingsEnabled() {
+        final boolean segmented = m_segmentedUploadCheckBox.isSelected();
+        m_segmentSizeSpinner.setEnabled(segmented);
+        m_parallelUploadsSpinner.setEnabled(segmented);
+        m_diskWindowSpinner.setEnabled(segmented);
+        m_skipUnchangedCheckBox.setEnabled(!segmented);
+    }
+
     private static GridBagConstraints gbcLabel(final GridBagConstraints gbc) {
         gbc.anchor = GridBagConstraints.EAST;
         gbc.fill = GridBagConstraints.NONE;
@@ -273,6 +391,18 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSp
                 m_overwritePolicyAbortButton.doClick();
                 break;
         }
+        final int segmentSize = s.getSegmentSize();
+        m_segmentedUploadCheckBox.setSelected(segmentSize > 0);
+        m_segmentSizeSpinner.setValue(segmentSize > 0 ? segmentSize : SendToTableauHyperSettings.DEFAULT_SEGMENT_SIZE);
+        m_parallelUploadsSpinner.setValue(s.getParallelUploads());
+        m_diskWindowSpinner.setValue(s.getDiskWindow());
+        m_chunkSizeSpinner.setValue(s.getChunkSize());
+        m_adaptiveChunkSizeCheckBox.setSelected(s.isAdaptiveChunkSize());
+        m_readerThreadsSpinner.setValue(s.getReaderThreads());
+        m_maxRetriesSpinner.setValue(s.getMaxRetries());
+        m_skipUnchangedCheckBox.setSelected(s.isSkipUnchanged());
+        m_publishAsJobCheckBox.setSelected(s.isPublishAsJob());
+        updateUploadSettingsEnabled();
     }
 
     @Override
@@ -294,6 +424,15 @@ protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSetti
         } else {
             s.setOverwrite(FileOverwritePolicy.ABORT);
         }
+        s.setSegmentSize(m_segmentedUploadCheckBox.isSelected() ? (Integer)m_segmentSizeSpinner.getValue() : 0);
+        s.setParallelUploads((Integer)m_parallelUploadsSpinner.getValue());
+        s.setDiskWindow((Integer)m_diskWindowSpinner.getValue());
+        s.setChunkSize((Integer)m_chunkSizeSpinner.getValue());
+        s.setAdaptiveChunkSize(m_adaptiveChunkSizeCheckBox.isSelected());
+        s.setReaderThreads((Integer)m_readerThreadsSpinner.getValue());
+        s.setMaxRetries((Integer)m_maxRetriesSpinner.getValue());
+        s.setSkipUnchanged(m_skipUnchangedCheckBox.isSelected());
+        s.setPublishAsJob(m_publishAsJobCheckBox.isSelected());
         s.saveSettings(settings);
     }
 }
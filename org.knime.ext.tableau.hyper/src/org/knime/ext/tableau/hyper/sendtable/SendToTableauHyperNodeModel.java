@@ -50,10 +50,15 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.commons.io.FileUtils;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -63,29 +68,66 @@
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.StreamableOperator;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.util.FileUtil;
+import org.knime.ext.tableau.ExtractCache;
+import org.knime.ext.tableau.ParallelRowIterator;
+import org.knime.ext.tableau.RowProgressReporter;
 import org.knime.ext.tableau.TableauExtract;
 import org.knime.ext.tableau.TableauExtractAPI;
 import org.knime.ext.tableau.TableauExtractOpener;
 import org.knime.ext.tableau.TableauPlugin;
 import org.knime.ext.tableau.TableauPlugin.TABLEAU_SDK;
+import org.knime.ext.tableau.TableFingerprint;
 import org.knime.ext.tableau.TableauTable;
 import org.knime.ext.tableau.hyper.TableauHyperExtractAPI;
 import org.knime.ext.tableau.hyper.TableauHyperExtractOpener;
 import org.knime.ext.tableau.hyper.sendtable.SendToTableauHyperSettings.FileOverwritePolicy;
 import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection;
 import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection.TsResponseException;
+import org.knime.ext.tableau.hyper.sendtable.api.UploadState;
+import org.knime.ext.tableau.inmemory.InMemoryExtractAPI;
+import org.knime.ext.tableau.inmemory.InMemoryExtractOpener;
 
 /** @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany */
 final class SendToTableauHyperNodeModel extends NodeModel {
 
     private static final String EXTRACT_TABLE_NAME = "Extract";
 
+    private static final String EXTRACT_EXTENSION = ".hyper";
+
+    /** Name of the file in the node internals which holds the key of the last published input */
+    private static final String PUBLISHED_KEY_FILE = "published.txt";
+
+    /**
+     * Number of rows added to the extract between two cancellation checks. Large enough for the Hyper tables to
+     * convert the next block of rows while the previous block is inserted.
+     */
+    private static final int WRITE_BATCH_SIZE = 65536;
+
+    /** Name of the flow variable which holds the chunk size of the upload */
+    private static final String FLOW_VARIABLE_CHUNK_SIZE = "tableau.uploadChunkSize";
+
     private static final NodeLogger LOG = NodeLogger.getLogger(SendToTableauHyperNodeModel.class);
 
     private SendToTableauHyperSettings m_settings;
 
+    /** The extract of an execution which failed during the upload, continued by the next execution */
+    private PendingUpload m_pendingUpload;
+
+    /**
+     * Identifies the input and the data source of the last successful upload. Cleared before every publish, such that
+     * it is only set if the data source was last written with this input.
+     */
+    private String m_publishedKey;
+
     SendToTableauHyperNodeModel() {
         super(1, 0);
     }
@@ -94,12 +136,18 @@ final class SendToTableauHyperNodeModel extends NodeModel {
     protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws InvalidSettingsException {
         CheckUtils.checkSettingNotNull(m_settings, "No configuration available");
 
-        if (TableauPlugin.getSelectedSDK() != TABLEAU_SDK.HYPER) {
+        if (TableauPlugin.getSelectedSDK() != TABLEAU_SDK.HYPER
+            && TableauPlugin.getSelectedSDK() != TABLEAU_SDK.IN_MEMORY) {
             throw new InvalidSettingsException("This nodes requires the '" + TABLEAU_SDK.HYPER
                 + "' backend, but the active backend is: '" + TableauPlugin.getSelectedSDK().toString() + "'"
                 + " The Tableau backend can be configured in the Tableau preference page.");
         }
 
+        if (TableauPlugin.getSelectedSDK() == TABLEAU_SDK.IN_MEMORY) {
+            setWarningMessage("The in-memory backend is active: The rows are only counted, nothing is sent to the "
+                + "server.");
+        }
+
         // NOTE: If overwrite/append/abort is valid will be checked during the execution because
         // it requires at least 2 REST calls
         return new DataTableSpec[]{};
@@ -108,19 +156,231 @@ protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws Invali
     @Override
     protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
         throws Exception {
-        // Write table to a temporary hyper file
         final BufferedDataTable table = inData[0];
-        final ExecutionMonitor writeProgress = exec.createSubProgress(0.5);
-        long rowIndex = 0L;
-        final long rowCount = table.size();
+        if (TableauPlugin.getSelectedSDK() == TABLEAU_SDK.IN_MEMORY) {
+            try (final TableRowSource rows = new TableRowSource(table, m_settings.getReaderThreads())) {
+                rows.setProgress(exec);
+                writeInMemory(table.getDataTableSpec(), rows);
+            }
+        } else if (m_settings.getSegmentSize() > 0) {
+            // Write and upload at the same time
+            try (final TableRowSource rows = new TableRowSource(table, m_settings.getReaderThreads())) {
+                rows.setProgress(exec.createSubProgress(0.5));
+                writeAndPublishSegments(table.getDataTableSpec(), rows, table.size(), exec,
+                    exec.createSubProgress(0.5));
+            }
+        } else {
+            // Write table to a hyper file (unless the last execution failed during the upload or it is cached)
+            final PendingUpload upload = writeOrResumeExtract(table, exec.createSubProgress(0.5));
+            if (upload == null) {
+                LOG.info("The last execution published the same input to the data source. Nothing to upload.");
+                return new BufferedDataTable[]{};
+            }
+
+            // Send the file to the tableau server. The file and the upload are kept if this fails
+            publish(upload.m_file, upload.m_state, exec.createSubProgress(0.5));
+            m_publishedKey = upload.m_fingerprint == null ? null : publishedKey(upload.m_fingerprint);
+            discardPendingUpload();
+        }
+
+        // Return an empty array
+        return new BufferedDataTable[]{};
+    }
+
+    @Override
+    public InputPortRole[] getInputPortRoles() {
+        // All rows go into one extract file: The input can be streamed but not distributed
+        return new InputPortRole[]{InputPortRole.NONDISTRIBUTED_STREAMABLE};
+    }
+
+    @Override
+    public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+        final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        return new StreamableOperator() {
+
+            @Override
+            public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+                throws Exception {
+                final RowInput input = (RowInput)inputs[0];
+                final StreamRowSource rows = new StreamRowSource(input, exec);
+                if (TableauPlugin.getSelectedSDK() == TABLEAU_SDK.IN_MEMORY) {
+                    writeInMemory(input.getDataTableSpec(), rows);
+                    input.close();
+                } else if (m_settings.getSegmentSize() > 0) {
+                    writeAndPublishSegments(input.getDataTableSpec(), rows, -1, exec, exec);
+                    input.close();
+                } else {
+                    // NOTE: A streamed input cannot be compared with the input of an earlier execution
+                    final File f = writeExtract(input.getDataTableSpec(), rows);
+                    input.close();
+                    try {
+                        publish(f, new UploadState(), exec);
+                    } finally {
+                        Files.deleteIfExists(f.toPath());
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes the table to a hyper file. If the previous execution wrote the same table with the same settings but
+     * failed to upload it, its file and upload state are reused instead. If the extract cache contains the extract of
+     * a table with the same fingerprint, the cached file is used.
+     *
+     * @return the extract to upload or <code>null</code> if the same input was already published by the last
+     *         execution and nothing must be uploaded
+     */
+    private PendingUpload writeOrResumeExtract(final BufferedDataTable table, final ExecutionMonitor exec)
+        throws Exception {
+        final String key = resumeKey(table);
+        if (m_pendingUpload != null && m_pendingUpload.m_key.equals(key) && m_pendingUpload.m_file.exists()) {
+            LOG.info("Continuing the upload of the extract written by the previous execution ("
+                + m_pendingUpload.m_state + ").");
+            exec.setProgress(1.0);
+            return m_pendingUpload;
+        }
+        discardPendingUpload();
+
+        final ExtractCache cache = ExtractCache.fromPreferences();
+        String fingerprint = null;
+        ExecutionMonitor writeProgress = exec;
+        if (cache.isEnabled() || m_settings.isSkipUnchanged()) {
+            exec.setMessage("Computing the fingerprint of the input");
+            fingerprint = TableFingerprint.of(table, exec.createSubProgress(0.2));
+            if (isPublished(fingerprint)) {
+                return null;
+            }
+            final File cached = cache.get(fingerprint, EXTRACT_EXTENSION);
+            if (cached != null) {
+                LOG.info("Uploading the cached extract of the unchanged input.");
+                exec.setProgress(1.0);
+                m_pendingUpload = new PendingUpload(key, cached, false, fingerprint);
+                return m_pendingUpload;
+            }
+            writeProgress = exec.createSubProgress(0.8);
+        }
+
+        final File written;
+        try (final TableRowSource rows = new TableRowSource(table, m_settings.getReaderThreads())) {
+            rows.setProgress(writeProgress);
+            written = writeExtract(table.getDataTableSpec(), rows);
+        }
+        final File cached = fingerprint == null ? null : cache.put(fingerprint, EXTRACT_EXTENSION, written);
+        m_pendingUpload = cached == null ? new PendingUpload(key, written, true, fingerprint)
+            : new PendingUpload(key, cached, false, fingerprint);
+        return m_pendingUpload;
+    }
+
+    /**
+     * @return if the last execution published an input with the given fingerprint to the configured data source and
+     *         the data source still exists. Never true if the data should be appended.
+     */
+    private boolean isPublished(final String fingerprint) throws TsResponseException {
+        if (!m_settings.isSkipUnchanged() || m_settings.getOverwrite() == FileOverwritePolicy.APPEND
+            || !publishedKey(fingerprint).equals(m_publishedKey)) {
+            return false;
+        }
+        try (final RestApiConnection restApi = connect()) {
+            return restApi.existsDatasource(m_settings.getDatasourceName(), m_settings.getProjectId());
+        }
+    }
+
+    /** @return a key which identifies the input with the given fingerprint and the data source it is published to */
+    private String publishedKey(final String fingerprint) {
+        return String.join("\n", fingerprint, m_settings.getHost(), m_settings.getSiteContentURL(),
+            m_settings.getProjectId(), m_settings.getDatasourceName());
+    }
+
+    /**
+     * @return a key which identifies the input table and the settings which influence the written extract and the
+     *         target of the upload
+     */
+    private String resumeKey(final BufferedDataTable table) {
+        return String.join("\n", m_settings.getHost(), m_settings.getSiteContentURL(), m_settings.getUsername(),
+            m_settings.getProjectId(), m_settings.getDatasourceName(), m_settings.getOverwrite().name(),
+            Integer.toString(table.getBufferedTableId()), Long.toString(table.size()),
+            Integer.toString(table.getDataTableSpec().hashCode()));
+    }
+
+    private void discardPendingUpload() {
+        // NOTE: A cached extract belongs to the cache
+        if (m_pendingUpload != null && m_pendingUpload.m_temporary) {
+            try {
+                Files.deleteIfExists(m_pendingUpload.m_file.toPath());
+            } catch (final IOException e) {
+                LOG.debug("Could not delete the extract " + m_pendingUpload.m_file.getAbsolutePath(), e);
+            }
+        }
+        m_pendingUpload = null;
+    }
+
+    /**
+     * Writes the rows with the in-memory backend and logs their number. Its files are no hyper extracts, so they are
+     * deleted and nothing is published.
+     */
+    private static void writeInMemory(final DataTableSpec spec, final RowSource rows) throws Exception {
+        final long rowCount = writeExtracts(spec, rows, Long.MAX_VALUE, f -> Files.deleteIfExists(f.toPath()));
+        LOG.info("In-memory backend: Wrote " + rowCount + " rows, nothing is published.");
+    }
+
+    /**
+     * Writes all rows to one temporary hyper file.
+     *
+     * @return the temporary hyper file
+     */
+    private static File writeExtract(final DataTableSpec spec, final RowSource rows) throws Exception {
+        final List<File> files = new ArrayList<>(1);
+        writeExtracts(spec, rows, Long.MAX_VALUE, files::add);
+        return files.get(0);
+    }
+
+    /**
+     * Writes the rows in segments of the configured size. Each finished segment is uploaded while the next segment is
+     * written. Each segment has the same share of the upload progress if the number of rows is known (not -1).
+     */
+    private void writeAndPublishSegments(final DataTableSpec spec, final RowSource rows, final long rowCount,
+        final ExecutionMonitor exec, final ExecutionMonitor uploadProgress) throws Exception {
+        // The data source no longer contains the last published input, even if publishing fails
+        m_publishedKey = null;
+        try (final RestApiConnection restApi = connect()) {
+            final boolean overwrite = m_settings.getOverwrite() == FileOverwritePolicy.OVERWRITE;
+            // NOTE: checkExists is only called if append is activated in the settings
+            final boolean append = m_settings.getOverwrite() == FileOverwritePolicy.APPEND && //
+                restApi.existsDatasource(m_settings.getDatasourceName(), m_settings.getProjectId());
+            try (final SegmentPublisher publisher = new SegmentPublisher(restApi, m_settings.getProjectId(),
+                m_settings.getDatasourceName(), overwrite, append, m_settings.getParallelUploads(),
+                m_settings.getDiskWindow() * FileUtils.ONE_MB, exec, uploadProgress, numSegments(rowCount))) {
+                writeExtracts(spec, rows, m_settings.getSegmentSize(), publisher::submit);
+                publisher.finish(exec);
+            }
+            reportUpload(restApi);
+        }
+    }
 
-        // Prepare the temporary file
-        final File f = FileUtil.createTempFile("tableau-", ".hyper");
-        Files.delete(f.toPath());
+    /** @return the number of segments written for the given number of rows or 0 if the number is unknown (-1) */
+    private long numSegments(final long rowCount) {
+        if (rowCount < 0) {
+            return 0;
+        }
+        // An empty input is published as one empty segment
+        final long segmentSize = m_settings.getSegmentSize();
+        return Math.max(1, (rowCount + segmentSize - 1) / segmentSize);
+    }
 
-        // Create the API Helpers
-        final TableauExtractAPI extractAPI = new TableauHyperExtractAPI();
-        final TableauExtractOpener extractOpener = new TableauHyperExtractOpener();
+    /**
+     * Writes the rows into temporary hyper files with one table each. A new file is started after
+     * <code>segmentSize</code> rows. Every finished file is passed to the consumer.
+     *
+     * @return the number of written rows
+     */
+    private static long writeExtracts(final DataTableSpec spec, final RowSource rows, final long segmentSize,
+        final SegmentConsumer consumer) throws Exception {
+        // Create the API Helpers. The in-memory backend only counts the rows: The files are temporary
+        final boolean inMemory = TableauPlugin.getSelectedSDK() == TABLEAU_SDK.IN_MEMORY;
+        final TableauExtractAPI extractAPI = inMemory ? new InMemoryExtractAPI() : new TableauHyperExtractAPI();
+        final TableauExtractOpener extractOpener = inMemory ? new InMemoryExtractOpener(false)
+            : new TableauHyperExtractOpener(TableauHyperExtractOpener.DEFAULT_BLOCK_SIZE);
 
         synchronized (TableauHyperExtractAPI.class) {
             try {
@@ -128,49 +388,96 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final Ex
             } catch (Throwable e) {
                 LOG.debug(e);
                 throw new InvalidSettingsException(
-                    "Unable to initialize Tableau backend '" + TABLEAU_SDK.HYPER.toString()
+                    "Unable to initialize Tableau backend '" + extractAPI.getSDKType().toString()
                         + "', please follow the installation instructions in the node description. Error:" + e);
             }
-            try (final TableauExtract tableauExtract = extractOpener.openExtract(f.getAbsolutePath())) {
-                final TableauTable tableWriter =
-                    tableauExtract.createTable(EXTRACT_TABLE_NAME, table.getDataTableSpec());
-                // Add rows to the table
-                for (final DataRow r : table) {
-                    tableWriter.addRow(r);
-                    writeProgress.setProgress((double)++rowIndex / rowCount,
-                        String.format("Row %d/%d (\"%s\")", rowIndex, rowCount, r.getKey().toString()));
-                    writeProgress.checkCanceled();
-                }
+            try {
+                boolean first = true;
+                long written;
+                long rowCount = 0;
+                do {
+                    // Prepare the temporary file
+                    final File f = FileUtil.createTempFile("tableau-", EXTRACT_EXTENSION);
+                    Files.delete(f.toPath());
+                    try (final TableauExtract tableauExtract = extractOpener.openExtract(f.getAbsolutePath())) {
+                        final TableauTable tableWriter = tableauExtract.createTable(EXTRACT_TABLE_NAME, spec);
+                        // Add rows to the table
+                        written = rows.writeTo(tableWriter, segmentSize);
+                        rowCount += written;
+                    } catch (final Exception e) {
+                        Files.deleteIfExists(f.toPath());
+                        throw e;
+                    } finally {
+                        if (inMemory) {
+                            InMemoryExtractOpener.discard(f.getAbsolutePath());
+                        }
+                    }
+                    if (written > 0 || first) {
+                        consumer.accept(f);
+                    } else {
+                        // The row count was a multiple of the segment size: Skip the empty last segment
+                        Files.delete(f.toPath());
+                    }
+                    first = false;
+                } while (written == segmentSize);
+                return rowCount;
             } finally {
                 extractAPI.cleanup();
             }
         }
+    }
 
-        // Send the file to the tableau server
-        final ExecutionMonitor sendProgress = exec.createSubProgress(0.5);
-
-        final RestApiConnection restApi = new RestApiConnection(m_settings.getHost());
-
-        // Sign in
-        signIn(restApi);
-        final boolean overwrite = m_settings.getOverwrite() == FileOverwritePolicy.OVERWRITE;
-        // NOTE: checkExists is only called if append is activated in the settings
-        final boolean append = m_settings.getOverwrite() == FileOverwritePolicy.APPEND && //
-            restApi.existsDatasource(m_settings.getDatasourceName(), m_settings.getProjectId());
-        restApi.invokePublishDataSourceChunked(m_settings.getProjectId(), m_settings.getDatasourceName(), "hyper", f,
-            overwrite, append, sendProgress);
+    /** Sends the hyper file to the tableau server. The upload continues the given state. */
+    private void publish(final File f, final UploadState state, final ExecutionMonitor sendProgress)
+        throws Exception {
+        // The data source no longer contains the last published input, even if publishing fails
+        m_publishedKey = null;
+        try (final RestApiConnection restApi = connect()) {
+            final boolean overwrite = m_settings.getOverwrite() == FileOverwritePolicy.OVERWRITE;
+            // NOTE: checkExists is only called if append is activated in the settings
+            final boolean append = m_settings.getOverwrite() == FileOverwritePolicy.APPEND && //
+                restApi.existsDatasource(m_settings.getDatasourceName(), m_settings.getProjectId());
+            restApi.invokePublishDataSourceChunked(m_settings.getProjectId(), m_settings.getDatasourceName(), "hyper",
+                f, overwrite, append, state, sendProgress);
+            reportUpload(restApi);
+        }
+    }
 
-        // Return an empty array
-        return new BufferedDataTable[]{};
+    /** Creates a connection to the configured server and signs in. */
+    private RestApiConnection connect() throws TsResponseException {
+        // One client for each parallel upload and one for publishing
+        final RestApiConnection restApi = new RestApiConnection(m_settings.getHost(),
+            RestApiConnection.DEFAULT_CONNECTION_TIMEOUT, RestApiConnection.DEFAULT_RECEIVE_TIMEOUT,
+            m_settings.getParallelUploads() + 1, RestApiConnection.DEFAULT_IDLE_TIMEOUT);
+        try {
+            restApi.setUploadChunkSize(m_settings.getChunkSize() * 1024, m_settings.isAdaptiveChunkSize());
+            restApi.setMaxRetries(m_settings.getMaxRetries());
+            restApi.setPublishAsJob(m_settings.isPublishAsJob());
+            restApi.signIn(m_settings.getUsername(), m_settings.getPassword(), m_settings.getSiteContentURL());
+        } catch (final TsResponseException | RuntimeException e) {
+            restApi.close();
+            throw e;
+        }
+        return restApi;
     }
 
-    private void signIn(final RestApiConnection restApi) throws TsResponseException {
-        restApi.invokeSignIn(m_settings.getUsername(), m_settings.getPassword(), m_settings.getSiteContentURL());
+    /** Makes the chunk size which was used for the upload visible in the log and as a flow variable. */
+    private void reportUpload(final RestApiConnection restApi) {
+        final int chunkSize = restApi.getUploadChunkSize();
+        LOG.info("Uploaded the data source with a chunk size of " + chunkSize + " bytes.");
+        LOG.debug("HTTP connections of the upload: " + restApi.getClientPoolStatistics());
+        pushFlowVariableInt(FLOW_VARIABLE_CHUNK_SIZE, chunkSize);
     }
 
     @Override
     protected void reset() {
-        // nothing to do
+        // NOTE: A failed node is reset as well: The pending upload is kept for the next execution. It is discarded if
+        // the input or the settings have changed by then
+    }
+
+    @Override
+    protected void onDispose() {
+        discardPendingUpload();
     }
 
     @Override
@@ -193,12 +500,126 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
     @Override
     protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
         throws IOException, CanceledExecutionException {
-        // nothing to do
+        // NOTE: Only an executed node has internals but it has no pending upload
+        final File publishedKeyFile = new File(nodeInternDir, PUBLISHED_KEY_FILE);
+        m_publishedKey = publishedKeyFile.isFile()
+            ? new String(Files.readAllBytes(publishedKeyFile.toPath()), StandardCharsets.UTF_8) : null;
     }
 
     @Override
     protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
         throws IOException, CanceledExecutionException {
-        // nothing to do
+        // NOTE: The internals of a failed node are not saved, so a pending upload is kept in memory only
+        if (m_publishedKey != null) {
+            Files.write(new File(nodeInternDir, PUBLISHED_KEY_FILE).toPath(),
+                m_publishedKey.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** A source of rows which are written to one or more extract tables. */
+    private interface RowSource {
+
+        /**
+         * Adds the next rows to the table.
+         *
+         * @param tableWriter the table to write to
+         * @param maxRows the maximum number of rows to add
+         * @return the number of rows added. Less than <code>maxRows</code> only if there are no more rows
+         */
+        long writeTo(TableauTable tableWriter, long maxRows) throws Exception;
+    }
+
+    /** A written extract and the progress of its upload. */
+    private static final class PendingUpload {
+
+        private final String m_key;
+
+        private final File m_file;
+
+        /** If the file must be deleted after the upload (false for a file of the extract cache) */
+        private final boolean m_temporary;
+
+        /** The fingerprint of the input or <code>null</code> if it was not computed */
+        private final String m_fingerprint;
+
+        private final UploadState m_state = new UploadState();
+
+        PendingUpload(final String key, final File file, final boolean temporary, final String fingerprint) {
+            m_key = key;
+            m_file = file;
+            m_temporary = temporary;
+            m_fingerprint = fingerprint;
+        }
+    }
+
+    /** Receives finished extract files. */
+    @FunctionalInterface
+    private interface SegmentConsumer {
+        void accept(File extractFile) throws Exception;
+    }
+
+    /** {@link RowSource} reading the rows of a table. */
+    private static final class TableRowSource implements RowSource, AutoCloseable {
+
+        private final CloseableRowIterator m_rows;
+
+        private final long m_rowCount;
+
+        private RowProgressReporter m_progress;
+
+        TableRowSource(final BufferedDataTable table, final int readerThreads) {
+            m_rows = ParallelRowIterator.iterator(table, readerThreads);
+            m_rowCount = table.size();
+        }
+
+        void setProgress(final ExecutionMonitor progress) {
+            m_progress = new RowProgressReporter(progress, m_rowCount);
+        }
+
+        @Override
+        public long writeTo(final TableauTable tableWriter, final long maxRows) throws Exception {
+            long written = 0L;
+            while (written < maxRows && m_rows.hasNext()) {
+                // The reader threads of a parallel iterator also convert the rows
+                final long added = ParallelRowIterator.addRows(m_rows, tableWriter,
+                    (int)Math.min(WRITE_BATCH_SIZE, maxRows - written));
+                written += added;
+                m_progress.rowsWritten(added);
+            }
+            return written;
+        }
+
+        @Override
+        public void close() {
+            if (m_rows instanceof ParallelRowIterator) {
+                LOG.info(((ParallelRowIterator)m_rows).getStatistics());
+            }
+            m_rows.close();
+        }
+    }
+
+    /** {@link RowSource} reading the rows of a streamed input. */
+    private static final class StreamRowSource implements RowSource {
+
+        private final RowInput m_input;
+
+        private final RowProgressReporter m_progress;
+
+        StreamRowSource(final RowInput input, final ExecutionMonitor exec) {
+            m_input = input;
+            m_progress = new RowProgressReporter(exec, -1);
+        }
+
+        @Override
+        public long writeTo(final TableauTable tableWriter, final long maxRows) throws Exception {
+            long written = 0L;
+            DataRow row;
+            while (written < maxRows && (row = m_input.poll()) != null) {
+                tableWriter.addRow(row);
+                written++;
+                m_progress.rowsWritten(1);
+            }
+            return written;
+        }
     }
 }
@@ -53,6 +53,7 @@
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.util.CheckUtils;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection;
 
 /**
  * @author wiswedel
@@ -78,6 +79,45 @@ final class SendToTableauHyperSettings {
 
     private static final String CFG_USERNAME = "username";
 
+    private static final String CFG_SEGMENT_SIZE = "segmentSize";
+
+    private static final String CFG_PARALLEL_UPLOADS = "parallelUploads";
+
+    /** Maximum number of segments which can be uploaded at the same time */
+    static final int MAX_PARALLEL_UPLOADS = 32;
+
+    private static final String CFG_DISK_WINDOW = "segmentDiskWindow";
+
+    private static final String CFG_CHUNK_SIZE = "uploadChunkSize";
+
+    private static final String CFG_ADAPTIVE_CHUNK_SIZE = "adaptiveUploadChunkSize";
+
+    /** Default size of one upload chunk in KB */
+    static final int DEFAULT_CHUNK_SIZE = 100;
+
+    /** Maximum size of one upload chunk in KB */
+    static final int MAX_CHUNK_SIZE = RestApiConnection.MAX_UPLOAD_CHUNK_SIZE / 1024;
+
+    private static final String CFG_READER_THREADS = "readerThreads";
+
+    /** Maximum number of threads which read the input table */
+    static final int MAX_READER_THREADS = 64;
+
+    /** Default number of rows per segment for the pipelined upload */
+    static final int DEFAULT_SEGMENT_SIZE = 1000000;
+
+    private static final String CFG_MAX_RETRIES = "maxRetries";
+
+    /** Default number of repetitions of a failed upload request */
+    static final int DEFAULT_MAX_RETRIES = RestApiConnection.DEFAULT_MAX_RETRIES;
+
+    /** Maximum number of repetitions of a failed upload request */
+    static final int MAX_RETRIES = 10;
+
+    private static final String CFG_SKIP_UNCHANGED = "skipUnchanged";
+
+    private static final String CFG_PUBLISH_AS_JOB = "publishAsJob";
+
     private String m_host;
 
     private String m_username;
@@ -94,6 +134,24 @@ final class SendToTableauHyperSettings {
 
     private FileOverwritePolicy m_overwrite;
 
+    private int m_segmentSize;
+
+    private int m_parallelUploads;
+
+    private int m_diskWindow;
+
+    private int m_chunkSize;
+
+    private boolean m_adaptiveChunkSize;
+
+    private int m_readerThreads;
+
+    private int m_maxRetries;
+
+    private boolean m_skipUnchanged;
+
+    private boolean m_publishAsJob;
+
     /**
      * Policy how to proceed when output file exists (overwrite, abort, append).
      */
@@ -170,6 +228,107 @@ void setOverwrite(final FileOverwritePolicy overwrite) {
         m_overwrite = overwrite;
     }
 
+    /**
+     * @return the number of rows per uploaded segment or 0 if the extract is written completely before the upload
+     */
+    int getSegmentSize() {
+        return m_segmentSize;
+    }
+
+    void setSegmentSize(final int segmentSize) {
+        m_segmentSize = segmentSize;
+    }
+
+    /**
+     * @return the maximum number of segments which are uploaded at the same time
+     */
+    int getParallelUploads() {
+        return m_parallelUploads;
+    }
+
+    void setParallelUploads(final int parallelUploads) {
+        m_parallelUploads = parallelUploads;
+    }
+
+    /**
+     * @return the maximum size in MB of the finished segments which wait on the local disk for their upload or 0 if
+     *         the size is not limited
+     */
+    int getDiskWindow() {
+        return m_diskWindow;
+    }
+
+    void setDiskWindow(final int diskWindow) {
+        m_diskWindow = diskWindow;
+    }
+
+    /**
+     * @return the size of one upload chunk in KB (the initial size if the chunk size is adaptive)
+     */
+    int getChunkSize() {
+        return m_chunkSize;
+    }
+
+    void setChunkSize(final int chunkSize) {
+        m_chunkSize = chunkSize;
+    }
+
+    /**
+     * @return if the upload chunk size should be adapted to the throughput of the connection
+     */
+    boolean isAdaptiveChunkSize() {
+        return m_adaptiveChunkSize;
+    }
+
+    void setAdaptiveChunkSize(final boolean adaptiveChunkSize) {
+        m_adaptiveChunkSize = adaptiveChunkSize;
+    }
+
+    /**
+     * @return the number of threads which read the input table
+     */
+    int getReaderThreads() {
+        return m_readerThreads;
+    }
+
+    void setReaderThreads(final int readerThreads) {
+        m_readerThreads = readerThreads;
+    }
+
+    /**
+     * @return how often a request of the upload is repeated after a transient failure
+     */
+    int getMaxRetries() {
+        return m_maxRetries;
+    }
+
+    void setMaxRetries(final int maxRetries) {
+        m_maxRetries = maxRetries;
+    }
+
+    /**
+     * @return if nothing should be uploaded if the same input was published to the same data source by the last
+     *         execution
+     */
+    boolean isSkipUnchanged() {
+        return m_skipUnchanged;
+    }
+
+    void setSkipUnchanged(final boolean skipUnchanged) {
+        m_skipUnchanged = skipUnchanged;
+    }
+
+    /**
+     * @return if the server should process the uploaded file asynchronously in a job which is polled
+     */
+    boolean isPublishAsJob() {
+        return m_publishAsJob;
+    }
+
+    void setPublishAsJob(final boolean publishAsJob) {
+        m_publishAsJob = publishAsJob;
+    }
+
     void saveSettings(final NodeSettingsWO settings) {
         settings.addString(CFG_HOST, m_host);
         settings.addString(CFG_USERNAME, m_username);
@@ -180,6 +339,15 @@ void saveSettings(final NodeSettingsWO settings) {
         settings.addString(CFG_PROJECT_NAME, m_projectName);
         settings.addString(CFG_DATASOURCE_NAME, m_datasourceName);
         settings.addString(CFG_OVERWRITE, m_overwrite.toString());
+        settings.addInt(CFG_SEGMENT_SIZE, m_segmentSize);
+        settings.addInt(CFG_PARALLEL_UPLOADS, m_parallelUploads);
+        settings.addInt(CFG_DISK_WINDOW, m_diskWindow);
+        settings.addInt(CFG_CHUNK_SIZE, m_chunkSize);
+        settings.addBoolean(CFG_ADAPTIVE_CHUNK_SIZE, m_adaptiveChunkSize);
+        settings.addInt(CFG_READER_THREADS, m_readerThreads);
+        settings.addInt(CFG_MAX_RETRIES, m_maxRetries);
+        settings.addBoolean(CFG_SKIP_UNCHANGED, m_skipUnchanged);
+        settings.addBoolean(CFG_PUBLISH_AS_JOB, m_publishAsJob);
     }
 
     SendToTableauHyperSettings loadSettingsInDialog(final NodeSettingsRO settings) {
@@ -193,6 +361,15 @@ SendToTableauHyperSettings loadSettingsInDialog(final NodeSettingsRO settings) {
         m_datasourceName = settings.getString(CFG_DATASOURCE_NAME, "");
         m_overwrite =
             FileOverwritePolicy.valueOf(settings.getString(CFG_OVERWRITE, FileOverwritePolicy.ABORT.toString()));
+        m_segmentSize = settings.getInt(CFG_SEGMENT_SIZE, 0);
+        m_parallelUploads = settings.getInt(CFG_PARALLEL_UPLOADS, 1);
+        m_diskWindow = settings.getInt(CFG_DISK_WINDOW, 0);
+        m_chunkSize = settings.getInt(CFG_CHUNK_SIZE, DEFAULT_CHUNK_SIZE);
+        m_adaptiveChunkSize = settings.getBoolean(CFG_ADAPTIVE_CHUNK_SIZE, false);
+        m_readerThreads = settings.getInt(CFG_READER_THREADS, 1);
+        m_maxRetries = settings.getInt(CFG_MAX_RETRIES, DEFAULT_MAX_RETRIES);
+        m_skipUnchanged = settings.getBoolean(CFG_SKIP_UNCHANGED, false);
+        m_publishAsJob = settings.getBoolean(CFG_PUBLISH_AS_JOB, false);
         return this;
     }
 
@@ -218,6 +395,37 @@ SendToTableauHyperSettings loadSettingsInModel(final NodeSettingsRO settings) th
         CheckUtils.checkSetting(StringUtils.isNotEmpty(m_datasourceName), "Data source name must not be empty");
 
         m_overwrite = FileOverwritePolicy.valueOf(settings.getString(CFG_OVERWRITE));
+
+        // since v3.8: Default is to write the whole extract before uploading
+        m_segmentSize = settings.getInt(CFG_SEGMENT_SIZE, 0);
+        CheckUtils.checkSetting(m_segmentSize >= 0, "Rows per segment must not be negative");
+        // A failed segment would leave a truncated data source while the old data is already gone
+        CheckUtils.checkSetting(m_segmentSize == 0 || m_overwrite != FileOverwritePolicy.OVERWRITE,
+            "\"Upload while writing\" cannot be combined with overwriting the data source. Publishing the segments "
+                + "is not atomic.");
+        m_parallelUploads = settings.getInt(CFG_PARALLEL_UPLOADS, 1);
+        CheckUtils.checkSetting(m_parallelUploads >= 1 && m_parallelUploads <= MAX_PARALLEL_UPLOADS,
+            "Parallel uploads must be between 1 and %d", MAX_PARALLEL_UPLOADS);
+        // since v3.8: Default is to not limit the size of the segments waiting for their upload
+        m_diskWindow = settings.getInt(CFG_DISK_WINDOW, 0);
+        CheckUtils.checkSetting(m_diskWindow >= 0, "The local disk limit must not be negative");
+        // since v3.8: Default is the fixed chunk size of earlier versions
+        m_chunkSize = settings.getInt(CFG_CHUNK_SIZE, DEFAULT_CHUNK_SIZE);
+        CheckUtils.checkSetting(m_chunkSize >= 1 && m_chunkSize <= MAX_CHUNK_SIZE,
+            "The chunk size must be between 1 and %d KB", MAX_CHUNK_SIZE);
+        m_adaptiveChunkSize = settings.getBoolean(CFG_ADAPTIVE_CHUNK_SIZE, false);
+        // since v3.8: Default is to read the input table in the writing thread
+        m_readerThreads = settings.getInt(CFG_READER_THREADS, 1);
+        CheckUtils.checkSetting(m_readerThreads >= 1 && m_readerThreads <= MAX_READER_THREADS,
+            "Reader threads must be between 1 and %d", MAX_READER_THREADS);
+        // since v3.8: Default is to retry transient failures of the upload
+        m_maxRetries = settings.getInt(CFG_MAX_RETRIES, DEFAULT_MAX_RETRIES);
+        CheckUtils.checkSetting(m_maxRetries >= 0 && m_maxRetries <= MAX_RETRIES,
+            "Retries must be between 0 and %d", MAX_RETRIES);
+        // since v3.8: Default is to upload on every execution
+        m_skipUnchanged = settings.getBoolean(CFG_SKIP_UNCHANGED, false);
+        // since v3.8: Default is to wait for the publish request like earlier versions
+        m_publishAsJob = settings.getBoolean(CFG_PUBLISH_AS_JOB, false);
         return this;
     }
 }
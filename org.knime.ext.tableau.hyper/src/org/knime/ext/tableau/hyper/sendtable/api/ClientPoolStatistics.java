@@ -0,0 +1,106 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of the HTTP clients of a {@link RestApiConnection}. The values are a snapshot at the time the statistics
+ * were requested.
+ */
+public final class ClientPoolStatistics {
+
+    private final long m_created;
+
+    private final long m_reused;
+
+    private final long m_evicted;
+
+    private final long m_firstRequestNanos;
+
+    ClientPoolStatistics(final long created, final long reused, final long evicted, final long firstRequestNanos) {
+        m_created = created;
+        m_reused = reused;
+        m_evicted = evicted;
+        m_firstRequestNanos = firstRequestNanos;
+    }
+
+    /**
+     * @return the number of clients which were created, i.e. requests which had to set up a new client
+     */
+    public long getCreated() {
+        return m_created;
+    }
+
+    /**
+     * @return the number of requests which reused an existing client
+     */
+    public long getReused() {
+        return m_reused;
+    }
+
+    /**
+     * @return the number of clients which were closed because they were idle for too long
+     */
+    public long getEvicted() {
+        return m_evicted;
+    }
+
+    /**
+     * @return the total time of the first requests of the created clients in milliseconds. This includes the time
+     *         to establish the connection and the TLS handshake.
+     */
+    public long getFirstRequestMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(m_firstRequestNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("clients created: %d, reused: %d, evicted: %d, time of first requests: %d ms", m_created,
+            m_reused, m_evicted, getFirstRequestMillis());
+    }
+}
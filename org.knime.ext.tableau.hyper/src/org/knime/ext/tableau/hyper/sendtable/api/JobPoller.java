@@ -0,0 +1,203 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable.api;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection.TsResponseException;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.JobType;
+
+/**
+ * Waits for an asynchronous job on the server (e.g. an extract refresh). The job is queried with a growing interval:
+ * Short jobs are noticed quickly, long jobs cause few requests.
+ */
+public final class JobPoller {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(JobPoller.class);
+
+    /** Finish code of a successful job */
+    public static final int FINISH_CODE_SUCCESS = 0;
+
+    /** Finish code of a failed job */
+    public static final int FINISH_CODE_FAILED = 1;
+
+    /** Finish code of a job which was cancelled on the server */
+    public static final int FINISH_CODE_CANCELLED = 2;
+
+    /** Time in milliseconds between the first two queries */
+    private static final long INITIAL_INTERVAL = 500;
+
+    private static final long MAX_INTERVAL = 30000;
+
+    private static final double BACKOFF_FACTOR = 1.5;
+
+    /** Time in milliseconds after which cancellation is checked while waiting */
+    private static final long CANCEL_CHECK_INTERVAL = 200;
+
+    private final RestApiConnection m_restApi;
+
+    private int m_queryCount = 0;
+
+    /**
+     * @param restApi a signed in connection to the server of the job
+     */
+    public JobPoller(final RestApiConnection restApi) {
+        m_restApi = restApi;
+    }
+
+    /**
+     * Queries the job until it is completed. The progress of the job is reported to the monitor.
+     *
+     * @param jobId the identifier of the job
+     * @param timeout the maximum time to wait in milliseconds, 0 to wait until the job is completed
+     * @param exec the monitor to report the progress and check for cancellation
+     * @return the completed job
+     * @throws TsResponseException if the server responds with an non successful response code
+     * @throws CanceledExecutionException if the execution was canceled (the job keeps running on the server)
+     * @throws TimeoutException if the job is not completed within the timeout (the job keeps running on the server)
+     */
+    public JobType waitFor(final String jobId, final long timeout, final ExecutionMonitor exec)
+        throws TsResponseException, CanceledExecutionException, TimeoutException {
+        final long start = System.nanoTime();
+        long interval = INITIAL_INTERVAL;
+        while (true) {
+            final JobType job = m_restApi.invokeQueryJob(jobId);
+            m_queryCount++;
+            if (isCompleted(job)) {
+                LOGGER.debugWithFormat("Job %s completed after %d status queries", jobId, m_queryCount);
+                return job;
+            }
+            final BigInteger progress = job.getProgress();
+            final String state = job.getStartedAt() == null ? "queued" : "running";
+            if (progress != null) {
+                exec.setProgress(progress.intValue() / 100.0, "Job " + jobId + " is " + state);
+            } else {
+                exec.setMessage("Job " + jobId + " is " + state);
+            }
+
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (timeout > 0 && elapsed >= timeout) {
+                throw new TimeoutException("The job " + jobId + " did not complete within " + timeout / 1000
+                    + " seconds. It keeps running on the server.");
+            }
+            sleep(timeout > 0 ? Math.min(interval, timeout - elapsed) : interval, exec);
+            interval = Math.min(MAX_INTERVAL, (long)(interval * BACKOFF_FACTOR));
+        }
+    }
+
+    /**
+     * @return the number of status queries sent by this poller
+     */
+    public int getQueryCount() {
+        return m_queryCount;
+    }
+
+    /**
+     * @param job a job
+     * @return if the job is completed (successfully or not). The finish code is only meaningful afterwards
+     */
+    public static boolean isCompleted(final JobType job) {
+        return job.getCompletedAt() != null;
+    }
+
+    /**
+     * @param job a completed job
+     * @return if the job completed successfully
+     */
+    public static boolean isSuccessful(final JobType job) {
+        return job.getFinishCode() != null && job.getFinishCode().intValue() == FINISH_CODE_SUCCESS;
+    }
+
+    /**
+     * @param job a completed job
+     * @return a description of the result of the job including the status notes of the server
+     */
+    public static String describeResult(final JobType job) {
+        final int finishCode = job.getFinishCode() == null ? -1 : job.getFinishCode().intValue();
+        final String result;
+        switch (finishCode) {
+            case FINISH_CODE_SUCCESS:
+                result = "Success";
+                break;
+            case FINISH_CODE_FAILED:
+                result = "Failed";
+                break;
+            case FINISH_CODE_CANCELLED:
+                result = "Cancelled";
+                break;
+            default:
+                result = "Unknown (finish code " + finishCode + ")";
+        }
+        if (job.getStatusNotes() == null || job.getStatusNotes().getStatusNote().isEmpty()) {
+            return result;
+        }
+        return result + ": " + job.getStatusNotes().getStatusNote().stream() //
+            .map(n -> n.getText() != null ? n.getText() : n.getValue()) //
+            .collect(Collectors.joining("; "));
+    }
+
+    private static void sleep(final long millis, final ExecutionMonitor exec) throws CanceledExecutionException {
+        final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while ((remaining = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime())) > 0) {
+            exec.checkCanceled();
+            try {
+                Thread.sleep(Math.min(remaining, CANCEL_CHECK_INTERVAL));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CanceledExecutionException("Interrupted while waiting for the job.");
+            }
+        }
+        exec.checkCanceled();
+    }
+}
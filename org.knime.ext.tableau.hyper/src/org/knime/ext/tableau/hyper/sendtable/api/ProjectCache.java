@@ -0,0 +1,126 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable.api;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.ext.tableau.hyper.sendtable.api.binding.ProjectListType;
+
+/**
+ * A process-wide cache of the projects of Tableau Server sites, such that the project chooser opens instantly when it
+ * is opened again. The projects are identified like the sessions of the {@link SessionCache}: By the server, the site
+ * and the credentials (the visible projects depend on the permissions of the user). Cached projects expire after a
+ * few minutes because other users can add or remove projects.
+ */
+final class ProjectCache {
+
+    private static final int MAX_ENTRIES = 16;
+
+    /** Projects are reloaded after 5 minutes */
+    private static final long TIME_TO_LIVE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private static final ProjectCache INSTANCE = new ProjectCache();
+
+    /** The projects in access order */
+    private final Map<SessionCache.Key, Entry> m_entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private ProjectCache() {
+    }
+
+    /**
+     * @return the cache of this process
+     */
+    static ProjectCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param key the server, site and credentials
+     * @return the cached projects or <code>null</code> if there are no projects which are younger than the TTL. The
+     *         list must not be modified.
+     */
+    synchronized ProjectListType get(final SessionCache.Key key) {
+        final Entry entry = m_entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.m_created > TIME_TO_LIVE_NANOS) {
+            m_entries.remove(key);
+            return null;
+        }
+        return entry.m_projects;
+    }
+
+    /**
+     * Adds the projects of a site to the cache. The least recently used entries are removed if the cache is full.
+     *
+     * @param key the server, site and credentials
+     * @param projects all projects of the site. The list must not be modified afterwards.
+     */
+    synchronized void put(final SessionCache.Key key, final ProjectListType projects) {
+        m_entries.put(key, new Entry(projects));
+        final Iterator<Entry> eldest = m_entries.values().iterator();
+        while (m_entries.size() > MAX_ENTRIES) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private static final class Entry {
+
+        private final ProjectListType m_projects;
+
+        private final long m_created = System.nanoTime();
+
+        Entry(final ProjectListType projects) {
+            m_projects = projects;
+        }
+    }
+}
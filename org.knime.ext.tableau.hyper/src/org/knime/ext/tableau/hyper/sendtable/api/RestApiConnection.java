@@ -48,39 +48,70 @@
  *   Oct 18, 2018 (Benjamin Wilhelm): created
  */
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.NoRouteToHostException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.Response.Status.Family;
 import javax.ws.rs.core.Response.StatusType;
 import javax.ws.rs.core.UriBuilder;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.AttachmentBuilder;
 import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
 import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
-import org.apache.cxf.transport.http.HTTPConduit;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.DataSourceListType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.DataSourceType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.ErrorType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.FileUploadType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.JobType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.ObjectFactory;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.PaginationType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.ProjectListType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.ProjectType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.SiteType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.TableauCredentialsType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.TaskExtractRefreshType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.TaskListType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.TaskType;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.TsRequest;
 import org.knime.ext.tableau.hyper.sendtable.api.binding.TsResponse;
 
@@ -97,26 +128,57 @@
  *      - RestApiUtils.java</a>
  * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
  */
-public final class RestApiConnection {
+public final class RestApiConnection implements AutoCloseable {
 
     /** 30 seconds */
-    private static final long DEFAULT_CONNECTION_TIMEOUT = 30000;
+    public static final long DEFAULT_CONNECTION_TIMEOUT = 30000;
 
     /** 60 seconds */
-    private static final long DEFAULT_RECEIVE_TIMEOUT = 60000;
+    public static final long DEFAULT_RECEIVE_TIMEOUT = 60000;
+
+    /** Default number of HTTP clients which can be used at the same time */
+    private static final int DEFAULT_MAX_CLIENTS = 4;
+
+    /** 60 seconds */
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
 
     /** Default page size for query datasources */
     private static final long DATASOURCES_PAGE_SIZE = 200;
 
+    /** Page size for query projects (the maximum accepted by the server) */
+    private static final int PROJECTS_PAGE_SIZE = 1000;
+
     /** 100KB per chunk (as in the example) */
-    private static final int UPLOAD_CHUNK_SIZE = 100000;
+    private static final int DEFAULT_UPLOAD_CHUNK_SIZE = 100000;
+
+    /** The maximum size of one upload chunk accepted by the server in bytes */
+    public static final int MAX_UPLOAD_CHUNK_SIZE = UploadChunkSizer.MAX_CHUNK_SIZE;
+
+    /** Default number of times a request of an upload is repeated after a transient failure */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    /** Time in milliseconds before the first repetition of a failed request. Doubled for each further repetition */
+    private static final long INITIAL_RETRY_DELAY = 1000;
+
+    private static final long MAX_RETRY_DELAY = 30000;
 
     private static final String API_VERSION = "2.8";
 
+    /** Characters which separate the expressions of a filter and the parts of an expression */
+    private static final String FILTER_SEPARATORS = ":,";
+
+    /** Error codes of a bad request with an invalid filter field or operator */
+    private static final List<BigInteger> FILTER_ERROR_CODES =
+        Arrays.asList(BigInteger.valueOf(400065), BigInteger.valueOf(400066));
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(RestApiConnection.class);
+
     private static final ObjectFactory OBJECT_FACTORY = new ObjectFactory();
 
     private static final String SIGN_IN = "auth/signin";
 
+    private static final String SIGN_OUT = "auth/signout";
+
     private static final String TABLEAU_AUTH_HEADER = "X-Tableau-Auth";
 
     private static final String QUERY_PROJECTS = "sites/{siteId}/projects";
@@ -129,27 +191,58 @@ public final class RestApiConnection {
 
     private static final String APPEND_FILE_UPLOAD = "sites/{siteId}/fileUploads/{uploadSessionId}";
 
+    private static final String REFRESH_DATA_SOURCE = "sites/{siteId}/datasources/{datasourceId}/refresh";
+
+    private static final String QUERY_EXTRACT_REFRESH_TASKS = "sites/{siteId}/tasks/extractRefreshes";
+
+    private static final String RUN_EXTRACT_REFRESH_TASK = "sites/{siteId}/tasks/extractRefreshes/{taskId}/runNow";
+
+    private static final String QUERY_JOB = "sites/{siteId}/jobs/{jobId}";
+
     private final String m_url;
 
     private final long m_connectionTimeout;
 
     private final long m_receiveTimeout;
 
+    private final WebClientPool m_clientPool;
+
+    private final int m_maxClients;
+
     private boolean m_signedIn = false;
 
-    private String m_token;
+    private volatile String m_token;
 
     private String m_siteId;
 
+    /** The key of the cached session or <code>null</code> if the session is not cached */
+    private SessionCache.Key m_sessionKey;
+
+    private String m_username;
+
+    private String m_password;
+
+    private String m_contentUrl;
+
+    /** The chunk size for the next upload: Either the configured one or the one learned by the last upload */
+    private int m_chunkSize = DEFAULT_UPLOAD_CHUNK_SIZE;
+
+    private boolean m_adaptiveChunkSize = false;
+
+    /** Set to false if the server rejects filtered queries */
+    private volatile boolean m_filterSupported = true;
+
+    private volatile int m_maxRetries = DEFAULT_MAX_RETRIES;
+
+    private volatile boolean m_publishAsJob = false;
+
     /**
      * Creates a new connection to the tableau server with the given url.
      *
      * @param url the url to the server
      */
     public RestApiConnection(final String url) {
-        m_url = url;
-        m_connectionTimeout = DEFAULT_CONNECTION_TIMEOUT;
-        m_receiveTimeout = DEFAULT_RECEIVE_TIMEOUT;
+        this(url, DEFAULT_CONNECTION_TIMEOUT, DEFAULT_RECEIVE_TIMEOUT);
     }
 
     /**
@@ -160,9 +253,88 @@ public RestApiConnection(final String url) {
      * @param receiveTimeout timeout for receiving responses in milliseconds
      */
     public RestApiConnection(final String url, final long connectionTimeout, final long receiveTimeout) {
+        this(url, connectionTimeout, receiveTimeout, DEFAULT_MAX_CLIENTS, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Creates a new connection to the tableau server with the given url. The HTTP clients of the connection are
+     * pooled: Each client keeps its connection to the server open and is reused for later requests.
+     *
+     * @param url the url to the server
+     * @param connectionTimeout timeout for establishing the connection in milliseconds
+     * @param receiveTimeout timeout for receiving responses in milliseconds
+     * @param maxClients the maximum number of requests which are executed at the same time
+     * @param idleTimeout the time in milliseconds after which an unused client is closed
+     */
+    public RestApiConnection(final String url, final long connectionTimeout, final long receiveTimeout,
+        final int maxClients, final long idleTimeout) {
+        if (maxClients < 1) {
+            throw new IllegalArgumentException("At least one client is required.");
+        }
         m_url = url;
         m_connectionTimeout = connectionTimeout;
         m_receiveTimeout = receiveTimeout;
+        m_clientPool = new WebClientPool(url, connectionTimeout, receiveTimeout, maxClients, idleTimeout);
+        m_maxClients = maxClients;
+    }
+
+    /**
+     * Configures the number of bytes which are sent with one request when uploading a file. If the chunk size is
+     * adaptive it is increased during the upload as long as the throughput improves. Each upload adapts its own chunk
+     * size, such that uploads which run in parallel do not disturb each other's measurements. The learned size is kept
+     * for further uploads with this connection.
+     *
+     * @param chunkSize the (initial) chunk size in bytes
+     * @param adaptive if the chunk size should be adapted to the measured throughput
+     */
+    public void setUploadChunkSize(final int chunkSize, final boolean adaptive) {
+        if (chunkSize < 1 || chunkSize > MAX_UPLOAD_CHUNK_SIZE) {
+            throw new IllegalArgumentException(
+                "The upload chunk size must be between 1 and " + MAX_UPLOAD_CHUNK_SIZE + " bytes.");
+        }
+        synchronized (this) {
+            m_chunkSize = chunkSize;
+            m_adaptiveChunkSize = adaptive;
+        }
+    }
+
+    /**
+     * @return the number of bytes which are sent with one request when uploading a file. For an adaptive chunk size
+     *         this is the size chosen for the connection so far.
+     */
+    public synchronized int getUploadChunkSize() {
+        return m_chunkSize;
+    }
+
+    /**
+     * Configures how often a request of a file upload is repeated if it fails with a transient error (see
+     * {@link TsResponseException#isTransient()}). The delay between the repetitions grows exponentially. Publishing
+     * is not repeated because it is not idempotent when appending.
+     *
+     * A chunk is only sent again if the request provably did not reach the server (the connection could not be
+     * established or the server answered 429 or 503). After any other transient failure the chunk could have been
+     * appended already: The file is then uploaded again from the start in a new upload session, which also counts as
+     * a repetition.
+     *
+     * @param maxRetries the maximum number of repetitions of one request, 0 to fail on the first error
+     */
+    public void setMaxRetries(final int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("The number of retries must not be negative.");
+        }
+        m_maxRetries = maxRetries;
+    }
+
+    /**
+     * Configures if datasources are published asynchronously. The server then answers the publish request right
+     * away with a job, which is polled until the server has processed the file. Otherwise the publish request blocks
+     * until the server has processed the file, which can exceed the receive timeout for large datasources. Servers
+     * which do not support asynchronous publishing answer synchronously.
+     *
+     * @param publishAsJob if datasources should be published asynchronously
+     */
+    public void setPublishAsJob(final boolean publishAsJob) {
+        m_publishAsJob = publishAsJob;
     }
 
     /**
@@ -189,8 +361,9 @@ public synchronized void invokeSignIn(final String username, final String passwo
         final TsRequest payload = OBJECT_FACTORY.createTsRequest();
         payload.setCredentials(credentialsSignIn);
 
-        // Execute the post
-        final TsResponse response = post(url, payload);
+        // Execute the post (without the token of an earlier sign in)
+        final TsResponse response =
+            executeWithToken(url, null, client -> client.post(payload), RestApiConnection::checkResponse);
         final TableauCredentialsType credentials = response.getCredentials();
         m_token = credentials.getToken();
         m_siteId = credentials.getSite().getId();
@@ -198,16 +371,152 @@ public synchronized void invokeSignIn(final String username, final String passwo
     }
 
     /**
-     * Queries the project of the connected tableau site.
+     * Signs in with the given username and password. A session of an earlier sign in to the same server and site
+     * with the same credentials is reused from the {@link SessionCache}. If the server rejects the token of the
+     * session, the connection signs in again and repeats the request.
+     *
+     * @param username the tableau server username
+     * @param password the tableau server password
+     * @param contentUrl url of the site to sign in
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public synchronized void signIn(final String username, final String password, final String contentUrl)
+        throws TsResponseException {
+        m_username = username;
+        m_password = password;
+        m_contentUrl = contentUrl;
+        m_sessionKey = new SessionCache.Key(m_url, contentUrl, username, password);
+        final SessionCache.Session session = SessionCache.getInstance().get(m_sessionKey);
+        if (session != null) {
+            m_token = session.getToken();
+            m_siteId = session.getSiteId();
+            m_signedIn = true;
+        } else {
+            invokeSignIn(username, password, contentUrl);
+            SessionCache.getInstance().put(m_sessionKey, new SessionCache.Session(m_url, m_token, m_siteId));
+        }
+    }
+
+    /**
+     * Signs in again if the expired token is still the current token. Another request or another connection with the
+     * same credentials could have renewed the session already: Its session is used instead.
+     */
+    private synchronized void renewSession(final String expiredToken) throws TsResponseException {
+        if (!expiredToken.equals(m_token)) {
+            return;
+        }
+        // NOTE: Signing in again would sign out the session of the other connection when it is replaced in the cache
+        final SessionCache.Session cached = SessionCache.getInstance().get(m_sessionKey);
+        if (cached != null && !cached.getToken().equals(expiredToken)) {
+            LOGGER.debug("The server rejected the session token. Using the session renewed by another connection.");
+            m_token = cached.getToken();
+            m_siteId = cached.getSiteId();
+            return;
+        }
+        LOGGER.debug("The server rejected the session token. Signing in again.");
+        SessionCache.getInstance().invalidate(m_sessionKey, expiredToken);
+        invokeSignIn(m_username, m_password, m_contentUrl);
+        SessionCache.getInstance().put(m_sessionKey, new SessionCache.Session(m_url, m_token, m_siteId));
+    }
+
+    /**
+     * Signs out the given session.
+     *
+     * @param session a session on the server of this connection
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    void invokeSignOut(final SessionCache.Session session) throws TsResponseException {
+        final String url = getUriBuilder().path(SIGN_OUT).build().toString();
+        executeWithToken(url, session.getToken(), client -> client.post(null), response -> {
+            checkStatus(response);
+            return null;
+        });
+    }
+
+    /**
+     * Queries all projects of the connected tableau site. The first page tells how many projects there are, the
+     * remaining pages are queried concurrently with the clients of this connection.
      *
      * @return the list of projects
      * @throws TsResponseException if the server responds with an non successful response code
      */
     public ProjectListType invokeQueryProjects() throws TsResponseException {
         checkSignedIn();
-        final String url = getUriBuilder().path(QUERY_PROJECTS).build(m_siteId).toString();
-        final TsResponse response = get(url);
-        return response.getProjects();
+        final TsResponse firstPage = get(getProjectsPageUrl(1));
+        final ProjectListType projects = firstPage.getProjects();
+        final PaginationType pagination = firstPage.getPagination();
+        final long totalAvailable = pagination == null ? 0 : pagination.getTotalAvailable().longValue();
+        final int pageCount = (int)((totalAvailable + PROJECTS_PAGE_SIZE - 1) / PROJECTS_PAGE_SIZE);
+        if (pageCount <= 1) {
+            return projects;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(pageCount - 1, m_maxClients), r -> {
+            final Thread t = new Thread(r, "Tableau query projects");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            final List<Future<TsResponse>> pages = new ArrayList<>(pageCount - 1);
+            for (int page = 2; page <= pageCount; page++) {
+                final String url = getProjectsPageUrl(page);
+                pages.add(executor.submit(() -> get(url)));
+            }
+            // NOTE: The pages are added in order such that the projects keep the order of the server
+            for (final Future<TsResponse> page : pages) {
+                projects.getProject().addAll(getPage(page).getProjects().getProject());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return projects;
+    }
+
+    /**
+     * Queries all projects of the connected tableau site like {@link #invokeQueryProjects()}. If the connection
+     * signed in with {@link #signIn(String, String, String)}, the projects of an earlier query for the same server,
+     * site and credentials are reused for a few minutes.
+     *
+     * @param refresh if the projects should be queried even if they are cached
+     * @return the list of projects. The list must not be modified.
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public ProjectListType queryProjects(final boolean refresh) throws TsResponseException {
+        if (m_sessionKey == null) {
+            return invokeQueryProjects();
+        }
+        final ProjectListType cached = refresh ? null : ProjectCache.getInstance().get(m_sessionKey);
+        if (cached != null) {
+            LOGGER.debug("Using the cached projects of " + m_url);
+            return cached;
+        }
+        final ProjectListType projects = invokeQueryProjects();
+        ProjectCache.getInstance().put(m_sessionKey, projects);
+        return projects;
+    }
+
+    private String getProjectsPageUrl(final int page) {
+        return getUriBuilder().path(QUERY_PROJECTS) //
+            .queryParam("pageNumber", page) //
+            .queryParam("pageSize", PROJECTS_PAGE_SIZE) //
+            .build(m_siteId).toString();
+    }
+
+    private static TsResponse getPage(final Future<TsResponse> page) throws TsResponseException {
+        try {
+            return page.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TsResponseException("Interrupted while querying the projects.", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof TsResponseException) {
+                throw (TsResponseException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new TsResponseException("Querying the projects failed: " + cause.getMessage(), e);
+        }
     }
 
     /**
@@ -232,20 +541,121 @@ public DataSourceListType invokeQueryDatasources() throws TsResponseException {
      * @throws TsResponseException if the server responds with an non successful response code
      */
     public boolean existsDatasource(final String name, final String projectId) throws TsResponseException {
+        return existsDatasource(name, projectId, null);
+    }
+
+    /**
+     * Checks if the datasource with the given name exists in the given project. The server is asked only for the
+     * datasources with the given name (and project name). If the server rejects the filter, all datasources of the
+     * site are checked.
+     *
+     * @param name the name of the datasource
+     * @param projectId the identifier of the project
+     * @param projectName the name of the project to narrow down the query or <code>null</code>
+     * @return true if the datasource exists
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public boolean existsDatasource(final String name, final String projectId, final String projectName)
+        throws TsResponseException {
+        return findDatasource(name, projectId, projectName) != null;
+    }
+
+    /**
+     * Looks up the datasource with the given name in the given project like
+     * {@link #existsDatasource(String, String, String)}.
+     *
+     * @param name the name of the datasource
+     * @param projectId the identifier of the project
+     * @param projectName the name of the project to narrow down the query or <code>null</code>
+     * @return the datasource (only the id, the name and the project id are set) or <code>null</code> if it does not
+     *         exist
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public DataSourceType findDatasource(final String name, final String projectId, final String projectName)
+        throws TsResponseException {
+        checkSignedIn();
+
+        // NOTE: The filter syntax has no escaping for the separators: Such names are checked without filter
+        if (m_filterSupported && isFilterValue(name) && (projectName == null || isFilterValue(projectName))) {
+            String filter = "name:eq:" + encodeQueryValue(name);
+            if (projectName != null) {
+                filter += ",projectName:eq:" + encodeQueryValue(projectName);
+            }
+            try {
+                return scanDatasources(name, projectId, filter);
+            } catch (final TsResponseException e) {
+                // NOTE: Other failures (e.g. temporary server errors) would fail the unfiltered queries as well
+                if (!isFilterRejected(e)) {
+                    throw e;
+                }
+                LOGGER.debug("The server rejected the datasource filter. Checking all datasources instead.", e);
+                m_filterSupported = false;
+            }
+        }
+        return scanDatasources(name, projectId, null);
+    }
+
+    /**
+     * @return if the server rejected the filter of a query: A bad request whose error is about the filter or could not
+     *         be read
+     */
+    private static boolean isFilterRejected(final TsResponseException e) {
+        if (e.getStatusCode() != Status.BAD_REQUEST.getStatusCode()) {
+            return false;
+        }
+        return e.getErrorCode() == null || FILTER_ERROR_CODES.contains(e.getErrorCode())
+            || e.getMessage().toLowerCase(Locale.ENGLISH).contains("filter");
+    }
+
+    /**
+     * Queries all datasources of the connected site page by page. Only the id, the name and the project id of the
+     * datasources are requested, such that one query is cheap enough to check many datasources at once.
+     *
+     * @return all datasources of the site
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public List<DataSourceType> queryAllDatasources() throws TsResponseException {
         checkSignedIn();
+        final List<DataSourceType> datasources = new ArrayList<>();
+        visitDatasources(null, datasources::add);
+        return datasources;
+    }
 
+    /** Searches the datasource with the name in the project with the given raw filter (can be null) */
+    private DataSourceType scanDatasources(final String name, final String projectId, final String filter)
+        throws TsResponseException {
+        // NOTE: The page is parsed datasource by datasource and the parsing stops at the first match
+        final AtomicReference<DataSourceType> found = new AtomicReference<>();
+        visitDatasources(filter, d -> {
+            if (d.getName().equals(name) && d.getProject().getId().equals(projectId)) {
+                found.set(d);
+            }
+            return found.get() == null;
+        });
+        return found.get();
+    }
+
+    /**
+     * Loops over the pages of a query datasources REST call with the given raw filter (can be null) until the visitor
+     * returns <code>false</code>.
+     */
+    private void visitDatasources(final String filter, final Predicate<DataSourceType> visitor)
+        throws TsResponseException {
         /*
          * NOTE:
-         * In the following code we loop over the pages of a query datasources REST call. It would be faster to do only
-         * one call with a filter with the datasource name (the Tableau server would do the work for us). This is
-         * tricky because the REST API requires a filter to separate the operator with an unencoded ':'
+         * The REST API requires a filter to separate the operator with an unencoded ':'
          * (syntax: filter=field:operator:value) but the WebClient always encodes a URL (and there is no way to
-         * overwrite this behavior).
+         * overwrite this behavior). Therefore, filtered queries are sent without the WebClient.
          *
          * Also see:
          * https://onlinehelp.tableau.com/v2018.3/api/rest_api/en-us/REST/rest_api_concepts_filtering_and_sorting.htm
          */
 
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        final Predicate<DataSourceType> pageVisitor = d -> {
+            stopped.set(!visitor.test(d));
+            return !stopped.get();
+        };
         int currentPage = 1; // Tableau starts counting at 1
         BigInteger totalReturned = BigInteger.ZERO;
         BigInteger totalAvailable;
@@ -254,25 +664,100 @@ public boolean existsDatasource(final String name, final String projectId) throw
             final String url = getUriBuilder().path(QUERY_DATA_SOURCES) //
                 .queryParam("pageNumber", currentPage) //
                 .queryParam("pageSize", DATASOURCES_PAGE_SIZE) //
-                .queryParam("fields", "name,project.id") // Ask only for the relevant fields: Smaller response
+                .queryParam("fields", "id,name,project.id") // Ask only for the relevant fields: Smaller response
                 .build(m_siteId).toString();
-            final TsResponse response = get(url);
-
-            // Check if the response contains a datasource with the name and project
-            final List<DataSourceType> datasources = response.getDatasources().getDatasource();
-            if (datasources.stream() //
-                .filter(d -> d.getName().equals(name)) //
-                .anyMatch(d -> d.getProject().getId().equals(projectId))) {
-                return true;
+            final PaginationType pagination = filter == null //
+                ? getList(url, "datasource", DataSourceType.class, pageVisitor) //
+                : getListUnencoded(url + "&filter=" + filter, "datasource", DataSourceType.class, pageVisitor);
+            if (stopped.get()) {
+                return;
             }
 
             // Next page
             currentPage++;
             // NOTE: total available is the number of datasources available
-            totalAvailable = response.getPagination().getTotalAvailable();
-            totalReturned = totalReturned.add(response.getPagination().getPageSize());
+            totalAvailable = pagination.getTotalAvailable();
+            totalReturned = totalReturned.add(pagination.getPageSize());
         } while (totalReturned.compareTo(totalAvailable) < 0);
-        return false;
+    }
+
+    /**
+     * Starts a full refresh of the extract of a datasource on the server. The server connects to the underlying data
+     * itself: No data is sent.
+     *
+     * @param datasourceId the identifier of the datasource
+     * @return the asynchronous job of the refresh
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public JobType invokeRefreshDatasource(final String datasourceId) throws TsResponseException {
+        checkSignedIn();
+        final String url = getUriBuilder().path(REFRESH_DATA_SOURCE).build(m_siteId, datasourceId).toString();
+        return post(url, OBJECT_FACTORY.createTsRequest()).getJob();
+    }
+
+    /**
+     * Queries the extract refresh tasks of the connected site which refresh the given datasource.
+     *
+     * @param datasourceId the identifier of the datasource
+     * @return the scheduled extract refresh tasks of the datasource
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public List<TaskExtractRefreshType> invokeQueryExtractRefreshTasks(final String datasourceId)
+        throws TsResponseException {
+        checkSignedIn();
+        final String url = getUriBuilder().path(QUERY_EXTRACT_REFRESH_TASKS).build(m_siteId).toString();
+        final TaskListType tasks = get(url).getTasks();
+        final List<TaskExtractRefreshType> refreshTasks = new ArrayList<>();
+        if (tasks != null) {
+            for (final TaskType task : tasks.getTask()) {
+                final TaskExtractRefreshType refresh = task.getExtractRefresh();
+                if (refresh != null && refresh.getDatasource() != null
+                    && datasourceId.equals(refresh.getDatasource().getId())) {
+                    refreshTasks.add(refresh);
+                }
+            }
+        }
+        return refreshTasks;
+    }
+
+    /**
+     * Runs a scheduled extract refresh task immediately. The task determines if the refresh is full or incremental.
+     *
+     * @param taskId the identifier of the extract refresh task
+     * @return the asynchronous job of the refresh
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public JobType invokeRunExtractRefreshTask(final String taskId) throws TsResponseException {
+        checkSignedIn();
+        final String url = getUriBuilder().path(RUN_EXTRACT_REFRESH_TASK).build(m_siteId, taskId).toString();
+        return post(url, OBJECT_FACTORY.createTsRequest()).getJob();
+    }
+
+    /**
+     * Queries the state of an asynchronous job.
+     *
+     * @param jobId the identifier of the job
+     * @return the job
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public JobType invokeQueryJob(final String jobId) throws TsResponseException {
+        checkSignedIn();
+        final String url = getUriBuilder().path(QUERY_JOB).build(m_siteId, jobId).toString();
+        return get(url).getJob();
+    }
+
+    private static boolean isFilterValue(final String value) {
+        return !StringUtils.containsAny(value, FILTER_SEPARATORS);
+    }
+
+    private static String encodeQueryValue(final String value) {
+        try {
+            // NOTE: URLEncoder encodes for forms: Spaces must be encoded as %20 in a query
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name()).replace("+", "%20");
+        } catch (final UnsupportedEncodingException e) {
+            // Cannot happen: UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -285,34 +770,259 @@ public boolean existsDatasource(final String name, final String projectId) throw
      * @param overwrite if the datasource should be overwritten if it exists
      * @param append if the data should be appended to an existing datasource
      * @param progress a {@link ExecutionMonitor} to keep track of the upload progress
-     * @return the datasource response from the server
+     * @return the datasource response from the server or <code>null</code> if the datasource was published by a job
+     * @throws IOException something goes wrong while reading the file
+     * @throws TsResponseException if the server responds with an non successful response code
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    public DataSourceType invokePublishDataSourceChunked(final String projectId, final String datasourceName,
+        final String datasourceType, final File dataSource, final boolean overwrite, final boolean append,
+        final ExecutionMonitor progress) throws IOException, TsResponseException, CanceledExecutionException {
+        return invokePublishDataSourceChunked(projectId, datasourceName, datasourceType, dataSource, overwrite, append,
+            new UploadState(), progress);
+    }
+
+    /**
+     * Sends a datasource to the connected tableau site. The upload continues the given state, e.g. of an earlier call
+     * which failed. The state is updated with every uploaded chunk and reset once the publish request was sent.
+     *
+     * @param projectId the id of the project to which the datasource should be added
+     * @param datasourceName the name of the data source
+     * @param datasourceType the type of the data source (e.g. "hyper")
+     * @param dataSource the datasource file
+     * @param overwrite if the datasource should be overwritten if it exists
+     * @param append if the data should be appended to an existing datasource
+     * @param state the state of the upload of the file
+     * @param progress a {@link ExecutionMonitor} to keep track of the upload progress (and the publish job)
+     * @return the datasource response from the server or <code>null</code> if the datasource was published by a job
      * @throws IOException something goes wrong while reading the file
      * @throws TsResponseException if the server responds with an non successful response code
      * @throws CanceledExecutionException if the execution was canceled
      */
     public DataSourceType invokePublishDataSourceChunked(final String projectId, final String datasourceName,
         final String datasourceType, final File dataSource, final boolean overwrite, final boolean append,
+        final UploadState state, final ExecutionMonitor progress)
+        throws IOException, TsResponseException, CanceledExecutionException {
+        final String uploadSessionId = invokeUploadFile(dataSource, datasourceName, state, progress);
+        try {
+            return invokePublishDataSource(uploadSessionId, datasourceName, datasourceType, projectId, overwrite,
+                append, progress);
+        } finally {
+            // The upload session was consumed by the publish request, whatever its outcome: A later attempt uploads
+            // the file again
+            state.reset();
+        }
+    }
+
+    /**
+     * Uploads a file in chunks to a new upload session. The file can be published with
+     * {@link #invokePublishDataSource(String, String, String, String, boolean, boolean)} afterwards.
+     *
+     * @param file the file to upload
+     * @param fileName the name of the file on the server
+     * @param progress a {@link ExecutionMonitor} to keep track of the upload progress
+     * @return the id of the upload session which contains the file
+     * @throws IOException something goes wrong while reading the file
+     * @throws TsResponseException if the server responds with an non successful response code
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    public String invokeUploadFile(final File file, final String fileName, final ExecutionMonitor progress)
+        throws IOException, TsResponseException, CanceledExecutionException {
+        return invokeUploadFile(file, fileName, new UploadState(), progress);
+    }
+
+    /**
+     * Uploads a file in chunks. If the state contains an upload session, the upload continues after the bytes which
+     * have already been uploaded. Otherwise a new upload session is started. The state is updated after every chunk,
+     * such that a failed upload can be continued by calling this method again with the same state. If the server no
+     * longer knows the upload session, the file is uploaded again from the start.
+     *
+     * Requests which fail with a transient error are repeated (see {@link #setMaxRetries(int)}).
+     *
+     * @param file the file to upload
+     * @param fileName the name of the file on the server
+     * @param state the state of the upload of this file
+     * @param progress a {@link ExecutionMonitor} to keep track of the upload progress
+     * @return the id of the upload session which contains the file
+     * @throws IOException something goes wrong while reading the file
+     * @throws TsResponseException if the server responds with an non successful response code
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    public String invokeUploadFile(final File file, final String fileName, final UploadState state,
         final ExecutionMonitor progress) throws IOException, TsResponseException, CanceledExecutionException {
         checkSignedIn();
 
-        // Initiate the file upload
-        final FileUploadType fileUpload = invokeInitiateFileUpload();
-
-        final double totalChunks = Math.ceil(1. * dataSource.length() / UPLOAD_CHUNK_SIZE);
-        final byte[] buffer = new byte[UPLOAD_CHUNK_SIZE];
-        int numReadBytes = 0;
-        long uploadedChunks = 0;
-        try (final FileInputStream inputStream = new FileInputStream(dataSource)) {
-            progress.setProgress(0);
-            while ((numReadBytes = inputStream.read(buffer)) != -1) {
-                invokeAppendFileUpload(fileUpload.getUploadSessionId(), datasourceName, buffer, numReadBytes);
-                progress.setProgress(++uploadedChunks / totalChunks);
+        boolean resumed = state.getUploadSessionId() != null;
+        if (resumed) {
+            LOGGER.info("Resuming the upload of '" + fileName + "' (" + state + ").");
+        } else {
+            // Initiate the file upload
+            state.start(initiateFileUpload(progress));
+        }
+
+        final UploadChunkSizer chunkSizer;
+        synchronized (this) {
+            chunkSizer = new UploadChunkSizer(m_chunkSize, m_adaptiveChunkSize, m_receiveTimeout);
+        }
+        // NOTE: The chunks are streamed from the file with positional reads. Memory mapping is avoided because a
+        // mapped file cannot be deleted on Windows until the mapping is garbage collected.
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            progress.setProgress((double)state.getUploadedBytes() / Math.max(1, fileSize));
+            int restarts = 0;
+            while (state.getUploadedBytes() < fileSize) {
+                final String uploadSessionId = state.getUploadSessionId();
+                final long uploadedBytes = state.getUploadedBytes();
+                // The chunk size can grow during the upload
+                final int numBytes = (int)Math.min(chunkSizer.getChunkSize(), fileSize - uploadedBytes);
+                final long nanos;
+                try {
+                    // Only repeat a chunk which did not reach the server: Otherwise it could be appended twice
+                    nanos = withRetries("Uploading a chunk", progress, RestApiConnection::isNotReceived, () -> {
+                        final long start = System.nanoTime();
+                        invokeAppendFileUpload(uploadSessionId, fileName,
+                            new FileRegionInputStream(channel, uploadedBytes, numBytes));
+                        return System.nanoTime() - start;
+                    });
+                } catch (final TsResponseException | ProcessingException e) {
+                    if (resumed && e instanceof TsResponseException
+                        && ((TsResponseException)e).getStatusCode() == Status.NOT_FOUND.getStatusCode()) {
+                        LOGGER.info("The upload session " + uploadSessionId
+                            + " does not exist anymore. Uploading the file from the start.");
+                        resumed = false;
+                        state.start(initiateFileUpload(progress));
+                        continue;
+                    }
+                    if (isNotReceived(e) || !isAmbiguous(e)) {
+                        // The session does not contain the chunk: A later call can continue the upload
+                        throw e;
+                    }
+                    // The chunk could have been appended although the request failed
+                    if (restarts < m_maxRetries && isTransient(e)) {
+                        restarts++;
+                        LOGGER.warn(String.format("Uploading a chunk failed (%s). Uploading the file from the start "
+                            + "in a new upload session (%d/%d).", e.getMessage(), restarts, m_maxRetries));
+                        resumed = false;
+                        state.start(initiateFileUpload(progress));
+                        progress.setProgress(0);
+                        continue;
+                    }
+                    // A later call must not continue the session
+                    state.reset();
+                    throw e;
+                } catch (final RuntimeException e) {
+                    // The chunk could have been appended: A later call must not continue the session
+                    state.reset();
+                    throw e;
+                }
+                resumed = false;
+                chunkSizer.chunkUploaded(numBytes, nanos);
+                state.chunkUploaded(numBytes);
+                progress.setProgress((double)state.getUploadedBytes() / fileSize);
                 progress.checkCanceled();
             }
         }
+        learnChunkSize(chunkSizer);
+        return state.getUploadSessionId();
+    }
+
+    /** Keeps the chunk size of a finished upload for the next uploads. A settled size is not adapted any further. */
+    private synchronized void learnChunkSize(final UploadChunkSizer chunkSizer) {
+        if (m_adaptiveChunkSize) {
+            m_chunkSize = chunkSizer.getChunkSize();
+            m_adaptiveChunkSize = !chunkSizer.isSettled();
+        }
+    }
 
-        return invokePublishDataSource(fileUpload.getUploadSessionId(), datasourceName, datasourceType, projectId,
-            overwrite, append);
+    /** Starts a new upload session. Repeating the request at most creates an unused session. */
+    private String initiateFileUpload(final ExecutionMonitor progress)
+        throws IOException, TsResponseException, CanceledExecutionException {
+        return withRetries("Initiating the upload", progress, RestApiConnection::isTransient,
+            this::invokeInitiateFileUpload).getUploadSessionId();
+    }
+
+    /**
+     * Executes the call and repeats it after a growing delay as long as it fails with an error which the given
+     * predicate allows to repeat and the maximum number of retries is not reached.
+     */
+    private <T> T withRetries(final String description, final ExecutionMonitor progress,
+        final Predicate<Exception> retryable, final UploadCall<T> call)
+        throws IOException, TsResponseException, CanceledExecutionException {
+        long delay = INITIAL_RETRY_DELAY;
+        for (int retry = 1;; retry++) {
+            try {
+                return call.call();
+            } catch (final TsResponseException | ProcessingException e) {
+                if (retry > m_maxRetries || !retryable.test(e)) {
+                    throw e;
+                }
+                LOGGER.warn(String.format("%s failed (%s). Retrying in %d ms (%d/%d).", description, e.getMessage(),
+                    delay, retry, m_maxRetries));
+                waitForRetry(delay, progress);
+                delay = Math.min(2 * delay, MAX_RETRY_DELAY);
+            }
+        }
+    }
+
+    private static boolean isTransient(final Exception e) {
+        if (e instanceof TsResponseException) {
+            return ((TsResponseException)e).isTransient();
+        }
+        // The server could not be reached or did not answer in time (unless the thread was interrupted)
+        return !(e.getCause() instanceof InterruptedException) && !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * @return if the request provably did not reach the server or was rejected before it was processed: The
+     *         connection could not be established or the server is overloaded (429, 503)
+     */
+    private static boolean isNotReceived(final Exception e) {
+        if (e instanceof TsResponseException) {
+            final int statusCode = ((TsResponseException)e).getStatusCode();
+            if (statusCode == 429 || statusCode == Status.SERVICE_UNAVAILABLE.getStatusCode()) {
+                return true;
+            }
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException
+                || cause instanceof NoRouteToHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return if it is unknown whether the server processed the request: No valid response was received (e.g.
+     *         receive timeout) or the server or a proxy failed (500, 502, 504)
+     */
+    private static boolean isAmbiguous(final Exception e) {
+        if (e instanceof TsResponseException) {
+            switch (((TsResponseException)e).getStatusCode()) {
+                case 0:
+                case 500:
+                case 502:
+                case 504:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static void waitForRetry(final long delay, final ExecutionMonitor progress)
+        throws CanceledExecutionException {
+        final long end = System.currentTimeMillis() + delay;
+        for (long remaining = delay; remaining > 0; remaining = end - System.currentTimeMillis()) {
+            progress.checkCanceled();
+            try {
+                Thread.sleep(Math.min(remaining, 100));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CanceledExecutionException("Interrupted while waiting to repeat a request.");
+            }
+        }
     }
 
     /**
@@ -337,14 +1047,13 @@ private FileUploadType invokeInitiateFileUpload() throws TsResponseException {
      * @param siteId the id of the site
      * @param uploadSessionId the session id of the upload
      * @param fileName name of the file uploaded
-     * @param data a byte array containing the raw data
-     * @param numBytes the number of bytes to send
+     * @param data a stream of the raw data of the chunk
      * @return a {@link FileUploadType}
      * @throws TsResponseException
      * @throws IOException
      */
     private FileUploadType invokeAppendFileUpload(final String uploadSessionId, final String fileName,
-        final byte[] data, final int numBytes) throws TsResponseException, IOException {
+        final FileRegionInputStream data) throws TsResponseException, IOException {
         checkSignedIn();
         final String url = getUriBuilder().path(APPEND_FILE_UPLOAD).build(m_siteId, uploadSessionId).toString();
         final String body = ""; // empty body
@@ -357,26 +1066,95 @@ private FileUploadType invokeAppendFileUpload(final String uploadSessionId, fina
         atts.add(new AttachmentBuilder().id("request_payload").mediaType(MediaType.TEXT_XML).contentDisposition(cdBody)
             .object(body).build());
 
-        try (final InputStream inputStream = new ByteArrayInputStream(data, 0, numBytes)) {
+        try (final FileRegionInputStream inputStream = data) {
             // Second attachment: The file
             final ContentDisposition cd =
                 new ContentDisposition("name=\"tableau_file\"; filename=\"" + fileName + "\"");
             atts.add(new Attachment("tableau_datasource", inputStream, cd));
-            final TsResponse response = putMultipart(url, atts);
+            final TsResponse response = putMultipart(url, () -> {
+                // Send the chunk from the start if the request is repeated with a renewed session
+                inputStream.reset();
+                return atts;
+            });
             return response.getFileUpload();
         }
     }
 
-    private DataSourceType invokePublishDataSource(final String uploadSessionId, final String datasourceName,
+    /**
+     * Publishes the file of an upload session as a datasource. The request blocks until the server has processed the
+     * file.
+     *
+     * @param uploadSessionId the id of the upload session containing the datasource file
+     * @param datasourceName the name of the data source
+     * @param datasourceType the type of the data source (e.g. "hyper")
+     * @param projectId the id of the project to which the datasource should be added
+     * @param overwrite if the datasource should be overwritten if it exists
+     * @param append if the data should be appended to an existing datasource
+     * @return the datasource response from the server
+     * @throws TsResponseException if the server responds with an non successful response code
+     */
+    public DataSourceType invokePublishDataSource(final String uploadSessionId, final String datasourceName,
         final String datasourceType, final String projectId, final boolean overwrite, final boolean append)
         throws TsResponseException {
+        return publishDataSource(uploadSessionId, datasourceName, datasourceType, projectId, overwrite, append, false)
+            .getDatasource();
+    }
+
+    /**
+     * Publishes the file of an upload session as a datasource. If the connection publishes asynchronously (see
+     * {@link #setPublishAsJob(boolean)}), the job of the server is polled until it is completed.
+     *
+     * @param uploadSessionId the id of the upload session containing the datasource file
+     * @param datasourceName the name of the data source
+     * @param datasourceType the type of the data source (e.g. "hyper")
+     * @param projectId the id of the project to which the datasource should be added
+     * @param overwrite if the datasource should be overwritten if it exists
+     * @param append if the data should be appended to an existing datasource
+     * @param progress the monitor to report the progress of the job and check for cancellation
+     * @return the datasource response from the server or <code>null</code> if the datasource was published by a job
+     * @throws TsResponseException if the server responds with an non successful response code or the job failed
+     * @throws CanceledExecutionException if the execution was canceled while waiting for the job. The job keeps
+     *             running on the server.
+     */
+    public DataSourceType invokePublishDataSource(final String uploadSessionId, final String datasourceName,
+        final String datasourceType, final String projectId, final boolean overwrite, final boolean append,
+        final ExecutionMonitor progress) throws TsResponseException, CanceledExecutionException {
+        final TsResponse response = publishDataSource(uploadSessionId, datasourceName, datasourceType, projectId,
+            overwrite, append, m_publishAsJob);
+        final JobType job = response.getJob();
+        if (job == null) {
+            // Published synchronously (also by servers which do not support asynchronous publishing)
+            return response.getDatasource();
+        }
+        LOGGER.debugWithFormat("Publishing datasource '%s' as job %s", datasourceName, job.getId());
+        final JobType completed;
+        try {
+            completed = new JobPoller(this).waitFor(job.getId(), 0, progress);
+        } catch (final TimeoutException e) {
+            // Cannot happen: The poller waits without timeout
+            throw new TsResponseException(e.getMessage(), e);
+        }
+        if (!JobPoller.isSuccessful(completed)) {
+            // NOTE: The job was queried successfully: The status code is the one of the job query
+            throw new TsResponseException("Publishing the datasource failed: " + JobPoller.describeResult(completed),
+                Status.OK.getStatusCode());
+        }
+        return null;
+    }
+
+    private TsResponse publishDataSource(final String uploadSessionId, final String datasourceName,
+        final String datasourceType, final String projectId, final boolean overwrite, final boolean append,
+        final boolean asJob) throws TsResponseException {
         checkSignedIn();
-        final String url = getUriBuilder().path(PUBLISH_DATASOURCE) //
+        final UriBuilder uriBuilder = getUriBuilder().path(PUBLISH_DATASOURCE) //
             .queryParam("uploadSessionId", uploadSessionId) //
             .queryParam("datasourceType", datasourceType) //
             .queryParam("overwrite", overwrite) //
-            .queryParam("append", append) //
-            .build(m_siteId).toString();
+            .queryParam("append", append);
+        if (asJob) {
+            uriBuilder.queryParam("asJob", true);
+        }
+        final String url = uriBuilder.build(m_siteId).toString();
 
         // Create a datasource payload
         final ProjectType project = OBJECT_FACTORY.createProjectType();
@@ -396,8 +1174,7 @@ private DataSourceType invokePublishDataSource(final String uploadSessionId, fin
             .object(payload).build());
 
         // Execute the post
-        final TsResponse response = postMultipart(url, atts);
-        return response.getDatasource();
+        return postMultipart(url, atts);
     }
 
     private UriBuilder getUriBuilder() {
@@ -411,67 +1188,213 @@ private synchronized void checkSignedIn() {
         }
     }
 
-    private WebClient getClient(final String url) {
-        final WebClient client = WebClient.create(url);
+    /**
+     * @return statistics about the HTTP clients used by this connection
+     */
+    public ClientPoolStatistics getClientPoolStatistics() {
+        return m_clientPool.getStatistics();
+    }
 
-        // Set the timeout
-        final HTTPConduit httpConduit = WebClient.getConfig(client).getHttpConduit();
-        httpConduit.getClient().setConnectionTimeout(m_connectionTimeout);
-        httpConduit.getClient().setReceiveTimeout(m_receiveTimeout);
+    /**
+     * Closes the idle HTTP clients of this connection. Does not sign out.
+     */
+    @Override
+    public void close() {
+        m_clientPool.close();
+    }
+
+    /** Executes a request with a pooled client which is set to the given url */
+    private TsResponse execute(final String url, final Function<WebClient, Response> request)
+        throws TsResponseException {
+        return execute(url, request, RestApiConnection::checkResponse);
+    }
 
-        // Set the auth token if signed in
-        if (m_signedIn) {
-            client.header(TABLEAU_AUTH_HEADER, m_token);
+    /**
+     * Executes a request with a pooled client and reads the response with the given handler. If the server rejects
+     * the token of a cached session, the session is renewed and the request is repeated once.
+     */
+    private <T> T execute(final String url, final Function<WebClient, Response> request,
+        final ResponseHandler<T> responseHandler) throws TsResponseException {
+        final String token = m_token;
+        try {
+            return executeWithToken(url, token, request, responseHandler);
+        } catch (final SessionExpiredException e) {
+            // NOTE: Renew after the client was returned to the pool: Other requests could wait for the lock
+            renewSession(token);
+            return executeWithToken(url, m_token, request, responseHandler);
         }
-        return client;
+    }
+
+    /** Executes a request with a pooled client with the given auth token (can be null) */
+    private <T> T executeWithToken(final String url, final String token,
+        final Function<WebClient, Response> request, final ResponseHandler<T> responseHandler)
+        throws TsResponseException {
+        return m_clientPool.execute(client -> {
+            client.to(url, false);
+
+            // Set the auth token if signed in
+            if (token != null) {
+                client.header(TABLEAU_AUTH_HEADER, token);
+            }
+            client.accept(MediaType.APPLICATION_XML);
+            final Response response = request.apply(client);
+            if (isSessionExpired(response.getStatus(), token)) {
+                response.close();
+                throw new SessionExpiredException();
+            }
+            return responseHandler.handle(response);
+        });
+    }
+
+    /** @return if the server rejected the token of a cached session */
+    private boolean isSessionExpired(final int statusCode, final String token) {
+        return statusCode == Status.UNAUTHORIZED.getStatusCode() && token != null && m_sessionKey != null;
     }
 
     private TsResponse post(final String url, final TsRequest requestPayload) throws TsResponseException {
-        final WebClient client = getClient(url);
-        client.accept(MediaType.APPLICATION_XML);
-        final Response response = client.post(requestPayload);
-        return checkResponse(response);
+        return execute(url, client -> client.post(requestPayload));
     }
 
     private TsResponse postMultipart(final String url, final List<Attachment> attachments) throws TsResponseException {
-        final WebClient client = getClient(url);
-        client.accept(MediaType.APPLICATION_XML);
-        client.encoding("UTF-8");
-        client.type("multipart/mixed");
-        final Response response = client.post(new MultipartBody(attachments));
-        return checkResponse(response);
+        return execute(url, client -> {
+            client.encoding("UTF-8");
+            client.type("multipart/mixed");
+            return client.post(new MultipartBody(attachments));
+        });
     }
 
-    private TsResponse putMultipart(final String url, final List<Attachment> attachments) throws TsResponseException {
-        final WebClient client = getClient(url);
-        client.accept(MediaType.APPLICATION_XML);
-        client.encoding("UTF-8");
-        client.type("multipart/mixed");
-        final Response response = client.put(new MultipartBody(attachments));
-        return checkResponse(response);
+    private TsResponse putMultipart(final String url, final Supplier<List<Attachment>> attachments)
+        throws TsResponseException {
+        return execute(url, client -> {
+            client.encoding("UTF-8");
+            client.type("multipart/mixed");
+            return client.put(new MultipartBody(attachments.get()));
+        });
     }
 
     private TsResponse get(final String url) throws TsResponseException {
-        final WebClient client = getClient(url);
-        client.accept(MediaType.APPLICATION_XML);
-        final Response response = client.get();
-        return checkResponse(response);
+        return execute(url, WebClient::get);
+    }
+
+    /**
+     * Gets a list response with a {@link HttpURLConnection} such that the url is sent exactly as given. The list
+     * elements are passed to the visitor while the response is parsed.
+     */
+    private <T> PaginationType getListUnencoded(final String url, final String elementName,
+        final Class<T> elementType, final Predicate<T> visitor) throws TsResponseException {
+        final String token = m_token;
+        try {
+            return getListUnencoded(url, token, elementName, elementType, visitor);
+        } catch (final SessionExpiredException e) {
+            renewSession(token);
+            return getListUnencoded(url, m_token, elementName, elementType, visitor);
+        }
+    }
+
+    private <T> PaginationType getListUnencoded(final String url, final String token, final String elementName,
+        final Class<T> elementType, final Predicate<T> visitor) throws TsResponseException {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection)new URL(url).openConnection();
+            connection.setConnectTimeout((int)m_connectionTimeout);
+            connection.setReadTimeout((int)m_receiveTimeout);
+            connection.setRequestProperty("Accept", MediaType.APPLICATION_XML);
+            connection.setRequestProperty(TABLEAU_AUTH_HEADER, token);
+            final int statusCode = connection.getResponseCode();
+            if (statusCode / 100 != 2) {
+                // Read the error such that the connection can be reused
+                ErrorType error = null;
+                try (final InputStream errorStream = connection.getErrorStream()) {
+                    if (errorStream != null) {
+                        error = readError(errorStream);
+                        IOUtils.copy(errorStream, NullOutputStream.NULL_OUTPUT_STREAM);
+                    }
+                }
+                if (isSessionExpired(statusCode, token)) {
+                    throw new SessionExpiredException();
+                }
+                if (error != null) {
+                    throw new TsResponseException(describe(error), statusCode, error.getCode());
+                }
+                throw new TsResponseException("Invalid response from server: " + connection.getResponseMessage()
+                    + " (Error Code: " + statusCode + ")", statusCode);
+            }
+            try (final InputStream entityStream = connection.getInputStream()) {
+                return TsXmlProvider.INSTANCE.readList(entityStream, elementName, elementType, visitor);
+            }
+        } catch (final IOException e) {
+            throw new TsResponseException("Invalid response from server: " + e.getMessage(), e);
+        }
+    }
+
+    /** @return the error of an error response or <code>null</code> if the response contains no readable error */
+    private static ErrorType readError(final InputStream errorStream) {
+        try {
+            final Object response = TsXmlProvider.INSTANCE.readFrom(null, null, null, null, null, errorStream);
+            return response instanceof TsResponse ? ((TsResponse)response).getError() : null;
+        } catch (final IOException | WebApplicationException e) {
+            LOGGER.debug("Could not read the error response: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static String describe(final ErrorType error) {
+        return error.getSummary() + ": " + error.getDetail() + " (Error code: " + error.getCode() + ").";
+    }
+
+    /** Gets a list response and passes the list elements to the visitor while the response is parsed */
+    private <T> PaginationType getList(final String url, final String elementName, final Class<T> elementType,
+        final Predicate<T> visitor) throws TsResponseException {
+        return execute(url, WebClient::get, response -> {
+            checkStatus(response);
+            try (final InputStream entityStream = response.readEntity(InputStream.class)) {
+                return TsXmlProvider.INSTANCE.readList(entityStream, elementName, elementType, visitor);
+            } catch (final IOException e) {
+                throw new TsResponseException("Invalid response from server: " + e.getMessage(), e);
+            }
+        });
     }
 
     private static TsResponse checkResponse(final Response response) throws TsResponseException {
+        checkStatus(response);
+        return response.readEntity(TsResponse.class);
+    }
+
+    private static void checkStatus(final Response response) throws TsResponseException {
         if (response.getStatusInfo().getFamily() != Family.SUCCESSFUL) {
             try {
                 final ErrorType error = response.readEntity(TsResponse.class).getError();
-                final String message =
-                    error.getSummary() + ": " + error.getDetail() + " (Error code: " + error.getCode() + ").";
-                throw new TsResponseException(message);
+                throw new TsResponseException(describe(error), response.getStatus(), error.getCode());
             } catch (final ProcessingException e) {
                 final StatusType statusInfo = response.getStatusInfo();
                 throw new TsResponseException("Invalid response from server: " + statusInfo.getReasonPhrase()
-                    + " (Error Code: " + statusInfo.getStatusCode() + ")", e);
+                    + " (Error Code: " + statusInfo.getStatusCode() + ")", statusInfo.getStatusCode(), e);
             }
         }
-        return response.readEntity(TsResponse.class);
+    }
+
+    /**
+     * Thrown if the server rejected the token of a cached session.
+     */
+    private static final class SessionExpiredException extends TsResponseException {
+
+        private static final long serialVersionUID = 1L;
+
+        private SessionExpiredException() {
+            super("The server rejected the session. Please check the credentials.",
+                Status.UNAUTHORIZED.getStatusCode());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        T handle(Response response) throws TsResponseException;
+    }
+
+    /** A request of an upload which can be repeated */
+    @FunctionalInterface
+    private interface UploadCall<T> {
+        T call() throws IOException, TsResponseException;
     }
 
     /**
@@ -481,12 +1404,61 @@ public static class TsResponseException extends Exception {
 
         private static final long serialVersionUID = 1L;
 
-        private TsResponseException(final String message) {
+        private final int m_statusCode;
+
+        private final BigInteger m_errorCode;
+
+        private TsResponseException(final String message, final int statusCode) {
+            this(message, statusCode, (BigInteger)null);
+        }
+
+        private TsResponseException(final String message, final int statusCode, final BigInteger errorCode) {
             super(message);
+            m_statusCode = statusCode;
+            m_errorCode = errorCode;
         }
 
         private TsResponseException(final String message, final Exception cause) {
+            this(message, 0, cause);
+        }
+
+        private TsResponseException(final String message, final int statusCode, final Exception cause) {
             super(message, cause);
+            m_statusCode = statusCode;
+            m_errorCode = null;
+        }
+
+        /**
+         * @return the HTTP status code of the response or 0 if no valid response was received
+         */
+        public int getStatusCode() {
+            return m_statusCode;
+        }
+
+        /**
+         * @return the error code of the Tableau server (e.g. 400065) or <code>null</code> if the response contained no
+         *         error
+         */
+        public BigInteger getErrorCode() {
+            return m_errorCode;
+        }
+
+        /**
+         * @return if the request could succeed when it is repeated: No valid response was received, the server is
+         *         overloaded (429, 503) or failed internally (500, 502, 504)
+         */
+        public boolean isTransient() {
+            switch (m_statusCode) {
+                case 0:
+                case 429:
+                case 500:
+                case 502:
+                case 503:
+                case 504:
+                    return true;
+                default:
+                    return false;
+            }
         }
     }
 }
@@ -0,0 +1,258 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable.api;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * A process-wide cache of signed in Tableau Server sessions. Sessions are identified by the server, the site and the
+ * credentials. A {@link RestApiConnection} which signs in with {@link RestApiConnection#signIn(String, String, String)}
+ * reuses a cached session and renews it if the server rejects the token.
+ *
+ * The least recently used sessions are signed out if the cache is full. All sessions are signed out when the cache
+ * is cleared (e.g. when the bundle is stopped).
+ */
+public final class SessionCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(SessionCache.class);
+
+    private static final int MAX_SESSIONS = 32;
+
+    /**
+     * Sessions which were not used for a longer time are probably expired on the server. Half of the default session
+     * timeout of a Tableau Server (240 minutes): Leaves a margin for servers configured with a shorter timeout
+     */
+    private static final long MAX_IDLE_NANOS = TimeUnit.MINUTES.toNanos(120);
+
+    /** 5 seconds: Do not block the shutdown for long if the server is not reachable */
+    private static final long SIGN_OUT_TIMEOUT = 5000;
+
+    private static final SessionCache INSTANCE = new SessionCache();
+
+    /** The sessions in access order */
+    private final Map<Key, Session> m_sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    private SessionCache() {
+    }
+
+    /**
+     * @return the cache of this process
+     */
+    public static SessionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param key the key of the session
+     * @return the cached session or <code>null</code> if there is no usable session
+     */
+    Session get(final Key key) {
+        final Session expired;
+        synchronized (this) {
+            final Session session = m_sessions.get(key);
+            if (session == null || System.nanoTime() - session.m_lastUsed <= MAX_IDLE_NANOS) {
+                if (session != null) {
+                    session.m_lastUsed = System.nanoTime();
+                }
+                return session;
+            }
+            expired = m_sessions.remove(key);
+        }
+        signOut(expired);
+        return null;
+    }
+
+    /**
+     * Adds a new session to the cache. Replaced and evicted sessions are signed out.
+     *
+     * @param key the key of the session
+     * @param session the new session
+     */
+    void put(final Key key, final Session session) {
+        final List<Session> removed = new ArrayList<>();
+        synchronized (this) {
+            final Session replaced = m_sessions.put(key, session);
+            if (replaced != null && !replaced.getToken().equals(session.getToken())) {
+                removed.add(replaced);
+            }
+            final Iterator<Session> eldest = m_sessions.values().iterator();
+            while (m_sessions.size() > MAX_SESSIONS) {
+                removed.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        removed.forEach(SessionCache::signOut);
+    }
+
+    /**
+     * Removes the session if it still has the given token. The session is not signed out because the server rejected
+     * the token already.
+     *
+     * @param key the key of the session
+     * @param token the rejected token
+     */
+    synchronized void invalidate(final Key key, final String token) {
+        final Session session = m_sessions.get(key);
+        if (session != null && session.getToken().equals(token)) {
+            m_sessions.remove(key);
+        }
+    }
+
+    /**
+     * Signs out all cached sessions and clears the cache.
+     */
+    public void clear() {
+        final List<Session> sessions;
+        synchronized (this) {
+            sessions = new ArrayList<>(m_sessions.values());
+            m_sessions.clear();
+        }
+        sessions.forEach(SessionCache::signOut);
+    }
+
+    private static void signOut(final Session session) {
+        try (final RestApiConnection connection =
+            new RestApiConnection(session.getUrl(), SIGN_OUT_TIMEOUT, SIGN_OUT_TIMEOUT)) {
+            connection.invokeSignOut(session);
+        } catch (final Exception e) {
+            // The session expires on the server anyway
+            LOGGER.debug("Could not sign out from " + session.getUrl() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Identifies a session by the server, the site and the credentials. Only a hash of the password is kept.
+     */
+    static final class Key {
+
+        private final String m_url;
+
+        private final String m_contentUrl;
+
+        private final String m_username;
+
+        private final byte[] m_passwordHash;
+
+        Key(final String url, final String contentUrl, final String username, final String password) {
+            m_url = url;
+            m_contentUrl = contentUrl;
+            m_username = username;
+            m_passwordHash = hash(password);
+        }
+
+        private static byte[] hash(final String password) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            } catch (final NoSuchAlgorithmException e) {
+                // Cannot happen: Every Java platform supports SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)obj;
+            return m_url.equals(other.m_url) && Objects.equals(m_contentUrl, other.m_contentUrl)
+                && m_username.equals(other.m_username) && Arrays.equals(m_passwordHash, other.m_passwordHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_url, m_contentUrl, m_username, Arrays.hashCode(m_passwordHash));
+        }
+    }
+
+    /**
+     * A signed in session on a Tableau Server site.
+     */
+    static final class Session {
+
+        private final String m_url;
+
+        private final String m_token;
+
+        private final String m_siteId;
+
+        private volatile long m_lastUsed = System.nanoTime();
+
+        Session(final String url, final String token, final String siteId) {
+            m_url = url;
+            m_token = token;
+            m_siteId = siteId;
+        }
+
+        String getUrl() {
+            return m_url;
+        }
+
+        String getToken() {
+            return m_token;
+        }
+
+        String getSiteId() {
+            return m_siteId;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.knime.ext.tableau.hyper.sendtable.api.binding.PaginationType;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.TsRequest;
+import org.knime.ext.tableau.hyper.sendtable.api.binding.TsResponse;
+
+/**
+ * Reads {@link TsResponse} and writes {@link TsRequest} objects. The {@link JAXBContext} of the binding package is
+ * created once and the (not thread-safe) marshallers and unmarshallers are pooled. Responses are parsed with a StAX
+ * reader.
+ *
+ * Large list responses can also be read element by element with
+ * {@link #readList(InputStream, String, Class, Predicate)} without unmarshalling the whole response.
+ */
+@Provider
+@Produces({MediaType.APPLICATION_XML, MediaType.TEXT_XML})
+@Consumes({MediaType.APPLICATION_XML, MediaType.TEXT_XML})
+final class TsXmlProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    private static final String NAMESPACE = "http://tableau.com/api";
+
+    private static final String PAGINATION_ELEMENT = "pagination";
+
+    /** The provider used by all connections */
+    static final TsXmlProvider INSTANCE = new TsXmlProvider();
+
+    private final JAXBContext m_context;
+
+    private final XMLInputFactory m_inputFactory;
+
+    private final Queue<Marshaller> m_marshallers = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Unmarshaller> m_unmarshallers = new ConcurrentLinkedQueue<>();
+
+    private TsXmlProvider() {
+        try {
+            m_context = JAXBContext.newInstance(TsRequest.class, TsResponse.class);
+        } catch (final JAXBException e) {
+            throw new IllegalStateException("Could not create the JAXB context for the Tableau REST API.", e);
+        }
+        m_inputFactory = XMLInputFactory.newInstance();
+        // Responses do not use DTDs: Do not resolve external entities
+        m_inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        m_inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public boolean isReadable(final Class<?> type, final Type genericType, final Annotation[] annotations,
+        final MediaType mediaType) {
+        return type == TsResponse.class;
+    }
+
+    @Override
+    public Object readFrom(final Class<Object> type, final Type genericType, final Annotation[] annotations,
+        final MediaType mediaType, final MultivaluedMap<String, String> httpHeaders, final InputStream entityStream)
+        throws IOException {
+        final Unmarshaller unmarshaller = borrowUnmarshaller();
+        XMLStreamReader reader = null;
+        try {
+            reader = m_inputFactory.createXMLStreamReader(entityStream);
+            return unmarshaller.unmarshal(reader);
+        } catch (final JAXBException | XMLStreamException e) {
+            throw new WebApplicationException("Invalid response from the Tableau server.", e);
+        } finally {
+            closeQuietly(reader);
+            m_unmarshallers.add(unmarshaller);
+        }
+    }
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType, final Annotation[] annotations,
+        final MediaType mediaType) {
+        return type == TsRequest.class;
+    }
+
+    @Override
+    public long getSize(final Object t, final Class<?> type, final Type genericType, final Annotation[] annotations,
+        final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final Object t, final Class<?> type, final Type genericType, final Annotation[] annotations,
+        final MediaType mediaType, final MultivaluedMap<String, Object> httpHeaders, final OutputStream entityStream)
+        throws IOException {
+        final Marshaller marshaller = borrowMarshaller();
+        try {
+            marshaller.marshal(t, entityStream);
+        } catch (final JAXBException e) {
+            throw new WebApplicationException("Could not write the request to the Tableau server.", e);
+        } finally {
+            m_marshallers.add(marshaller);
+        }
+    }
+
+    /**
+     * Reads the elements of a list response one by one. Only the elements with the given name and the pagination are
+     * unmarshalled. The stream is read completely even if the visitor stops early, such that the connection can be
+     * reused.
+     *
+     * @param entityStream the stream of the response
+     * @param elementName the local name of the list elements (e.g. "datasource")
+     * @param elementType the binding class of the list elements
+     * @param visitor called for each element. Returns <code>false</code> if no further elements are needed
+     * @return the pagination of the response or <code>null</code> if the response has no pagination
+     * @throws IOException if the response cannot be parsed
+     */
+    <T> PaginationType readList(final InputStream entityStream, final String elementName,
+        final Class<T> elementType, final Predicate<T> visitor) throws IOException {
+        final Unmarshaller unmarshaller = borrowUnmarshaller();
+        XMLStreamReader reader = null;
+        try {
+            reader = m_inputFactory.createXMLStreamReader(entityStream);
+            PaginationType pagination = null;
+            boolean visit = true;
+            while (reader.hasNext()) {
+                if (reader.getEventType() == XMLStreamConstants.START_ELEMENT
+                    && NAMESPACE.equals(reader.getNamespaceURI())) {
+                    if (PAGINATION_ELEMENT.equals(reader.getLocalName())) {
+                        // Unmarshal moves the reader behind the element
+                        pagination = unmarshaller.unmarshal(reader, PaginationType.class).getValue();
+                        continue;
+                    } else if (visit && elementName.equals(reader.getLocalName())) {
+                        visit = visitor.test(unmarshaller.unmarshal(reader, elementType).getValue());
+                        continue;
+                    }
+                }
+                reader.next();
+            }
+            return pagination;
+        } catch (final JAXBException | XMLStreamException e) {
+            throw new IOException("Invalid response from the Tableau server: " + e.getMessage(), e);
+        } finally {
+            closeQuietly(reader);
+            m_unmarshallers.add(unmarshaller);
+        }
+    }
+
+    private Unmarshaller borrowUnmarshaller() throws IOException {
+        final Unmarshaller unmarshaller = m_unmarshallers.poll();
+        if (unmarshaller != null) {
+            return unmarshaller;
+        }
+        try {
+            return m_context.createUnmarshaller();
+        } catch (final JAXBException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private Marshaller borrowMarshaller() throws IOException {
+        final Marshaller marshaller = m_marshallers.poll();
+        if (marshaller != null) {
+            return marshaller;
+        }
+        try {
+            return m_context.createMarshaller();
+        } catch (final JAXBException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void closeQuietly(final XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (final XMLStreamException e) {
+                // Nothing to do: The underlying stream is closed by the caller
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable.api;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Decides how many bytes are sent with each append request of a file upload.
+ *
+ * In the adaptive mode the chunk size is doubled after each full chunk as long as the measured throughput improves
+ * noticeably. Small chunks are dominated by the round trip time of the request, so larger chunks pay off until the
+ * bandwidth of the connection is the limit. The size is not increased further once the throughput reaches a plateau,
+ * a single chunk takes too long compared to the receive timeout or the server limit is reached.
+ */
+final class UploadChunkSizer {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(UploadChunkSizer.class);
+
+    /** The maximum size of one chunk accepted by the tableau server (64MB) */
+    static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    /** Relative throughput improvement which is required to double the chunk size again */
+    private static final double MIN_THROUGHPUT_GAIN = 1.1;
+
+    /** Chunks which take longer than this are not enlarged any further */
+    private final long m_maxChunkNanos;
+
+    private int m_chunkSize;
+
+    /** Throughput of the last full chunk in bytes per nanosecond */
+    private double m_lastThroughput = 0;
+
+    private boolean m_settled;
+
+    /**
+     * @param chunkSize the (initial) chunk size in bytes
+     * @param adaptive if the chunk size should be adapted to the measured throughput
+     * @param receiveTimeout the receive timeout of the connection in milliseconds
+     */
+    UploadChunkSizer(final int chunkSize, final boolean adaptive, final long receiveTimeout) {
+        m_chunkSize = Math.min(chunkSize, MAX_CHUNK_SIZE);
+        m_settled = !adaptive;
+        // Leave enough room for slower chunks later on
+        m_maxChunkNanos = TimeUnit.MILLISECONDS.toNanos(receiveTimeout) / 4;
+    }
+
+    /**
+     * @return the number of bytes to send with the next chunk
+     */
+    synchronized int getChunkSize() {
+        return m_chunkSize;
+    }
+
+    /**
+     * @return if the chunk size is not adapted any further
+     */
+    synchronized boolean isSettled() {
+        return m_settled;
+    }
+
+    /**
+     * Records the time which was needed to upload a chunk.
+     *
+     * @param numBytes the number of bytes in the chunk
+     * @param nanos the duration of the append request in nanoseconds
+     */
+    synchronized void chunkUploaded(final int numBytes, final long nanos) {
+        if (m_settled || numBytes < m_chunkSize) {
+            // Only full chunks of the current size are comparable
+            return;
+        }
+        final double throughput = numBytes / (double)Math.max(nanos, 1);
+        LOGGER.debugWithFormat("Uploaded chunk of %d bytes in %d ms", numBytes,
+            TimeUnit.NANOSECONDS.toMillis(nanos));
+        if (throughput < m_lastThroughput * MIN_THROUGHPUT_GAIN) {
+            // Plateau: Go back to the smaller size which was (nearly) as fast
+            if (throughput < m_lastThroughput) {
+                m_chunkSize /= 2;
+            }
+            settle();
+        } else if (nanos > m_maxChunkNanos || m_chunkSize > MAX_CHUNK_SIZE / 2) {
+            m_lastThroughput = throughput;
+            settle();
+        } else {
+            m_lastThroughput = throughput;
+            m_chunkSize *= 2;
+        }
+    }
+
+    private void settle() {
+        m_settled = true;
+        LOGGER.debugWithFormat("Upload chunk size settled at %d bytes", m_chunkSize);
+    }
+}
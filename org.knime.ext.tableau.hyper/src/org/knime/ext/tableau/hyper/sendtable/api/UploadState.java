@@ -0,0 +1,97 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable.api;
+
+/**
+ * The progress of a chunked file upload: The upload session on the server and the number of bytes of the file which
+ * the server has confirmed. If an upload fails, it can be continued with the same state instead of uploading the file
+ * from the start (see {@link RestApiConnection#invokeUploadFile(java.io.File, String, UploadState,
+ * org.knime.core.node.ExecutionMonitor)}).
+ */
+public final class UploadState {
+
+    private String m_uploadSessionId;
+
+    private long m_uploadedBytes;
+
+    /**
+     * @return the id of the upload session or <code>null</code> if the upload has not been started
+     */
+    public synchronized String getUploadSessionId() {
+        return m_uploadSessionId;
+    }
+
+    /**
+     * @return the number of bytes from the start of the file which have been uploaded to the session
+     */
+    public synchronized long getUploadedBytes() {
+        return m_uploadedBytes;
+    }
+
+    /**
+     * Forgets the upload session: The next upload starts from the beginning of the file.
+     */
+    public synchronized void reset() {
+        m_uploadSessionId = null;
+        m_uploadedBytes = 0L;
+    }
+
+    synchronized void start(final String uploadSessionId) {
+        m_uploadSessionId = uploadSessionId;
+        m_uploadedBytes = 0L;
+    }
+
+    synchronized void chunkUploaded(final long numBytes) {
+        m_uploadedBytes += numBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return m_uploadSessionId == null ? "not started"
+            : ("session " + m_uploadSessionId + ", " + m_uploadedBytes + " bytes uploaded");
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.hyper.sendtable.api;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.ProcessingException;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.knime.ext.tableau.hyper.sendtable.api.RestApiConnection.TsResponseException;
+
+/**
+ * A bounded pool of configured {@link WebClient WebClients} for one server. A {@link WebClient} is not thread-safe,
+ * therefore every request borrows a client exclusively. Clients are reused for later requests with their configured
+ * conduit and keep-alive connection. Clients which were idle for longer than the idle timeout are closed.
+ */
+final class WebClientPool {
+
+    private final String m_url;
+
+    private final long m_connectionTimeout;
+
+    private final long m_receiveTimeout;
+
+    private final long m_idleTimeoutNanos;
+
+    /** Limits the number of clients (and connections) in use at the same time */
+    private final Semaphore m_permits;
+
+    /** Idle clients, the most recently used first */
+    private final Deque<PooledClient> m_idle = new ArrayDeque<>();
+
+    private final AtomicLong m_created = new AtomicLong();
+
+    private final AtomicLong m_reused = new AtomicLong();
+
+    private final AtomicLong m_evicted = new AtomicLong();
+
+    private final AtomicLong m_firstRequestNanos = new AtomicLong();
+
+    private boolean m_closed = false;
+
+    /**
+     * @param url the url of the server
+     * @param connectionTimeout timeout for establishing the connection in milliseconds
+     * @param receiveTimeout timeout for receiving responses in milliseconds
+     * @param maxClients the maximum number of clients which are used at the same time
+     * @param idleTimeout the time in milliseconds after which an unused client is closed
+     */
+    WebClientPool(final String url, final long connectionTimeout, final long receiveTimeout, final int maxClients,
+        final long idleTimeout) {
+        m_url = url;
+        m_connectionTimeout = connectionTimeout;
+        m_receiveTimeout = receiveTimeout;
+        m_permits = new Semaphore(maxClients, true);
+        m_idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+    }
+
+    /**
+     * Executes a request with a client of the pool. Blocks until a client is available.
+     *
+     * @param request the request which is executed with a client which is reset to the default state
+     * @return the result of the request
+     * @throws TsResponseException if the request throws a {@link TsResponseException}
+     */
+    <T> T execute(final ClientRequest<T> request) throws TsResponseException {
+        try {
+            m_permits.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting for a connection to the server.", e);
+        }
+        try {
+            final PooledClient pooled = borrow();
+            final boolean first = pooled.m_lastUsed == 0;
+            final long start = System.nanoTime();
+            try {
+                pooled.m_client.reset();
+                return request.execute(pooled.m_client);
+            } finally {
+                if (first) {
+                    m_firstRequestNanos.addAndGet(System.nanoTime() - start);
+                }
+                release(pooled);
+            }
+        } finally {
+            m_permits.release();
+        }
+    }
+
+    /**
+     * @return a snapshot of the statistics of this pool
+     */
+    ClientPoolStatistics getStatistics() {
+        return new ClientPoolStatistics(m_created.get(), m_reused.get(), m_evicted.get(),
+            m_firstRequestNanos.get());
+    }
+
+    /**
+     * Closes all idle clients. Clients in use are closed when they are returned.
+     */
+    synchronized void close() {
+        m_closed = true;
+        m_idle.forEach(PooledClient::close);
+        m_idle.clear();
+    }
+
+    private PooledClient borrow() {
+        synchronized (this) {
+            evictIdleClients();
+            final PooledClient pooled = m_idle.pollFirst();
+            if (pooled != null) {
+                m_reused.incrementAndGet();
+                return pooled;
+            }
+        }
+        m_created.incrementAndGet();
+        return new PooledClient(createClient());
+    }
+
+    private synchronized void release(final PooledClient pooled) {
+        pooled.m_lastUsed = System.nanoTime();
+        if (m_closed) {
+            pooled.close();
+        } else {
+            m_idle.addFirst(pooled);
+        }
+    }
+
+    /** Closes the clients which have not been used for longer than the idle timeout */
+    private void evictIdleClients() {
+        final long now = System.nanoTime();
+        // The least recently used clients are at the end
+        while (!m_idle.isEmpty() && now - m_idle.peekLast().m_lastUsed > m_idleTimeoutNanos) {
+            m_idle.pollLast().close();
+            m_evicted.incrementAndGet();
+        }
+    }
+
+    private WebClient createClient() {
+        final WebClient client = WebClient.create(m_url, Collections.singletonList(TsXmlProvider.INSTANCE));
+
+        // Set the timeouts and keep the connection open between requests
+        final HTTPConduit httpConduit = WebClient.getConfig(client).getHttpConduit();
+        final HTTPClientPolicy policy = httpConduit.getClient();
+        policy.setConnectionTimeout(m_connectionTimeout);
+        policy.setReceiveTimeout(m_receiveTimeout);
+        policy.setConnection(ConnectionType.KEEP_ALIVE);
+        return client;
+    }
+
+    /**
+     * A request which is executed with a client of the pool.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    interface ClientRequest<T> {
+
+        /**
+         * @param client the client to use. Must not be used after the method returned
+         * @return the result of the request
+         * @throws TsResponseException if the server responds with an non successful response code
+         */
+        T execute(WebClient client) throws TsResponseException;
+    }
+
+    private static final class PooledClient {
+
+        private final WebClient m_client;
+
+        /** {@link System#nanoTime()} when the client was returned the last time or 0 if it was never used */
+        private long m_lastUsed = 0;
+
+        private PooledClient(final WebClient client) {
+            m_client = client;
+        }
+
+        private void close() {
+            m_client.close();
+        }
+    }
+}
@@ -66,7 +66,8 @@ public final class TableauHyperWriterNodeFactory extends NodeFactory<TableauExtr
 
     @Override
     public TableauExtractNodeModel createNodeModel() {
-        return new TableauExtractNodeModel(new TableauHyperExtractAPI(), new TableauHyperExtractOpener());
+        return new TableauExtractNodeModel(new TableauHyperExtractAPI(),
+            new TableauHyperExtractOpener(TableauHyperExtractOpener.DEFAULT_BLOCK_SIZE));
     }
 
     @Override
@@ -52,6 +52,7 @@
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -111,7 +112,7 @@ public TableauTable createTable(final String name, final DataTableSpec spec) thr
                 final TableDefinition tableDef = createTableDefinition(typeSetters);
 
                 // Create the table
-                return new TableauTDETable(m_extract.addTable(name, tableDef), typeSetters);
+                return new TableauTDETable(m_extract.addTable(name, tableDef), tableDef, typeSetters);
             } catch (final TableauException e) {
                 throw new WrappingTableauException(e);
             }
@@ -125,9 +126,10 @@ public TableauTable openTable(final String name, final DataTableSpec spec) throw
                 final TableDefinition tableDef = createTableDefinition(typeSetters);
 
                 final Table table = m_extract.openTable(name);
+                final TableDefinition existingTableDef = table.getTableDefinition();
 
                 // TODO check if equals is implemented correctly
-                if (!isCompatible(tableDef, table.getTableDefinition())) {
+                if (!isCompatible(tableDef, existingTableDef)) {
                     throw new WrappingTableauException("The extract contains a table with the name '" + name
                         + "' but with a different table definition. "
                         + "If you want to append to an existing table make sure the table is still the same. "
@@ -135,7 +137,7 @@ public TableauTable openTable(final String name, final DataTableSpec spec) throw
                 }
 
                 // Create the table
-                return new TableauTDETable(table, typeSetters);
+                return new TableauTDETable(table, existingTableDef, typeSetters);
             } catch (final TableauException e) {
                 throw new WrappingTableauException(e);
             }
@@ -258,24 +260,48 @@ private static class TableauTDETable implements TableauTable {
 
         private final TableauTypeSetter[] m_typeSetters;
 
-        public TableauTDETable(final Table table, final TableauTypeSetter[] typeSetters) {
+        /** Row buffer which is reused for all inserts. Table#insert copies the values */
+        private final Row m_row;
+
+        public TableauTDETable(final Table table, final TableDefinition tableDef,
+            final TableauTypeSetter[] typeSetters) throws TableauException {
             m_table = table;
             m_typeSetters = typeSetters;
+            m_row = new Row(tableDef);
         }
 
         @Override
         public void addRow(final DataRow dataRow) throws WrappingTableauException {
             try {
-                final Row row = new Row(m_table.getTableDefinition());
-                for (int i = 0; i < m_typeSetters.length; i++) {
-                    final TableauTypeSetter typeSetter = m_typeSetters[i];
-                    final DataCell c = dataRow.getCell(typeSetter.getColIndex());
-                    typeSetter.addToRow(i, row, c);
+                insert(dataRow);
+            } catch (final TableauException e) {
+                throw new WrappingTableauException(e);
+            }
+        }
+
+        @Override
+        public long addRows(final Iterator<? extends DataRow> rows, final int batchSize)
+            throws WrappingTableauException {
+            long count = 0;
+            try {
+                while (count < batchSize && rows.hasNext()) {
+                    insert(rows.next());
+                    count++;
                 }
-                m_table.insert(row);
             } catch (final TableauException e) {
                 throw new WrappingTableauException(e);
             }
+            return count;
+        }
+
+        private void insert(final DataRow dataRow) throws TableauException {
+            // Every column is set (either to a value or to null): No values of the previous row remain
+            for (int i = 0; i < m_typeSetters.length; i++) {
+                final TableauTypeSetter typeSetter = m_typeSetters[i];
+                final DataCell c = dataRow.getCell(typeSetter.getColIndex());
+                typeSetter.addToRow(i, m_row, c);
+            }
+            m_table.insert(m_row);
         }
 
     }
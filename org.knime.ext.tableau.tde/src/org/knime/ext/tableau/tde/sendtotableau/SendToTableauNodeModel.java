@@ -55,6 +55,7 @@
 import org.apache.commons.lang3.StringUtils;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -63,8 +64,18 @@
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.StreamableOperator;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.util.FileUtil;
+import org.knime.ext.tableau.ExtractCache;
+import org.knime.ext.tableau.RowProgressReporter;
+import org.knime.ext.tableau.TableFingerprint;
 import org.knime.ext.tableau.TableauExtract;
 import org.knime.ext.tableau.TableauPlugin;
 import org.knime.ext.tableau.TableauPlugin.TABLEAU_SDK;
@@ -83,6 +94,11 @@ final class SendToTableauNodeModel extends NodeModel {
 
     private static final String EXTRACT_TABLE_NAME = "Extract";
 
+    private static final String EXTRACT_EXTENSION = ".tde";
+
+    /** Number of rows added to the extract between two cancellation checks */
+    private static final int WRITE_BATCH_SIZE = 1000;
+
     private SendToTableauSettings m_settings;
 
     SendToTableauNodeModel() {
@@ -106,29 +122,78 @@ protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws Invali
     @Override
     protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
         throws Exception {
-        SendToTableauSettings s = m_settings;
         BufferedDataTable table = inData[0];
-        long rowIndex = 0L;
         final long rowCount = table.size();
-        File t = FileUtil.createTempFile("tableau-", ".tde");
-        t.delete(); // just need a unique file name -- must not exist
+        final ExtractCache cache = ExtractCache.fromPreferences();
+        String fingerprint = null;
+        ExecutionMonitor writeProgress = exec;
+        if (cache.isEnabled()) {
+            exec.setMessage("Computing the fingerprint of the input");
+            fingerprint = TableFingerprint.of(table, exec.createSubProgress(0.2));
+            writeProgress = exec.createSubProgress(0.8);
+        }
+        final ExecutionMonitor progressMonitor = writeProgress;
+        writeAndPublish(table.getDataTableSpec(), tableWriter -> {
+            final RowProgressReporter progress = new RowProgressReporter(progressMonitor, rowCount);
+            try (final CloseableRowIterator rows = table.iterator()) {
+                while (rows.hasNext()) {
+                    progress.rowsWritten(tableWriter.addRows(rows, WRITE_BATCH_SIZE));
+                }
+            }
+        }, cache, fingerprint);
+        return new BufferedDataTable[]{};
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputPortRole[] getInputPortRoles() {
+        // All rows go into one extract file: The input can be streamed but not distributed
+        return new InputPortRole[]{InputPortRole.NONDISTRIBUTED_STREAMABLE};
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+        final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        return new StreamableOperator() {
+
+            @Override
+            public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+                throws Exception {
+                final RowInput input = (RowInput)inputs[0];
+                writeAndPublish(input.getDataTableSpec(), tableWriter -> {
+                    final RowProgressReporter progress = new RowProgressReporter(exec, -1);
+                    DataRow row;
+                    while ((row = input.poll()) != null) {
+                        tableWriter.addRow(row);
+                        progress.rowsWritten(1);
+                    }
+                }, null, null);
+                input.close();
+            }
+        };
+    }
+
+    /**
+     * Writes a temporary extract file (the rows are added by the given function) and publishes it on the server.
+     * If a fingerprint of the input is given, the extract is looked up in and added to the extract cache.
+     */
+    private void writeAndPublish(final DataTableSpec spec, final TableWriteFunction writeFunction,
+        final ExtractCache cache, final String fingerprint) throws Exception {
+        SendToTableauSettings s = m_settings;
+        File t = fingerprint == null ? null : cache.get(fingerprint, EXTRACT_EXTENSION);
+        // A file of the cache must not be deleted
+        boolean temporary = t == null;
         try {
-            getLogger().debugWithFormat("Will write temporary tableau file to \"%s\"", t.getAbsolutePath());
-            ExtractAPI.initialize();
-            try (final TableauExtract tableauExtract = new TableauTDEExtractOpener().openExtract(t.getAbsolutePath())) {
-                // Create the new table
-                final TableauTable tableWriter =
-                    tableauExtract.createTable(EXTRACT_TABLE_NAME, table.getDataTableSpec());
-                // Add rows to the table
-                for (DataRow r : table) {
-                    tableWriter.addRow(r);
-                    exec.setProgress((double)++rowIndex / rowCount,
-                        String.format("Row %d/%d (\"%s\")", rowIndex, rowCount, r.getKey().toString()));
+            if (t == null) {
+                t = writeExtract(spec, writeFunction);
+                final File cached = fingerprint == null ? null : cache.put(fingerprint, EXTRACT_EXTENSION, t);
+                if (cached != null) {
+                    t = cached;
+                    temporary = false;
                 }
-                getLogger().debugWithFormat("Successfully written temporary tableau file (\"%s\" - %s)",
-                    t.getAbsolutePath(), FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(t)));
-            } finally {
-                ExtractAPI.cleanup();
+            } else {
+                getLogger().info("Publishing the cached extract of the unchanged input.");
             }
             ServerConnection serverConnection = null;
             ServerAPI.initialize();
@@ -149,9 +214,34 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final Ex
             throw new InvalidSettingsException("Unable to initialize Tableau backend '" + TABLEAU_SDK.HYPER.toString()
                 + "', please follow the installation instructions in the node description. Error:" + e);
         } finally {
+            if (temporary && t != null) {
+                t.delete();
+            }
+        }
+    }
+
+    /** Writes a temporary extract file, the rows are added by the given function */
+    private File writeExtract(final DataTableSpec spec, final TableWriteFunction writeFunction) throws Exception {
+        File t = FileUtil.createTempFile("tableau-", EXTRACT_EXTENSION);
+        t.delete(); // just need a unique file name -- must not exist
+        try {
+            getLogger().debugWithFormat("Will write temporary tableau file to \"%s\"", t.getAbsolutePath());
+            ExtractAPI.initialize();
+            try (final TableauExtract tableauExtract = new TableauTDEExtractOpener().openExtract(t.getAbsolutePath())) {
+                // Create the new table
+                final TableauTable tableWriter = tableauExtract.createTable(EXTRACT_TABLE_NAME, spec);
+                // Add rows to the table
+                writeFunction.write(tableWriter);
+                getLogger().debugWithFormat("Successfully written temporary tableau file (\"%s\" - %s)",
+                    t.getAbsolutePath(), FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(t)));
+            } finally {
+                ExtractAPI.cleanup();
+            }
+            return t;
+        } catch (Exception | Error e) {
             t.delete();
+            throw e;
         }
-        return new BufferedDataTable[]{};
     }
 
     /** {@inheritDoc} */
@@ -191,4 +281,10 @@ protected void saveInternals(final File nodeInternDir, final ExecutionMonitor ex
         throws IOException, CanceledExecutionException {
     }
 
+    /** Writes rows to an opened extract table (from a table or from a streamed input). */
+    @FunctionalInterface
+    private interface TableWriteFunction {
+        void write(TableauTable tableWriter) throws Exception;
+    }
+
 }
@@ -0,0 +1,218 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * Tests the {@link ParallelRowIterator}: The rows must keep their order while all reader threads read at the same
+ * time.
+ */
+public final class ParallelRowIteratorTest {
+
+    private static final int NUM_THREADS = 4;
+
+    /**
+     * Several times more batches than the threads can read ahead, such that a thread which waited for the consumer to
+     * finish the batches of another thread would stall the reading. The last batch is not full.
+     */
+    private static final long NUM_ROWS =
+        3L * NUM_THREADS * ParallelRowIterator.QUEUE_CAPACITY * ParallelRowIterator.BATCH_SIZE + 17;
+
+    /** Not a multiple of the batch size: The converted batches are inserted in parts */
+    private static final int INSERT_SIZE = 777;
+
+    /**
+     * The rows are returned in the order of the table.
+     */
+    @Test(timeout = 60000)
+    public void testRowOrder() {
+        try (final ParallelRowIterator rows =
+            new ParallelRowIterator(NUM_ROWS, NUM_THREADS, ParallelRowIteratorTest::readRange)) {
+            long index = 0;
+            while (rows.hasNext()) {
+                assertEquals(RowKey.createRowKey(index), rows.next().getKey());
+                index++;
+            }
+            assertEquals(NUM_ROWS, index);
+        }
+    }
+
+    /**
+     * The rows are converted by the reader threads and inserted in the order of the table.
+     */
+    @Test(timeout = 60000)
+    public void testConvertedRowOrder() throws WrappingTableauException {
+        final RecordingTable table = new RecordingTable();
+        try (final ParallelRowIterator rows =
+            new ParallelRowIterator(NUM_ROWS, NUM_THREADS, ParallelRowIteratorTest::readRange)) {
+            while (rows.hasNext()) {
+                final long added = rows.addRowsTo(table, INSERT_SIZE);
+                assertTrue("Added fewer rows than requested before the end", added == INSERT_SIZE || !rows.hasNext());
+            }
+        }
+        assertEquals(NUM_ROWS, table.m_keys.size());
+        for (int i = 0; i < table.m_keys.size(); i++) {
+            assertEquals(RowKey.createRowKey((long)i), table.m_keys.get(i));
+        }
+        assertTrue("No rows were converted", !table.m_convertingThreads.isEmpty());
+        for (final Thread thread : table.m_convertingThreads) {
+            assertNotEquals("Rows were converted by the consumer", Thread.currentThread(), thread);
+        }
+    }
+
+    /**
+     * All threads read at the same time: The batches which fit into the queues of the threads are read before the
+     * consumer takes more than the first row.
+     */
+    @Test(timeout = 60000)
+    public void testAllThreadsReadAhead() throws InterruptedException {
+        final int readAhead = NUM_THREADS * ParallelRowIterator.QUEUE_CAPACITY;
+        final CountDownLatch firstBatches = new CountDownLatch(readAhead);
+        try (final ParallelRowIterator rows = new ParallelRowIterator(NUM_ROWS, NUM_THREADS, (from, to) -> {
+            if (from / ParallelRowIterator.BATCH_SIZE < readAhead) {
+                firstBatches.countDown();
+            }
+            return readRange(from, to);
+        })) {
+            // Starts the reader threads
+            rows.next();
+            assertTrue("The reader threads did not read the first " + readAhead + " batches",
+                firstBatches.await(30, TimeUnit.SECONDS));
+        }
+    }
+
+    /** Creates the rows of a range: The key and the only cell contain the index of the row */
+    private static CloseableRowIterator readRange(final long from, final long to) {
+        return new CloseableRowIterator() {
+
+            private long m_next = from;
+
+            @Override
+            public boolean hasNext() {
+                return m_next < to;
+            }
+
+            @Override
+            public DataRow next() {
+                final long index = m_next++;
+                return new DefaultRow(RowKey.createRowKey(index), new LongCell(index));
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release
+            }
+        };
+    }
+
+    /** A table which records the keys of the inserted rows and the threads which converted them */
+    private static final class RecordingTable implements TableauTable {
+
+        private final List<RowKey> m_keys = new ArrayList<>();
+
+        private final List<Thread> m_convertingThreads = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void addRow(final DataRow dataRow) {
+            m_keys.add(dataRow.getKey());
+        }
+
+        @Override
+        public long addRows(final Iterator<? extends DataRow> rows, final int batchSize) {
+            long count = 0;
+            while (count < batchSize && rows.hasNext()) {
+                addRow(rows.next());
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public ConvertedRows convert(final List<DataRow> rows) {
+            m_convertingThreads.add(Thread.currentThread());
+            final List<RowKey> keys = new ArrayList<>(rows.size());
+            rows.forEach(r -> keys.add(r.getKey()));
+            return new ConvertedKeys(keys);
+        }
+
+        @Override
+        public void insert(final ConvertedRows rows, final int from, final int to) {
+            m_keys.addAll(((ConvertedKeys)rows).m_keys.subList(from, to));
+        }
+    }
+
+    private static final class ConvertedKeys implements ConvertedRows {
+
+        private final List<RowKey> m_keys;
+
+        ConvertedKeys(final List<RowKey> keys) {
+            m_keys = keys;
+        }
+
+        @Override
+        public int size() {
+            return m_keys.size();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.commons.io.FileUtils;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * A local directory of written extract files which are identified by the {@link TableFingerprint} of their input.
+ * The directory is limited in size: The least recently used extracts are deleted if a new extract does not fit.
+ * The last modification time of a file is its last use, so the order survives a restart.
+ *
+ * A file returned by the cache belongs to the cache: It must not be deleted or modified by the caller. It can be
+ * evicted while it is in use by another node. Such a file is still readable on Linux and Mac; on Windows the deletion
+ * fails and the file is evicted later.
+ */
+public final class ExtractCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ExtractCache.class);
+
+    private static final String DIRECTORY_NAME = "tableau-extract-cache";
+
+    /** All caches in this process share the directory */
+    private static final Object LOCK = new Object();
+
+    private final File m_directory;
+
+    private final long m_maxBytes;
+
+    /**
+     * @param directory the directory of the cache
+     * @param maxBytes the maximum size of all files in the cache, 0 disables the cache
+     */
+    public ExtractCache(final File directory, final long maxBytes) {
+        m_directory = directory;
+        m_maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the cache in the KNIME temp directory with the size configured in the preferences
+     */
+    public static ExtractCache fromPreferences() {
+        final long maxMegabytes =
+            TableauPlugin.getDefault().getPreferenceStore().getLong(TableauPlugin.EXTRACT_CACHE_SIZE_KEY);
+        return new ExtractCache(new File(KNIMEConstants.getKNIMETempDir(), DIRECTORY_NAME),
+            maxMegabytes * FileUtils.ONE_MB);
+    }
+
+    /**
+     * @return if extracts are cached at all
+     */
+    public boolean isEnabled() {
+        return m_maxBytes > 0;
+    }
+
+    /**
+     * Looks up the extract of a table and marks it as recently used.
+     *
+     * @param fingerprint the fingerprint of the table
+     * @param extension the file extension of the extract format (e.g. ".hyper")
+     * @return the cached extract or <code>null</code> if the cache contains no such extract
+     */
+    public File get(final String fingerprint, final String extension) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (LOCK) {
+            final File file = new File(m_directory, fingerprint + extension);
+            if (!file.isFile()) {
+                return null;
+            }
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                LOGGER.debug("Could not mark the extract " + file.getAbsolutePath() + " as used");
+            }
+            LOGGER.debug("Found the extract " + file.getName() + " in the cache");
+            return file;
+        }
+    }
+
+    /**
+     * Moves a written extract into the cache. The least recently used extracts are deleted until the new extract
+     * fits.
+     *
+     * @param fingerprint the fingerprint of the table which was written to the extract
+     * @param extension the file extension of the extract format (e.g. ".hyper")
+     * @param extract the written extract
+     * @return the extract in the cache or <code>null</code> if it was not moved into the cache (e.g. because it is
+     *         larger than the cache). In this case the caller still owns the given file.
+     */
+    public File put(final String fingerprint, final String extension, final File extract) {
+        final long size = extract.length();
+        if (!isEnabled() || size > m_maxBytes) {
+            return null;
+        }
+        synchronized (LOCK) {
+            final File target = new File(m_directory, fingerprint + extension);
+            try {
+                Files.createDirectories(m_directory.toPath());
+                evict(m_maxBytes - size, target);
+                Files.move(extract.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                LOGGER.debugWithFormat("Added the extract %s to the cache (%s)", target.getName(),
+                    FileUtils.byteCountToDisplaySize(size));
+                return target;
+            } catch (final IOException e) {
+                LOGGER.debug("Could not add the extract to the cache " + m_directory.getAbsolutePath(), e);
+                return null;
+            }
+        }
+    }
+
+    /** Deletes the least recently used files until the files (without the replaced one) fit into the given size */
+    private void evict(final long maxBytes, final File replaced) {
+        final File[] files = m_directory.listFiles(f -> f.isFile() && !f.equals(replaced));
+        if (files == null) {
+            return;
+        }
+        long total = Arrays.stream(files).mapToLong(File::length).sum();
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length && total > maxBytes; i++) {
+            final long length = files[i].length();
+            if (files[i].delete()) {
+                total -= length;
+                LOGGER.debug("Evicted the extract " + files[i].getName() + " from the cache");
+            } else {
+                LOGGER.debug("Could not evict the extract " + files[i].getName() + " from the cache (in use?)");
+            }
+        }
+    }
+}
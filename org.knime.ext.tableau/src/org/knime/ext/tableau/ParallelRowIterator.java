@@ -0,0 +1,369 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.node.BufferedDataTable;
+
+/**
+ * Iterates over the rows of a table which are read by several threads. The table is split into batches of rows which
+ * are assigned to the threads round-robin: Batch <code>i</code> is read by thread <code>i % n</code>. Each thread
+ * reads its batches (deserialization, decompression, cell creation) in order into its own queue and the single
+ * consumer of this iterator takes the batches from the queues in the same rotation. All threads read at the same
+ * time and the order of the rows is preserved.
+ *
+ * If the rows are added to an extract table with {@link #addRowsTo(TableauTable, int)}, the threads also convert the
+ * cells into the values of the table ({@link TableauTable#convert(List)}). The consumer only inserts the values.
+ */
+public final class ParallelRowIterator extends CloseableRowIterator {
+
+    static final int BATCH_SIZE = 1000;
+
+    /** The number of batches each thread reads ahead of the consumer */
+    static final int QUEUE_CAPACITY = 8;
+
+    /** Marks that a reader thread has failed */
+    private static final Batch FAILED = new Batch(Collections.emptyList(), null);
+
+    private final long m_size;
+
+    private final long m_numBatches;
+
+    private final int m_numThreads;
+
+    private final RangeReader m_reader;
+
+    private final ExecutorService m_executor;
+
+    /** The batches read by each thread */
+    private final List<BlockingQueue<Batch>> m_queues;
+
+    private volatile Throwable m_failure;
+
+    /** The table which converts the batches in the reader threads, <code>null</code> to return the rows as they are */
+    private TableauTable m_converter;
+
+    private boolean m_started = false;
+
+    /** The index of the next batch to take from the queues */
+    private long m_nextBatch = 0L;
+
+    private Batch m_currentBatch;
+
+    /** The index of the next row of the current batch */
+    private int m_offset = 0;
+
+    private long m_waitNanos = 0L;
+
+    private long m_rowCount = 0L;
+
+    private long m_startNanos;
+
+    /**
+     * Creates an iterator which reads the table with the given number of threads. The threads start when the first
+     * row is requested.
+     *
+     * @param table the table to read
+     * @param numThreads the number of reader threads
+     */
+    public ParallelRowIterator(final BufferedDataTable table, final int numThreads) {
+        this(table.size(), numThreads, (from, to) -> table.filter(TableFilter.filterRangeOfRows(from, to - 1)));
+    }
+
+    /**
+     * @param size the number of rows of the table
+     * @param numThreads the number of reader threads
+     * @param reader reads a range of rows of the table
+     */
+    ParallelRowIterator(final long size, final int numThreads, final RangeReader reader) {
+        m_size = size;
+        m_numBatches = (size + BATCH_SIZE - 1) / BATCH_SIZE;
+        // Do not start more threads than there are batches
+        m_numThreads = (int)Math.max(1, Math.min(numThreads, m_numBatches));
+        m_reader = reader;
+        m_queues = new ArrayList<>(m_numThreads);
+        for (int i = 0; i < m_numThreads; i++) {
+            m_queues.add(new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+        }
+        m_executor = Executors.newFixedThreadPool(m_numThreads, r -> {
+            final Thread t = new Thread(r, "Tableau extract reader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Starts the reader threads, which convert the rows with the given table (if not <code>null</code>) */
+    private void start(final TableauTable converter) {
+        if (m_started) {
+            return;
+        }
+        m_started = true;
+        m_converter = converter;
+        m_startNanos = System.nanoTime();
+        for (int i = 0; i < m_numThreads; i++) {
+            final int thread = i;
+            m_executor.execute(() -> readBatches(thread));
+        }
+        m_executor.shutdown();
+    }
+
+    /** Reads every batch which is assigned to the given thread into the queue of the thread */
+    private void readBatches(final int thread) {
+        final BlockingQueue<Batch> queue = m_queues.get(thread);
+        try {
+            try {
+                for (long b = thread; b < m_numBatches; b += m_numThreads) {
+                    final long from = b * BATCH_SIZE;
+                    final long to = Math.min(m_size, from + BATCH_SIZE);
+                    final List<DataRow> rows = new ArrayList<>((int)(to - from));
+                    try (final CloseableRowIterator it = m_reader.read(from, to)) {
+                        while (it.hasNext()) {
+                            rows.add(it.next());
+                        }
+                    }
+                    queue.put(m_converter == null ? new Batch(rows, null) : new Batch(null, m_converter.convert(rows)));
+                }
+            } catch (final InterruptedException e) {
+                throw e;
+            } catch (final Throwable t) {
+                m_failure = t;
+                queue.put(FAILED);
+            }
+        } catch (final InterruptedException e) {
+            // Closed by the consumer
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return m_rowCount < m_size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the rows are converted for {@link #addRowsTo(TableauTable, int)}
+     */
+    @Override
+    public DataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        start(null);
+        if (m_converter != null) {
+            throw new IllegalStateException("The rows are converted for an extract table and can only be added to it.");
+        }
+        final Batch batch = currentBatch();
+        m_rowCount++;
+        return batch.m_rows.get(m_offset++);
+    }
+
+    /**
+     * Adds the next rows to the table. The first call determines how the rows are read: Afterwards the reader threads
+     * convert the rows with the given table, which must not be mixed with {@link #next()}. The rows can be added to
+     * several tables one after the other if they have the same spec.
+     *
+     * @param table the table to add the rows to
+     * @param maxRows the maximum number of rows to add
+     * @return the number of rows which have been added (less than <code>maxRows</code> only if there are no more
+     *         rows)
+     * @throws WrappingTableauException if the Tableau API throws a TableauException
+     */
+    public long addRowsTo(final TableauTable table, final int maxRows) throws WrappingTableauException {
+        start(table);
+        if (m_converter == null) {
+            // Started by next(): The rows are not converted
+            return table.addRows(this, maxRows);
+        }
+        long added = 0L;
+        while (added < maxRows && hasNext()) {
+            final Batch batch = currentBatch();
+            final int count = (int)Math.min(batch.size() - m_offset, maxRows - added);
+            table.insert(batch.m_converted, m_offset, m_offset + count);
+            m_offset += count;
+            m_rowCount += count;
+            added += count;
+        }
+        return added;
+    }
+
+    /** @return the batch which contains the next row */
+    private Batch currentBatch() {
+        if (m_currentBatch == null || m_offset == m_currentBatch.size()) {
+            // The batches are taken in the order in which they are assigned to the threads
+            m_currentBatch = takeBatch(m_queues.get((int)(m_nextBatch % m_numThreads)));
+            m_nextBatch++;
+            m_offset = 0;
+            if (m_currentBatch == FAILED) {
+                throw new IllegalStateException("Reading the input table failed: " + m_failure.getMessage(),
+                    m_failure);
+            }
+        }
+        return m_currentBatch;
+    }
+
+    private Batch takeBatch(final BlockingQueue<Batch> queue) {
+        final long start = System.nanoTime();
+        try {
+            return queue.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the rows of the input table.", e);
+        } finally {
+            m_waitNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Creates an iterator which reads the table with the given number of threads. Uses the plain iterator of the
+     * table for one thread.
+     *
+     * @param table the table to read
+     * @param numThreads the number of reader threads
+     * @return an iterator over the rows of the table
+     */
+    public static CloseableRowIterator iterator(final BufferedDataTable table, final int numThreads) {
+        if (numThreads <= 1) {
+            return table.iterator();
+        }
+        return new ParallelRowIterator(table, numThreads);
+    }
+
+    /**
+     * Adds the next rows of an iterator to the table. The rows of a {@link ParallelRowIterator} are converted by its
+     * reader threads.
+     *
+     * @param rows an iterator returned by {@link #iterator(BufferedDataTable, int)}
+     * @param table the table to add the rows to
+     * @param maxRows the maximum number of rows to add
+     * @return the number of rows which have been added (less than <code>maxRows</code> only if there are no more
+     *         rows)
+     * @throws WrappingTableauException if the Tableau API throws a TableauException
+     */
+    public static long addRows(final CloseableRowIterator rows, final TableauTable table, final int maxRows)
+        throws WrappingTableauException {
+        if (rows instanceof ParallelRowIterator) {
+            return ((ParallelRowIterator)rows).addRowsTo(table, maxRows);
+        }
+        return table.addRows(rows, maxRows);
+    }
+
+    /**
+     * @return the number of reader threads
+     */
+    public int getNumThreads() {
+        return m_numThreads;
+    }
+
+    /**
+     * @return the time in milliseconds the consumer waited for rows. A short time means that the consumer is the
+     *         bottleneck and more reader threads will not speed up the writing.
+     */
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(m_waitNanos);
+    }
+
+    /**
+     * @return a summary of the throughput and the time the consumer waited for rows
+     */
+    public String getStatistics() {
+        final long elapsedMillis =
+            m_started ? Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - m_startNanos)) : 1;
+        return String.format(
+            "Read %d rows with %d threads in %d ms (%d rows/s). The consumer waited %d ms (%d%%) for rows.",
+            m_rowCount, m_numThreads, elapsedMillis, m_rowCount * 1000 / elapsedMillis, getWaitMillis(),
+            getWaitMillis() * 100 / elapsedMillis);
+    }
+
+    @Override
+    public void close() {
+        m_executor.shutdownNow();
+        m_queues.forEach(BlockingQueue::clear);
+    }
+
+    /** Reads a range of rows of a table */
+    @FunctionalInterface
+    interface RangeReader {
+
+        /**
+         * @param from the index of the first row (inclusive)
+         * @param to the index after the last row (exclusive)
+         * @return an iterator over the rows of the range
+         */
+        CloseableRowIterator read(long from, long to);
+    }
+
+    /** The rows of one batch: Either as they are or converted for an extract table */
+    private static final class Batch {
+
+        private final List<DataRow> m_rows;
+
+        private final ConvertedRows m_converted;
+
+        Batch(final List<DataRow> rows, final ConvertedRows converted) {
+            m_rows = rows;
+            m_converted = converted;
+        }
+
+        int size() {
+            return m_rows != null ? m_rows.size() : m_converted.size();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Reports the progress of writing rows to an extract. The progress and message of the {@link ExecutionMonitor} are
+ * updated at most once per update interval and the message is only formatted when the monitor requests it.
+ * Cancellation is checked on every call.
+ */
+public final class RowProgressReporter {
+
+    /** Default time between two progress updates in milliseconds */
+    public static final long DEFAULT_UPDATE_INTERVAL = 500;
+
+    private final ExecutionMonitor m_exec;
+
+    private final long m_rowCount;
+
+    private final long m_updateIntervalNanos;
+
+    private long m_rowIndex = 0L;
+
+    private long m_lastUpdate;
+
+    /**
+     * Creates a reporter with the default update interval.
+     *
+     * @param exec the monitor to report the progress to
+     * @param rowCount the total number of rows or a negative number if unknown (e.g. while streaming)
+     */
+    public RowProgressReporter(final ExecutionMonitor exec, final long rowCount) {
+        this(exec, rowCount, DEFAULT_UPDATE_INTERVAL);
+    }
+
+    /**
+     * @param exec the monitor to report the progress to
+     * @param rowCount the total number of rows or a negative number if unknown (e.g. while streaming)
+     * @param updateInterval the minimum time between two progress updates in milliseconds
+     */
+    public RowProgressReporter(final ExecutionMonitor exec, final long rowCount, final long updateInterval) {
+        m_exec = exec;
+        m_rowCount = rowCount;
+        m_updateIntervalNanos = TimeUnit.MILLISECONDS.toNanos(updateInterval);
+        // The first rows are reported immediately
+        m_lastUpdate = System.nanoTime() - m_updateIntervalNanos;
+    }
+
+    /**
+     * Records that rows were written. Updates the progress if the update interval has passed.
+     *
+     * @param numRows the number of rows written since the last call
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    public void rowsWritten(final long numRows) throws CanceledExecutionException {
+        m_rowIndex += numRows;
+        m_exec.checkCanceled();
+        final long now = System.nanoTime();
+        if (now - m_lastUpdate >= m_updateIntervalNanos) {
+            m_lastUpdate = now;
+            update();
+        }
+    }
+
+    /**
+     * @return the number of rows written so far
+     */
+    public long getRowIndex() {
+        return m_rowIndex;
+    }
+
+    /**
+     * Reports the final number of rows regardless of the update interval.
+     */
+    public void finished() {
+        update();
+    }
+
+    private void update() {
+        final long rowIndex = m_rowIndex;
+        if (m_rowCount >= 0) {
+            m_exec.setProgress(m_rowCount == 0 ? 1 : (double)rowIndex / m_rowCount,
+                () -> String.format("Row %d/%d", rowIndex, m_rowCount));
+        } else {
+            m_exec.setMessage(() -> String.format("Row %d", rowIndex));
+        }
+    }
+}
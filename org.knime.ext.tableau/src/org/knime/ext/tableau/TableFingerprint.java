@@ -0,0 +1,162 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Computes a SHA-256 fingerprint of the content of a table which is written to an extract: The names and types of the
+ * columns and the values of all rows in their order. The row keys are not part of the fingerprint because they are
+ * not written to the extract.
+ */
+public final class TableFingerprint {
+
+    /** Changes if the encoding below changes, such that old fingerprints do not match anymore */
+    private static final byte VERSION = 1;
+
+    private static final byte MISSING = 0;
+
+    private static final byte PRESENT = 1;
+
+    private final MessageDigest m_digest;
+
+    private final ByteBuffer m_buffer = ByteBuffer.allocate(Long.BYTES);
+
+    private TableFingerprint() {
+        try {
+            m_digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            // Cannot happen: Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+        m_digest.update(VERSION);
+    }
+
+    /**
+     * Reads the whole table and computes its fingerprint.
+     *
+     * @param table the table
+     * @param exec the monitor for the progress and cancellation
+     * @return the fingerprint as hexadecimal string
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    public static String of(final BufferedDataTable table, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        final TableFingerprint fingerprint = new TableFingerprint();
+        fingerprint.update(table.getDataTableSpec());
+        final RowProgressReporter progress = new RowProgressReporter(exec, table.size());
+        try (final CloseableRowIterator rows = table.iterator()) {
+            while (rows.hasNext()) {
+                fingerprint.update(rows.next());
+                progress.rowsWritten(1);
+            }
+        }
+        progress.finished();
+        return fingerprint.toHexString();
+    }
+
+    private void update(final DataTableSpec spec) {
+        updateLong(spec.getNumColumns());
+        for (final DataColumnSpec column : spec) {
+            updateString(column.getName());
+            updateString(column.getType().toString());
+        }
+    }
+
+    private void update(final DataRow row) {
+        for (final DataCell cell : row) {
+            if (cell.isMissing()) {
+                m_digest.update(MISSING);
+                continue;
+            }
+            m_digest.update(PRESENT);
+            // Numbers are hashed binary, everything else with its string representation
+            if (cell instanceof LongValue) {
+                updateLong(((LongValue)cell).getLongValue());
+            } else if (cell instanceof DoubleValue) {
+                updateLong(Double.doubleToLongBits(((DoubleValue)cell).getDoubleValue()));
+            } else {
+                updateString(cell.toString());
+            }
+        }
+    }
+
+    private void updateLong(final long value) {
+        m_buffer.clear();
+        m_buffer.putLong(value);
+        m_digest.update(m_buffer.array());
+    }
+
+    private void updateString(final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // The length keeps adjacent strings apart
+        updateLong(bytes.length);
+        m_digest.update(bytes);
+    }
+
+    private String toHexString() {
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : m_digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -70,6 +70,12 @@ public class TableauPlugin extends AbstractUIPlugin {
 
     public static final String TABLEAU_INSTALLDIR_KEY = "org.knime.ext.tableau.installdir";
 
+    /** If the in-memory backend keeps the written values (otherwise it only counts the rows) */
+    public static final String IN_MEMORY_RECORD_KEY = "org.knime.ext.tableau.inmemory.record";
+
+    /** The maximum size of the {@link ExtractCache} in MB, 0 disables the cache */
+    public static final String EXTRACT_CACHE_SIZE_KEY = "org.knime.ext.tableau.cache.size";
+
     private static String sdkName;
 
     private static Boolean m_tdeInstalled;
@@ -99,10 +105,11 @@ public void start(final BundleContext context) throws Exception {
     }
 
     /**
-     * The Tableau SDK variant to use
+     * The Tableau SDK variant to use. {@link #IN_MEMORY} replaces the native library by an in-memory implementation
+     * for profiling and for testing on machines without the Tableau binaries.
      */
     public enum TABLEAU_SDK {
-            HYPER("Tableau Hyper"), TDE("Tableau TDE");
+            HYPER("Tableau Hyper"), TDE("Tableau TDE"), IN_MEMORY("In-memory");
 
         private String m_name;
 
@@ -132,6 +139,9 @@ public static TABLEAU_SDK getSelectedSDK() {
         if (sdkName.equals(TABLEAU_SDK.TDE.name())) {
             return TABLEAU_SDK.TDE;
         }
+        if (sdkName.equals(TABLEAU_SDK.IN_MEMORY.name())) {
+            return TABLEAU_SDK.IN_MEMORY;
+        }
         throw new IllegalArgumentException("Unknown SDK:" + sdkName);
     }
 
@@ -48,6 +48,9 @@
  */
 package org.knime.ext.tableau;
 
+import java.util.Iterator;
+import java.util.List;
+
 import org.knime.core.data.DataRow;
 
 /**
@@ -63,4 +66,44 @@ public interface TableauTable {
      * @throws WrappingTableauException if the Tableau API throws a TableauException (not documented on Tableau side)
      */
     void addRow(DataRow dataRow) throws WrappingTableauException;
+
+    /**
+     * Adds the next rows of the given iterator to the table. At most <code>batchSize</code> rows are taken from the
+     * iterator, such that the caller can report progress and check for cancellation between two batches.
+     *
+     * @param rows the rows to add
+     * @param batchSize the maximum number of rows to add in this call
+     * @return the number of rows which have been added (less than <code>batchSize</code> only if the iterator has no
+     *         more rows)
+     * @throws WrappingTableauException if the Tableau API throws a TableauException (not documented on Tableau side)
+     */
+    long addRows(Iterator<? extends DataRow> rows, int batchSize) throws WrappingTableauException;
+
+    /**
+     * Converts the cells of the rows into the values of this table, such that they can be inserted with
+     * {@link #insert(ConvertedRows, int, int)}. Does not depend on the state of the table: It is called by several
+     * reader threads while other rows are inserted. The result can be inserted into every table of the same backend
+     * with the same spec. By default, the rows are converted when they are inserted.
+     *
+     * @param rows the rows to convert
+     * @return the converted rows
+     */
+    default ConvertedRows convert(final List<DataRow> rows) {
+        return new UnconvertedRows(rows);
+    }
+
+    /**
+     * Inserts a range of converted rows into the table.
+     *
+     * @param rows the rows returned by {@link #convert(List)}
+     * @param from the index of the first row to insert
+     * @param to the index after the last row to insert
+     * @throws WrappingTableauException if the Tableau API throws a TableauException (not documented on Tableau side)
+     */
+    default void insert(final ConvertedRows rows, final int from, final int to) throws WrappingTableauException {
+        final Iterator<DataRow> it = ((UnconvertedRows)rows).getRows().subList(from, to).iterator();
+        while (it.hasNext()) {
+            addRows(it, to - from);
+        }
+    }
 }
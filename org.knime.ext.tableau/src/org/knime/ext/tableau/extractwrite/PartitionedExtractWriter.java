@@ -0,0 +1,367 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.extractwrite;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.StringValue;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.ext.tableau.TableauExtract;
+import org.knime.ext.tableau.TableauExtractOpener;
+import org.knime.ext.tableau.TableauTable;
+import org.knime.ext.tableau.WrappingTableauException;
+import org.knime.ext.tableau.extractwrite.TableauExtractSettings.FileOverwritePolicy;
+
+/**
+ * Writes the rows of one input into one extract file per value of a partition column. The extracts are opened when
+ * the first row of their partition arrives. At most the configured number of extracts are open at the same time: If
+ * another extract has to be opened, the least recently used one is closed and reopened in append mode when its
+ * partition gets more rows.
+ *
+ * The rows of an open extract are buffered and inserted in batches. The library must be initialized by the caller.
+ *
+ * <b>Note:</b> Unless the partition values are checked with {@link #checkFiles(Collection)} in advance, an existing
+ * file or two values with the same file are only detected when the first row of a partition arrives. The files of
+ * the earlier partitions have been written (or deleted) by then.
+ */
+final class PartitionedExtractWriter implements AutoCloseable {
+
+    private static final NodeLogger LOG = NodeLogger.getLogger(PartitionedExtractWriter.class);
+
+    /** Maximum number of rows which are buffered for an open extract before they are inserted */
+    private static final int BATCH_SIZE = 1024;
+
+    /** Suffix of the file of the rows with a missing partition value */
+    private static final String MISSING_SUFFIX = "missing";
+
+    private final TableauExtractOpener m_extractOpener;
+
+    private final File m_baseFile;
+
+    private final String m_tableName;
+
+    private final DataTableSpec m_spec;
+
+    private final FileOverwritePolicy m_overwritePolicy;
+
+    private final int m_maxOpenExtracts;
+
+    /** All partitions in the order of their first row */
+    private final Map<DataCell, Partition> m_partitions = new LinkedHashMap<>();
+
+    /** The partitions with an open extract, the least recently used first */
+    private final LinkedHashMap<DataCell, Partition> m_open = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The partition of each file by its {@link #fileKey(File) key}: Different values must not be written to the same
+     * file
+     */
+    private final Map<String, DataCell> m_files = new HashMap<>();
+
+    private int m_reopenCount = 0;
+
+    /**
+     * @param extractOpener the opener of the extracts of the partitions
+     * @param baseFile the configured output file. The file of a partition is named after this file and the value.
+     * @param tableName the name of the table in the extracts
+     * @param spec the spec of the input rows
+     * @param overwritePolicy what to do with a partition file which exists already
+     * @param maxOpenExtracts the maximum number of extracts which are open at the same time
+     */
+    PartitionedExtractWriter(final TableauExtractOpener extractOpener, final File baseFile, final String tableName,
+        final DataTableSpec spec, final FileOverwritePolicy overwritePolicy, final int maxOpenExtracts) {
+        m_extractOpener = extractOpener;
+        m_baseFile = baseFile;
+        m_tableName = tableName;
+        m_spec = spec;
+        m_overwritePolicy = overwritePolicy;
+        m_maxOpenExtracts = maxOpenExtracts;
+    }
+
+    /**
+     * Adds a row to the extract of its partition. Opens the extract if necessary.
+     *
+     * @param partitionValue the value of the partition column of the row
+     * @param row the row
+     * @throws InvalidSettingsException if the file of a new partition exists and must not be overwritten or if two
+     *             values would be written to the same file
+     * @throws WrappingTableauException if the Tableau API throws a TableauException
+     */
+    void addRow(final DataCell partitionValue, final DataRow row)
+        throws InvalidSettingsException, WrappingTableauException {
+        Partition partition = m_open.get(partitionValue);
+        if (partition == null) {
+            partition = m_partitions.get(partitionValue);
+            if (partition == null) {
+                partition = createPartition(partitionValue);
+            }
+            open(partition);
+        }
+        partition.m_buffer.add(row);
+        if (partition.m_buffer.size() >= BATCH_SIZE) {
+            partition.flush();
+        }
+    }
+
+    /**
+     * Checks the files of the given partition values before any row is written: Two values must not have the same file
+     * and an existing file must not be overwritten if the policy is abort.
+     *
+     * @param partitionValues the distinct values of the partition column
+     * @throws InvalidSettingsException if a file must not be written
+     */
+    void checkFiles(final Collection<DataCell> partitionValues) throws InvalidSettingsException {
+        final Map<String, DataCell> files = new HashMap<>();
+        for (final DataCell value : partitionValues) {
+            final File file = getPartitionFile(value);
+            checkUnique(files, file, value);
+            checkOverwrite(file);
+        }
+    }
+
+    /**
+     * @return the partitions in the order of their first row
+     */
+    Collection<Partition> getPartitions() {
+        return m_partitions.values();
+    }
+
+    /**
+     * @return how often an extract was opened again after it had been closed to open another one
+     */
+    int getReopenCount() {
+        return m_reopenCount;
+    }
+
+    private Partition createPartition(final DataCell value) throws InvalidSettingsException {
+        final File file = getPartitionFile(value);
+        checkUnique(m_files, file, value);
+        checkOverwrite(file);
+        if (file.exists() && m_overwritePolicy == FileOverwritePolicy.Overwrite) {
+            file.delete();
+        }
+        final Partition partition = new Partition(value, file);
+        m_partitions.put(value, partition);
+        return partition;
+    }
+
+    private static void checkUnique(final Map<String, DataCell> files, final File file, final DataCell value)
+        throws InvalidSettingsException {
+        final DataCell previous = files.putIfAbsent(fileKey(file), value);
+        if (previous != null) {
+            throw new InvalidSettingsException(String.format(
+                "The partitions '%s' and '%s' would be written to the same file \"%s\".", previous, value,
+                file.getAbsolutePath()));
+        }
+    }
+
+    private void checkOverwrite(final File file) throws InvalidSettingsException {
+        if (file.exists() && m_overwritePolicy == FileOverwritePolicy.Abort) {
+            throw new InvalidSettingsException(String.format(
+                "Output file \"%s\" already exists - must not overwrite as per user setting", file.getAbsolutePath()));
+        }
+    }
+
+    /**
+     * @return a key which is equal for the same file on a file system which ignores the case of file names (Windows
+     *         and macOS by default)
+     */
+    private static String fileKey(final File file) {
+        return file.getAbsoluteFile().toPath().normalize().toString().toLowerCase(Locale.ROOT);
+    }
+
+    /** The file of a partition: the configured file name with the value before the extension */
+    private File getPartitionFile(final DataCell value) {
+        final String suffix = value.isMissing() ? MISSING_SUFFIX
+            : (value instanceof StringValue ? ((StringValue)value).getStringValue() : value.toString());
+        final String name = m_baseFile.getName();
+        final int extensionIndex = name.lastIndexOf('.');
+        final String baseName = extensionIndex > 0 ? name.substring(0, extensionIndex) : name;
+        final String extension = extensionIndex > 0 ? name.substring(extensionIndex) : "";
+        // Characters which are not allowed in file names on some systems are replaced
+        return new File(m_baseFile.getParentFile(), baseName + "-" + suffix.replaceAll("[^\\w.-]", "_") + extension);
+    }
+
+    private void open(final Partition partition) throws WrappingTableauException {
+        if (m_open.size() >= m_maxOpenExtracts) {
+            // Close the least recently used extract
+            final Iterator<Partition> eldest = m_open.values().iterator();
+            final Partition closed = eldest.next();
+            eldest.remove();
+            closed.close();
+        }
+        if (partition.m_opened) {
+            m_reopenCount++;
+        }
+        partition.open();
+        m_open.put(partition.m_value, partition);
+    }
+
+    @Override
+    public void close() throws WrappingTableauException {
+        WrappingTableauException failure = null;
+        for (final Partition partition : m_open.values()) {
+            try {
+                partition.close();
+            } catch (final WrappingTableauException e) {
+                // Close the other extracts nevertheless
+                failure = failure == null ? e : failure;
+            }
+        }
+        m_open.clear();
+        if (m_reopenCount > 0) {
+            LOG.info("Extracts were reopened " + m_reopenCount + " times because more than " + m_maxOpenExtracts
+                + " extracts were needed at the same time. Sort the input by the partition column to avoid this.");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** The extract file of one partition value */
+    final class Partition {
+
+        private final DataCell m_value;
+
+        private final File m_file;
+
+        private final List<DataRow> m_buffer = new ArrayList<>(BATCH_SIZE);
+
+        private TableauExtract m_extract;
+
+        private TableauTable m_table;
+
+        /** If the extract has been opened before: It is reopened in append mode */
+        private boolean m_opened = false;
+
+        private long m_rowCount = 0L;
+
+        Partition(final DataCell value, final File file) {
+            m_value = value;
+            m_file = file;
+        }
+
+        /**
+         * @return the value of the partition column
+         */
+        DataCell getValue() {
+            return m_value;
+        }
+
+        /**
+         * @return the extract file of the partition
+         */
+        File getFile() {
+            return m_file;
+        }
+
+        /**
+         * @return the number of rows written to the extract
+         */
+        long getRowCount() {
+            return m_rowCount;
+        }
+
+        private void open() throws WrappingTableauException {
+            m_extract = m_extractOpener.openExtract(m_file.getAbsolutePath());
+            try {
+                // Rows are appended to the table of a reopened extract or of an existing file (if allowed)
+                final boolean append = m_opened || m_overwritePolicy == FileOverwritePolicy.Append;
+                if (append && m_extract.hasTable(m_tableName)) {
+                    m_table = m_extract.openTable(m_tableName, m_spec);
+                } else {
+                    m_table = m_extract.createTable(m_tableName, m_spec);
+                }
+            } catch (final WrappingTableauException e) {
+                closeExtract();
+                throw e;
+            }
+            m_opened = true;
+        }
+
+        private void flush() throws WrappingTableauException {
+            final Iterator<DataRow> rows = m_buffer.iterator();
+            while (rows.hasNext()) {
+                m_rowCount += m_table.addRows(rows, BATCH_SIZE);
+            }
+            m_buffer.clear();
+        }
+
+        private void close() throws WrappingTableauException {
+            try {
+                flush();
+            } finally {
+                closeExtract();
+            }
+        }
+
+        private void closeExtract() throws WrappingTableauException {
+            m_table = null;
+            try {
+                m_extract.close();
+            } catch (final WrappingTableauException | RuntimeException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new WrappingTableauException(e);
+            } finally {
+                m_extract = null;
+            }
+        }
+    }
+}
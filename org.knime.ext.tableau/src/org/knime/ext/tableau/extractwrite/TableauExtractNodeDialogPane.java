@@ -57,19 +57,26 @@
 import java.nio.file.InvalidPathException;
 import java.util.Arrays;
 
+import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
 
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValue;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeDialogPane;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.util.ColumnSelectionPanel;
+import org.knime.core.node.util.DataValueColumnFilter;
 import org.knime.core.node.util.FilesHistoryPanel;
 import org.knime.core.node.util.FilesHistoryPanel.LocationValidation;
 import org.knime.core.node.workflow.FlowVariable.Type;
@@ -92,6 +99,15 @@ public final class TableauExtractNodeDialogPane extends NodeDialogPane {
 
     private final JRadioButton m_overwritePolicyOverwriteButton;
 
+    private final JSpinner m_readerThreadsSpinner;
+
+    private final JTextField[] m_tableNameFields;
+
+    /** The partition column of a partitioned writer, <code>null</code> otherwise */
+    private final ColumnSelectionPanel m_partitionColumnPanel;
+
+    private final JSpinner m_maxOpenExtractsSpinner;
+
     private final String[] m_fileExtensions;
 
     /**
@@ -101,6 +117,24 @@ public final class TableauExtractNodeDialogPane extends NodeDialogPane {
      * @param fileExtensions the allowed file extensions for the extract file
      */
     public TableauExtractNodeDialogPane(final String historyId, final String... fileExtensions) {
+        this(historyId, 1, fileExtensions);
+    }
+
+    /**
+     * Creates a new Dialog for a Tableau extract writer with several tables. The table names can be configured if
+     * there is more than one table.
+     *
+     * @param historyId the file panel history id
+     * @param numTables the number of input ports and therefore the maximum number of tables
+     * @param fileExtensions the allowed file extensions for the extract file
+     */
+    public TableauExtractNodeDialogPane(final String historyId, final int numTables,
+        final String... fileExtensions) {
+        this(historyId, numTables, false, fileExtensions);
+    }
+
+    private TableauExtractNodeDialogPane(final String historyId, final int numTables, final boolean partitioned,
+        final String... fileExtensions) {
         m_fileExtensions = fileExtensions;
         m_filePanel =
             new FilesHistoryPanel(createFlowVariableModel(TableauExtractSettings.CFG_OUTPUT_LOCATION, Type.STRING),
@@ -116,9 +150,37 @@ public TableauExtractNodeDialogPane(final String historyId, final String... file
         bg.add(m_overwritePolicyOverwriteButton);
         bg.add(m_overwritePolicyAbortButton);
 
+        m_readerThreadsSpinner =
+            new JSpinner(new SpinnerNumberModel(1, 1, TableauExtractSettings.MAX_READER_THREADS, 1));
+
+        // The single table of a single table extract has the default name
+        m_tableNameFields = new JTextField[numTables > 1 ? numTables : 0];
+        for (int i = 0; i < m_tableNameFields.length; i++) {
+            m_tableNameFields[i] = new JTextField(20);
+        }
+
+        m_partitionColumnPanel = partitioned
+            ? new ColumnSelectionPanel(BorderFactory.createEmptyBorder(), new DataValueColumnFilter(DataValue.class))
+            : null;
+        m_maxOpenExtractsSpinner = new JSpinner(new SpinnerNumberModel(
+            TableauExtractSettings.DEFAULT_MAX_OPEN_EXTRACTS, 1, TableauExtractSettings.MAX_OPEN_EXTRACTS, 1));
+
         addTab("Extract Settings", initPanel());
     }
 
+    /**
+     * Creates a new Dialog for a Tableau extract writer which writes one extract for each value of a partition column.
+     * The extracts are named after the selected file.
+     *
+     * @param historyId the file panel history id
+     * @param fileExtensions the allowed file extensions for the extract files
+     * @return the dialog
+     */
+    public static TableauExtractNodeDialogPane createPartitionedDialog(final String historyId,
+        final String... fileExtensions) {
+        return new TableauExtractNodeDialogPane(historyId, 1, true, fileExtensions);
+    }
+
     private JPanel initPanel() {
         JPanel p = new JPanel(new GridBagLayout());
         GridBagConstraints gbc = new GridBagConstraints();
@@ -150,6 +212,37 @@ private JPanel initPanel() {
         overwriteFilePane.add(Box.createHorizontalGlue());
 
         p.add(overwriteFilePane, gbc);
+        gbc.gridy += 1;
+
+        gbc.gridx = 0;
+        p.add(new JLabel("Reader threads "), gbcLabel(gbc));
+        gbc.gridx += 1;
+        gbc.anchor = GridBagConstraints.WEST;
+        p.add(m_readerThreadsSpinner, gbc);
+        gbc.gridy += 1;
+
+        for (int i = 0; i < m_tableNameFields.length; i++) {
+            gbc.gridx = 0;
+            p.add(new JLabel("Table name (input " + (i + 1) + ") "), gbcLabel(gbc));
+            gbc.gridx += 1;
+            p.add(m_tableNameFields[i], gbcComponent(gbc));
+            gbc.gridy += 1;
+        }
+
+        if (m_partitionColumnPanel != null) {
+            gbc.gridx = 0;
+            p.add(new JLabel("Partition column "), gbcLabel(gbc));
+            gbc.gridx += 1;
+            p.add(m_partitionColumnPanel, gbcComponent(gbc));
+            gbc.gridy += 1;
+
+            gbc.gridx = 0;
+            p.add(new JLabel("Maximum open extracts "), gbcLabel(gbc));
+            gbc.gridx += 1;
+            gbc.anchor = GridBagConstraints.WEST;
+            p.add(m_maxOpenExtractsSpinner, gbc);
+            gbc.gridy += 1;
+        }
 
         m_overwritePolicyAbortButton.doClick();
         return p;
@@ -191,6 +284,15 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSp
                 m_overwritePolicyAbortButton.doClick();
                 break;
         }
+        m_readerThreadsSpinner.setValue(s.getReaderThreads());
+        final String[] tableNames = s.getTableNames();
+        for (int i = 0; i < m_tableNameFields.length; i++) {
+            m_tableNameFields[i].setText(i < tableNames.length ? tableNames[i] : ("Table" + (i + 1)));
+        }
+        if (m_partitionColumnPanel != null) {
+            m_partitionColumnPanel.update(specs[0], s.getPartitionColumn());
+        }
+        m_maxOpenExtractsSpinner.setValue(s.getMaxOpenExtracts());
     }
 
     @Override
@@ -232,6 +334,14 @@ protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSetti
         } else {
             s.setFileOverwritePolicy(FileOverwritePolicy.Abort);
         }
+        s.setReaderThreads((Integer)m_readerThreadsSpinner.getValue());
+        if (m_tableNameFields.length > 0) {
+            s.setTableNames(Arrays.stream(m_tableNameFields).map(f -> f.getText().trim()).toArray(String[]::new));
+        }
+        if (m_partitionColumnPanel != null) {
+            s.setPartitionColumn(m_partitionColumnPanel.getSelectedColumn());
+        }
+        s.setMaxOpenExtracts((Integer)m_maxOpenExtractsSpinner.getValue());
         s.saveSettings(settings);
     }
 
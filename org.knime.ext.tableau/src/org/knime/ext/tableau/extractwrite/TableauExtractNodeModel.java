@@ -50,9 +50,25 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -62,24 +78,49 @@
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.util.FileUtil;
+import org.knime.ext.tableau.ParallelRowIterator;
+import org.knime.ext.tableau.RowProgressReporter;
 import org.knime.ext.tableau.TableauExtract;
 import org.knime.ext.tableau.TableauExtractAPI;
 import org.knime.ext.tableau.TableauExtractOpener;
 import org.knime.ext.tableau.TableauPlugin;
+import org.knime.ext.tableau.TableauPlugin.TABLEAU_SDK;
 import org.knime.ext.tableau.TableauTable;
+import org.knime.ext.tableau.extractwrite.PartitionedExtractWriter.Partition;
 import org.knime.ext.tableau.extractwrite.TableauExtractSettings.FileOverwritePolicy;
+import org.knime.ext.tableau.inmemory.InMemoryExtractAPI;
+import org.knime.ext.tableau.inmemory.InMemoryExtractOpener;
 
 /**
- * Model for Tableau Extract writer nodes.
+ * Model for Tableau Extract writer nodes. Each input port is written into its own table of the extract. All input
+ * ports but the first are optional.
+ *
+ * A partitioned writer has one input which is written into one extract for each value of a partition column. It
+ * outputs the written files and their row counts.
  *
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
  * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
  */
 public final class TableauExtractNodeModel extends NodeModel {
 
-    private static final String EXTRACT_TABLE_NAME = "Extract";
+    /**
+     * Number of rows added to the extract between two cancellation checks. Large enough for the Hyper tables to
+     * convert the next block of rows while the previous block is inserted.
+     */
+    private static final int WRITE_BATCH_SIZE = 65536;
 
     private static final Object libararyLock = new Object();
 
@@ -89,6 +130,10 @@ public final class TableauExtractNodeModel extends NodeModel {
 
     private final TableauExtractOpener m_extractCreator;
 
+    private final int m_numTables;
+
+    private final boolean m_partitioned;
+
     private TableauExtractSettings m_settings;
 
     /**
@@ -98,20 +143,74 @@ public final class TableauExtractNodeModel extends NodeModel {
      * @param extractOpener the tableau extract creator to use
      */
     public TableauExtractNodeModel(final TableauExtractAPI extractAPI, final TableauExtractOpener extractOpener) {
-        super(1, 0);
+        this(extractAPI, extractOpener, 1);
+    }
+
+    /**
+     * Creates a new node model for writing tableau extracts with several tables. The first input port is required,
+     * all further input ports are optional.
+     *
+     * @param extractAPI the wrapper to the ExtractAPI to use
+     * @param extractOpener the tableau extract creator to use
+     * @param numTables the number of input ports and therefore the maximum number of tables
+     */
+    public TableauExtractNodeModel(final TableauExtractAPI extractAPI, final TableauExtractOpener extractOpener,
+        final int numTables) {
+        this(extractAPI, extractOpener, numTables, false);
+    }
+
+    private TableauExtractNodeModel(final TableauExtractAPI extractAPI, final TableauExtractOpener extractOpener,
+        final int numTables, final boolean partitioned) {
+        super(createInPortTypes(numTables), partitioned ? new PortType[]{BufferedDataTable.TYPE} : new PortType[0]);
         m_extractAPI = extractAPI;
         m_extractCreator = extractOpener;
+        m_numTables = numTables;
+        m_partitioned = partitioned;
+    }
+
+    /**
+     * Creates a new node model which writes one extract for each value of the configured partition column. The rows
+     * are routed to their extracts in a single pass over the input and the library is initialized only once. The node
+     * outputs the written files and their row counts.
+     *
+     * @param extractAPI the wrapper to the ExtractAPI to use
+     * @param extractOpener the tableau extract creator to use
+     * @return the node model
+     */
+    public static TableauExtractNodeModel createPartitionedWriter(final TableauExtractAPI extractAPI,
+        final TableauExtractOpener extractOpener) {
+        return new TableauExtractNodeModel(extractAPI, extractOpener, 1, true);
+    }
+
+    private static PortType[] createInPortTypes(final int numTables) {
+        CheckUtils.checkArgument(numTables >= 1, "At least one table is required");
+        final PortType[] types = new PortType[numTables];
+        Arrays.fill(types, BufferedDataTable.TYPE_OPTIONAL);
+        types[0] = BufferedDataTable.TYPE;
+        return types;
     }
 
     @Override
     protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws InvalidSettingsException {
 
-        if (TableauPlugin.getSelectedSDK() != m_extractAPI.getSDKType()) {
+        if (TableauPlugin.getSelectedSDK() != m_extractAPI.getSDKType()
+            && TableauPlugin.getSelectedSDK() != TABLEAU_SDK.IN_MEMORY) {
             throw new InvalidSettingsException("This nodes requires the '" + m_extractAPI.getSDKType().toString()
                 + "' backend, but the active backend is: '" + TableauPlugin.getSelectedSDK().toString() + "'"
                 + " The Tableau backend can be configured in the Tableau preference page.");
         }
         CheckUtils.checkSettingNotNull(m_settings, "No configuration available");
+        CheckUtils.checkSetting(m_settings.getTableNames().length >= m_numTables,
+            "Not all tables have a name. Please configure the node.");
+        if (m_partitioned) {
+            final String column = m_settings.getPartitionColumn();
+            CheckUtils.checkSetting(column != null, "No partition column selected. Please configure the node.");
+            final DataColumnSpec columnSpec = inSpecs[0].getColumnSpec(column);
+            CheckUtils.checkSetting(columnSpec != null, "The partition column '%s' does not exist in the input table.",
+                column);
+            // The files of the partitions are checked when their first row is written
+            return new DataTableSpec[]{createPartitionSpec(columnSpec)};
+        }
         final boolean overwrite = m_settings.getFileOverwritePolicy() == FileOverwritePolicy.Overwrite;
         final boolean append = m_settings.getFileOverwritePolicy() == FileOverwritePolicy.Append;
         setWarningMessage(CheckUtils.checkDestinationFile(m_settings.getOutputLocation(), overwrite, append));
@@ -121,9 +220,227 @@ protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws Invali
     @Override
     protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
         throws Exception {
-        final BufferedDataTable table = inData[0];
-        long rowIndex = 0L;
-        final long rowCount = table.size();
+        if (m_partitioned) {
+            return new BufferedDataTable[]{writePartitions(inData[0], exec)};
+        }
+        final DataTableSpec[] specs = new DataTableSpec[m_numTables];
+        long totalRowCount = 0;
+        for (int i = 0; i < m_numTables; i++) {
+            if (inData[i] != null) {
+                specs[i] = inData[i].getDataTableSpec();
+                totalRowCount += inData[i].size();
+            }
+        }
+        final long progressRowCount = Math.max(1, totalRowCount);
+        writeExtract(specs, (port, tableWriter) -> {
+            final BufferedDataTable table = inData[port];
+            final long rowCount = table.size();
+            final RowProgressReporter progress =
+                new RowProgressReporter(exec.createSubProgress(rowCount / (double)progressRowCount), rowCount);
+            try (final CloseableRowIterator rows =
+                ParallelRowIterator.iterator(table, m_settings.getReaderThreads())) {
+                while (rows.hasNext()) {
+                    // The reader threads of a parallel iterator also convert the rows
+                    progress.rowsWritten(ParallelRowIterator.addRows(rows, tableWriter, WRITE_BATCH_SIZE));
+                }
+                if (rows instanceof ParallelRowIterator) {
+                    LOG.info(((ParallelRowIterator)rows).getStatistics());
+                }
+            }
+        });
+        return new BufferedDataTable[]{};
+    }
+
+    @Override
+    public InputPortRole[] getInputPortRoles() {
+        // All rows go into one extract file: The input can be streamed but not distributed.
+        // The tables are written one after the other: Only the first one is streamed
+        final InputPortRole[] roles = new InputPortRole[m_numTables];
+        Arrays.fill(roles, InputPortRole.NONDISTRIBUTED_NONSTREAMABLE);
+        roles[0] = InputPortRole.NONDISTRIBUTED_STREAMABLE;
+        return roles;
+    }
+
+    @Override
+    public OutputPortRole[] getOutputPortRoles() {
+        // The files of the partitions are output when all rows are written
+        return m_partitioned ? new OutputPortRole[]{OutputPortRole.NONDISTRIBUTED} : new OutputPortRole[0];
+    }
+
+    @Override
+    public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+        final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        if (m_partitioned) {
+            return createPartitionedStreamableOperator();
+        }
+        return new StreamableOperator() {
+
+            @Override
+            public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+                throws Exception {
+                final RowInput input = (RowInput)inputs[0];
+                final DataTableSpec[] specs = new DataTableSpec[m_numTables];
+                specs[0] = input.getDataTableSpec();
+                final BufferedDataTable[] tables = new BufferedDataTable[m_numTables];
+                for (int i = 1; i < m_numTables; i++) {
+                    if (inputs[i] != null) {
+                        tables[i] = (BufferedDataTable)((PortObjectInput)inputs[i]).getPortObject();
+                        specs[i] = tables[i] == null ? null : tables[i].getDataTableSpec();
+                    }
+                }
+                writeExtract(specs, (port, tableWriter) -> {
+                    if (port == 0) {
+                        final RowProgressReporter progress = new RowProgressReporter(exec, -1);
+                        DataRow row;
+                        while ((row = input.poll()) != null) {
+                            tableWriter.addRow(row);
+                            progress.rowsWritten(1);
+                        }
+                    } else {
+                        writeTable(tables[port], tableWriter, exec);
+                    }
+                });
+                input.close();
+            }
+        };
+    }
+
+    private StreamableOperator createPartitionedStreamableOperator() {
+        return new StreamableOperator() {
+
+            @Override
+            public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+                throws Exception {
+                final RowInput input = (RowInput)inputs[0];
+                // NOTE: The partition values of a stream are not known in advance
+                final List<DataRow> partitionRows = writePartitions(input.getDataTableSpec(), null,
+                    partitionWriter -> {
+                        final RowProgressReporter progress = new RowProgressReporter(exec, -1);
+                        DataRow row;
+                        while ((row = input.poll()) != null) {
+                            partitionWriter.write(row);
+                            progress.rowsWritten(1);
+                        }
+                    });
+                input.close();
+                final RowOutput output = (RowOutput)outputs[0];
+                for (final DataRow row : partitionRows) {
+                    output.push(row);
+                }
+                output.close();
+            }
+        };
+    }
+
+    /** Writes the rows of the table into one extract per partition and returns the written files */
+    private BufferedDataTable writePartitions(final BufferedDataTable table, final ExecutionContext exec)
+        throws Exception {
+        exec.setMessage("Reading the partition values");
+        final Set<DataCell> partitionValues = readPartitionValues(table, exec);
+        exec.setMessage("Writing the extracts");
+        final List<DataRow> partitionRows = writePartitions(table.getDataTableSpec(), partitionValues,
+            partitionWriter -> {
+                final RowProgressReporter progress = new RowProgressReporter(exec, table.size());
+                try (final CloseableRowIterator rows =
+                    ParallelRowIterator.iterator(table, m_settings.getReaderThreads())) {
+                    while (rows.hasNext()) {
+                        partitionWriter.write(rows.next());
+                        progress.rowsWritten(1);
+                    }
+                    if (rows instanceof ParallelRowIterator) {
+                        LOG.info(((ParallelRowIterator)rows).getStatistics());
+                    }
+                }
+            });
+        final DataColumnSpec columnSpec =
+            table.getDataTableSpec().getColumnSpec(m_settings.getPartitionColumn());
+        final BufferedDataContainer container = exec.createDataContainer(createPartitionSpec(columnSpec));
+        partitionRows.forEach(container::addRowToTable);
+        container.close();
+        return container.getTable();
+    }
+
+    /** Reads the distinct values of the partition column of the table */
+    private Set<DataCell> readPartitionValues(final BufferedDataTable table, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        final int partitionIndex = table.getDataTableSpec().findColumnIndex(m_settings.getPartitionColumn());
+        final Set<DataCell> values = new LinkedHashSet<>();
+        if (partitionIndex < 0) {
+            // Reported when the partitions are written
+            return values;
+        }
+        try (final CloseableRowIterator rows = table.filter(TableFilter.materializeCols(partitionIndex))) {
+            while (rows.hasNext()) {
+                exec.checkCanceled();
+                values.add(rows.next().getCell(partitionIndex));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Routes the rows which are passed by the given function into one extract per value of the partition column. The
+     * library is initialized once for all extracts.
+     *
+     * @param partitionValues the values of the partition column if they are known in advance, <code>null</code>
+     *            otherwise. Their files are checked before anything is written.
+     * @return one row for each partition with its value, its file and its row count
+     */
+    private List<DataRow> writePartitions(final DataTableSpec spec, final Collection<DataCell> partitionValues,
+        final PartitionWriteFunction writeFunction) throws Exception {
+        final File baseFile = FileUtil.getFileFromURL(FileUtil.toURL(m_settings.getOutputLocation()));
+        final int partitionIndex = spec.findColumnIndex(m_settings.getPartitionColumn());
+        CheckUtils.checkSetting(partitionIndex >= 0, "The partition column '%s' does not exist in the input table.",
+            m_settings.getPartitionColumn());
+        final List<DataRow> partitionRows = new ArrayList<>();
+        runWithLibrary(extractCreator -> {
+            final PartitionedExtractWriter writer = new PartitionedExtractWriter(extractCreator, baseFile,
+                m_settings.getTableNames()[0], spec, m_settings.getFileOverwritePolicy(),
+                m_settings.getMaxOpenExtracts());
+            if (partitionValues != null) {
+                writer.checkFiles(partitionValues);
+            }
+            try (final PartitionedExtractWriter w = writer) {
+                writeFunction.write(row -> w.addRow(row.getCell(partitionIndex), row));
+            }
+            long index = 0;
+            for (final Partition partition : writer.getPartitions()) {
+                partitionRows.add(new DefaultRow(RowKey.createRowKey(index++), partition.getValue(),
+                    new StringCell(partition.getFile().getAbsolutePath()), new LongCell(partition.getRowCount())));
+            }
+            LOG.debugWithFormat("Wrote %d extracts, %d times an extract was reopened", partitionRows.size(),
+                writer.getReopenCount());
+        });
+        return partitionRows;
+    }
+
+    private static DataTableSpec createPartitionSpec(final DataColumnSpec partitionColumn) {
+        return new DataTableSpec( //
+            new DataColumnSpecCreator("Partition", partitionColumn.getType()).createSpec(), //
+            new DataColumnSpecCreator("File", StringCell.TYPE).createSpec(), //
+            new DataColumnSpecCreator("Row Count", LongCell.TYPE).createSpec());
+    }
+
+    /** Writes all rows of the table to the given extract table */
+    private static void writeTable(final BufferedDataTable table, final TableauTable tableWriter,
+        final ExecutionContext exec) throws Exception {
+        final RowProgressReporter progress = new RowProgressReporter(exec, table.size());
+        try (final CloseableRowIterator rows = table.iterator()) {
+            while (rows.hasNext()) {
+                progress.rowsWritten(tableWriter.addRows(rows, WRITE_BATCH_SIZE));
+            }
+        }
+    }
+
+    /**
+     * Opens the configured extract and writes one table for each input. The extract tables are created or opened one
+     * after the other and the given function writes their rows. The extract is opened (and the library initialized)
+     * once for all tables.
+     *
+     * @param specs the specs of the inputs, <code>null</code> for inputs which are not connected
+     */
+    private void writeExtract(final DataTableSpec[] specs, final TableWriteFunction writeFunction)
+        throws Exception {
         final File f = FileUtil.getFileFromURL(FileUtil.toURL(m_settings.getOutputLocation()));
         if (f.exists()) {
             if (m_settings.getFileOverwritePolicy() == FileOverwritePolicy.Overwrite) {
@@ -133,38 +450,58 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final Ex
                     "Output file \"%s\" already exists - must not overwrite as per user setting", f.getAbsolutePath()));
             }
         }
+        runWithLibrary(extractCreator -> {
+            try (final TableauExtract tableauExtract = extractCreator.openExtract(f.getAbsolutePath())) {
+                // NOTE: The Tableau table is not thread safe: The tables are written one after the other
+                for (int i = 0; i < specs.length; i++) {
+                    if (specs[i] == null) {
+                        // Optional input which is not connected
+                        continue;
+                    }
+                    final String tableName = m_settings.getTableNames()[i];
+                    TableauTable tableWriter = null;
+                    if (m_settings.getFileOverwritePolicy() == FileOverwritePolicy.Append) {
+                        // If the extract contains this table: Open it
+                        if (tableauExtract.hasTable(tableName)) {
+                            tableWriter = tableauExtract.openTable(tableName, specs[i]);
+                        }
+                    }
+                    if (tableWriter == null) {
+                        // Create the new table
+                        tableWriter = tableauExtract.createTable(tableName, specs[i]);
+                    }
+                    // Add rows to the table
+                    writeFunction.write(i, tableWriter);
+                }
+            }
+        });
+    }
+
+    /**
+     * Initializes the library of the selected backend, runs the given function with the extract opener of the backend
+     * and cleans the library up.
+     */
+    private void runWithLibrary(final ExtractFunction function) throws Exception {
+        // The in-memory backend replaces the native library of every writer
+        final boolean inMemory = TableauPlugin.getSelectedSDK() == TABLEAU_SDK.IN_MEMORY;
+        final TableauExtractAPI extractAPI = inMemory ? new InMemoryExtractAPI() : m_extractAPI;
+        final TableauExtractOpener extractCreator =
+            inMemory ? InMemoryExtractOpener.fromPreferences() : m_extractCreator;
         synchronized (libararyLock) {
             try {
-                m_extractAPI.initialize();
+                extractAPI.initialize();
             } catch (Throwable e) {
                 LOG.debug(e);
                 throw new InvalidSettingsException(
-                    "Unable to initialize Tableau backend '" + m_extractAPI.getSDKType().toString()
+                    "Unable to initialize Tableau backend '" + extractAPI.getSDKType().toString()
                         + "', please follow the installation instructions in the node description. Error: " + e);
             }
-            try (final TableauExtract tableauExtract = m_extractCreator.openExtract(f.getAbsolutePath())) {
-                TableauTable tableWriter = null;
-                if (m_settings.getFileOverwritePolicy() == FileOverwritePolicy.Append) {
-                    // If the extract contains this table: Open it
-                    if (tableauExtract.hasTable(EXTRACT_TABLE_NAME)) {
-                        tableWriter = tableauExtract.openTable(EXTRACT_TABLE_NAME, table.getDataTableSpec());
-                    }
-                }
-                if (tableWriter == null) {
-                    // Create the new table
-                    tableWriter = tableauExtract.createTable(EXTRACT_TABLE_NAME, table.getDataTableSpec());
-                }
-                // Add rows to the table
-                for (final DataRow r : table) {
-                    tableWriter.addRow(r);
-                    exec.setProgress((double)++rowIndex / rowCount,
-                        String.format("Row %d/%d (\"%s\")", rowIndex, rowCount, r.getKey().toString()));
-                }
+            try {
+                function.run(extractCreator);
             } finally {
-                m_extractAPI.cleanup();
+                extractAPI.cleanup();
             }
         }
-        return new BufferedDataTable[]{};
     }
 
     @Override
@@ -198,4 +535,28 @@ protected void loadInternals(final File nodeInternDir, final ExecutionMonitor ex
     protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
         throws IOException, CanceledExecutionException {
     }
+
+    /** Writes the rows of one input port to an opened extract table (from a table or from a streamed input). */
+    @FunctionalInterface
+    private interface TableWriteFunction {
+        void write(int port, TableauTable tableWriter) throws Exception;
+    }
+
+    /** Writes the rows of the input to the extracts of their partitions (from a table or from a streamed input). */
+    @FunctionalInterface
+    private interface PartitionWriteFunction {
+        void write(RowWriter partitionWriter) throws Exception;
+    }
+
+    /** Writes one row. */
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(DataRow row) throws Exception;
+    }
+
+    /** Writes extracts with the opener of the initialized library. */
+    @FunctionalInterface
+    private interface ExtractFunction {
+        void run(TableauExtractOpener extractCreator) throws Exception;
+    }
 }
@@ -48,6 +48,10 @@
  */
 package org.knime.ext.tableau.extractwrite;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -66,10 +70,38 @@ final class TableauExtractSettings {
 
     static final String CFG_OVERWRITE_POLICY = "overwritePolicy";
 
+    static final String CFG_READER_THREADS = "readerThreads";
+
+    /** Maximum number of threads reading the input table */
+    static final int MAX_READER_THREADS = 64;
+
+    static final String CFG_TABLE_NAMES = "tableNames";
+
+    /** Name of the table of single table extracts */
+    static final String DEFAULT_TABLE_NAME = "Extract";
+
+    static final String CFG_PARTITION_COLUMN = "partitionColumn";
+
+    static final String CFG_MAX_OPEN_EXTRACTS = "maxOpenExtracts";
+
+    /** Default number of extracts which are open at the same time when writing one extract per partition */
+    static final int DEFAULT_MAX_OPEN_EXTRACTS = 16;
+
+    /** Maximum number of extracts which are open at the same time when writing one extract per partition */
+    static final int MAX_OPEN_EXTRACTS = 1024;
+
     private String m_outputLocation;
 
     private FileOverwritePolicy m_fileOverwritePolicy;
 
+    private int m_readerThreads = 1;
+
+    private String[] m_tableNames = {DEFAULT_TABLE_NAME};
+
+    private String m_partitionColumn;
+
+    private int m_maxOpenExtracts = DEFAULT_MAX_OPEN_EXTRACTS;
+
     /**
      * Policy how to proceed when output file exists (overwrite, abort, append).
      */
@@ -102,9 +134,55 @@ void setFileOverwritePolicy(final FileOverwritePolicy fileOverwritePolicy) {
         }
     }
 
+    int getReaderThreads() {
+        return m_readerThreads;
+    }
+
+    void setReaderThreads(final int readerThreads) {
+        m_readerThreads = readerThreads;
+    }
+
+    /**
+     * @return the names of the extract tables, one for each input port
+     */
+    String[] getTableNames() {
+        return m_tableNames;
+    }
+
+    void setTableNames(final String... tableNames) {
+        m_tableNames = tableNames;
+    }
+
+    /**
+     * @return the column whose values define the extract of a row, <code>null</code> if all rows are written to the
+     *         configured extract
+     */
+    String getPartitionColumn() {
+        return m_partitionColumn;
+    }
+
+    void setPartitionColumn(final String partitionColumn) {
+        m_partitionColumn = partitionColumn;
+    }
+
+    /**
+     * @return the maximum number of extracts which are open at the same time when writing one extract per partition
+     */
+    int getMaxOpenExtracts() {
+        return m_maxOpenExtracts;
+    }
+
+    void setMaxOpenExtracts(final int maxOpenExtracts) {
+        m_maxOpenExtracts = maxOpenExtracts;
+    }
+
     void saveSettings(final NodeSettingsWO settings) {
         settings.addString(CFG_OUTPUT_LOCATION, m_outputLocation);
         settings.addString(CFG_OVERWRITE_POLICY, m_fileOverwritePolicy.toString());
+        settings.addInt(CFG_READER_THREADS, m_readerThreads);
+        settings.addStringArray(CFG_TABLE_NAMES, m_tableNames);
+        settings.addString(CFG_PARTITION_COLUMN, m_partitionColumn);
+        settings.addInt(CFG_MAX_OPEN_EXTRACTS, m_maxOpenExtracts);
     }
 
     TableauExtractSettings loadSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
@@ -126,6 +204,30 @@ TableauExtractSettings loadSettings(final NodeSettingsRO settings) throws Invali
             // Default value
             m_fileOverwritePolicy = FileOverwritePolicy.Abort;
         }
+        // since v3.8: Default is to read the input with one thread
+        m_readerThreads = settings.getInt(CFG_READER_THREADS, 1);
+        if (m_readerThreads < 1 || m_readerThreads > MAX_READER_THREADS) {
+            throw new InvalidSettingsException(
+                "The number of reader threads must be between 1 and " + MAX_READER_THREADS + ": " + m_readerThreads);
+        }
+        // since v3.8: Default is the single table of earlier versions
+        m_tableNames = settings.getStringArray(CFG_TABLE_NAMES, DEFAULT_TABLE_NAME);
+        final Set<String> names = new HashSet<>();
+        for (final String name : m_tableNames) {
+            if (StringUtils.isBlank(name)) {
+                throw new InvalidSettingsException("The table names must not be empty.");
+            }
+            if (!names.add(name)) {
+                throw new InvalidSettingsException("The table name '" + name + "' is used more than once.");
+            }
+        }
+        // since v3.8: Default is to write all rows into one extract
+        m_partitionColumn = settings.getString(CFG_PARTITION_COLUMN, null);
+        m_maxOpenExtracts = settings.getInt(CFG_MAX_OPEN_EXTRACTS, DEFAULT_MAX_OPEN_EXTRACTS);
+        if (m_maxOpenExtracts < 1 || m_maxOpenExtracts > MAX_OPEN_EXTRACTS) {
+            throw new InvalidSettingsException("The number of open extracts must be between 1 and "
+                + MAX_OPEN_EXTRACTS + ": " + m_maxOpenExtracts);
+        }
         return this;
     }
 }
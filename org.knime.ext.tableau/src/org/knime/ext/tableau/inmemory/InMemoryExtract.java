@@ -0,0 +1,135 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.inmemory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.ext.tableau.TableauExtract;
+import org.knime.ext.tableau.TableauTable;
+import org.knime.ext.tableau.WrappingTableauException;
+
+/**
+ * An extract whose tables are kept in memory.
+ */
+public final class InMemoryExtract implements TableauExtract {
+
+    private final String m_path;
+
+    private final Map<String, InMemoryTable> m_tables = new LinkedHashMap<>();
+
+    private boolean m_recordValues;
+
+    InMemoryExtract(final String path) {
+        m_path = path;
+    }
+
+    synchronized void open(final boolean recordValues) {
+        m_recordValues = recordValues;
+    }
+
+    @Override
+    public synchronized TableauTable createTable(final String name, final DataTableSpec spec)
+        throws WrappingTableauException {
+        if (m_tables.containsKey(name)) {
+            throw new WrappingTableauException("The extract already contains a table with the name '" + name + "'.");
+        }
+        final InMemoryTable table = new InMemoryTable(name, spec, m_recordValues);
+        m_tables.put(name, table);
+        return table;
+    }
+
+    @Override
+    public synchronized TableauTable openTable(final String name, final DataTableSpec spec)
+        throws WrappingTableauException {
+        final InMemoryTable table = m_tables.get(name);
+        if (table == null) {
+            throw new WrappingTableauException("The extract contains no table with the name '" + name + "'.");
+        }
+        if (!table.isCompatible(spec)) {
+            throw new WrappingTableauException("The extract contains a table with the name '" + name
+                + "' but with a different table definition. "
+                + "If you want to append to an existing table make sure the table is still the same. "
+                + "If you want to overwite the existing table choose 'Overwrite' in the node configuration.");
+        }
+        return table;
+    }
+
+    @Override
+    public synchronized boolean hasTable(final String name) {
+        return m_tables.containsKey(name);
+    }
+
+    /**
+     * @param name the name of the table
+     * @return the table or <code>null</code> if the extract contains no table with this name
+     */
+    public synchronized InMemoryTable getTable(final String name) {
+        return m_tables.get(name);
+    }
+
+    /**
+     * Writes a summary of the tables to the path of the extract.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add("# In-memory Tableau extract (no data)");
+        for (final InMemoryTable table : m_tables.values()) {
+            lines.add(table.getName() + ".rows=" + table.getRowCount());
+            lines.add(table.getName() + ".columns=" + String.join(",", table.getColumnNames()));
+        }
+        Files.write(Paths.get(m_path), lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.inmemory;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.knime.ext.tableau.TableauExtract;
+import org.knime.ext.tableau.TableauExtractOpener;
+import org.knime.ext.tableau.TableauPlugin;
+
+/**
+ * Opens extracts which are kept in memory instead of being written by the native Tableau library. Used to measure
+ * the Java side of the writers on its own and to run the writers on machines without the Tableau binaries.
+ *
+ * The extracts are registered by their path such that appending works across executions. Closing an extract writes
+ * a small summary file to its path: Code which handles the extract file (overwrite checks, uploads) still works. An
+ * extract is discarded when it is opened again and its file was deleted in the meantime.
+ */
+public final class InMemoryExtractOpener implements TableauExtractOpener {
+
+    private static final Map<String, InMemoryExtract> EXTRACTS = new ConcurrentHashMap<>();
+
+    private final boolean m_recordValues;
+
+    /**
+     * @param recordValues if the inserted values should be kept in columnar buffers. If <code>false</code> the values
+     *            are converted and discarded and only the rows are counted
+     */
+    public InMemoryExtractOpener(final boolean recordValues) {
+        m_recordValues = recordValues;
+    }
+
+    /**
+     * @return an opener which records the values if this is configured in the Tableau preferences
+     */
+    public static InMemoryExtractOpener fromPreferences() {
+        return new InMemoryExtractOpener(
+            TableauPlugin.getDefault().getPreferenceStore().getBoolean(TableauPlugin.IN_MEMORY_RECORD_KEY));
+    }
+
+    @Override
+    public TableauExtract openExtract(final String path) {
+        final String key = new File(path).getAbsolutePath();
+        if (!new File(key).exists()) {
+            // The file was deleted (e.g. overwritten): Start a new extract
+            EXTRACTS.remove(key);
+        }
+        final InMemoryExtract extract = EXTRACTS.computeIfAbsent(key, InMemoryExtract::new);
+        extract.open(m_recordValues);
+        return extract;
+    }
+
+    /**
+     * @param path the path of the extract
+     * @return the extract which has been written to this path or <code>null</code> if there is none
+     */
+    public static InMemoryExtract getExtract(final String path) {
+        return EXTRACTS.get(new File(path).getAbsolutePath());
+    }
+
+    /**
+     * Discards the extract of the given path (e.g. of a temporary file).
+     *
+     * @param path the path of the extract
+     */
+    public static void discard(final String path) {
+        EXTRACTS.remove(new File(path).getAbsolutePath());
+    }
+
+    /**
+     * Discards all extracts.
+     */
+    public static void clear() {
+        EXTRACTS.clear();
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.ext.tableau.inmemory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.time.duration.DurationValue;
+import org.knime.core.data.time.localdate.LocalDateValue;
+import org.knime.core.data.time.localdatetime.LocalDateTimeValue;
+import org.knime.ext.tableau.TableauTable;
+import org.knime.ext.tableau.WrappingTableauException;
+
+/**
+ * A table of an in-memory extract. The columns are mapped like in the native backends: Columns of other types are
+ * ignored. The values are converted like in the native backends and either kept in one primitive buffer per column
+ * or, if the values are not recorded, written into a buffer for one row and discarded.
+ */
+public final class InMemoryTable implements TableauTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Leave some space for the array header */
+    private static final int MAX_ROWS = Integer.MAX_VALUE - 8;
+
+    private final String m_name;
+
+    private final boolean m_recordValues;
+
+    private final List<String> m_columnNames = new ArrayList<>();
+
+    private final int[] m_colIndices;
+
+    private final Column[] m_columns;
+
+    private long m_rowCount = 0L;
+
+    InMemoryTable(final String name, final DataTableSpec spec, final boolean recordValues) {
+        m_name = name;
+        m_recordValues = recordValues;
+        final List<Column> columns = new ArrayList<>();
+        final List<Integer> colIndices = new ArrayList<>();
+        final int capacity = recordValues ? INITIAL_CAPACITY : 1;
+        for (int i = 0; i < spec.getNumColumns(); i++) {
+            final DataColumnSpec colSpec = spec.getColumnSpec(i);
+            final Column column = createColumn(colSpec.getType(), capacity);
+            if (column != null) {
+                columns.add(column);
+                colIndices.add(i);
+                m_columnNames.add(colSpec.getName());
+            }
+        }
+        m_columns = columns.toArray(new Column[0]);
+        m_colIndices = colIndices.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Column createColumn(final DataType type, final int capacity) {
+        // Same order as the type mapping of the native backends
+        if (type.isCompatible(BooleanValue.class)) {
+            return new BooleanColumn(capacity);
+        }
+        if (type.isCompatible(IntValue.class)) {
+            return new IntColumn(capacity);
+        }
+        if (type.isCompatible(DoubleValue.class)) {
+            return new DoubleColumn(capacity);
+        }
+        if (type.isCompatible(LocalDateValue.class)) {
+            return new DateColumn(capacity);
+        }
+        if (type.isCompatible(LocalDateTimeValue.class)) {
+            return new DateTimeColumn(capacity);
+        }
+        if (type.isCompatible(DurationValue.class)) {
+            return new DurationColumn(capacity);
+        }
+        if (type.isCompatible(StringValue.class)) {
+            return new StringColumn(capacity);
+        }
+        return null;
+    }
+
+    @Override
+    public void addRow(final DataRow dataRow) throws WrappingTableauException {
+        final int index;
+        if (m_recordValues) {
+            if (m_rowCount >= MAX_ROWS) {
+                throw new WrappingTableauException("The in-memory table '" + m_name + "' is full.");
+            }
+            index = (int)m_rowCount;
+        } else {
+            index = 0;
+        }
+        for (int i = 0; i < m_columns.length; i++) {
+            final Column column = m_columns[i];
+            final DataCell cell = dataRow.getCell(m_colIndices[i]);
+            column.ensureCapacity(index + 1);
+            if (cell.isMissing()) {
+                column.m_missing.set(index);
+            } else {
+                column.m_missing.clear(index);
+                column.set(index, cell);
+            }
+        }
+        m_rowCount++;
+    }
+
+    @Override
+    public long addRows(final Iterator<? extends DataRow> rows, final int batchSize)
+        throws WrappingTableauException {
+        long count = 0;
+        while (count < batchSize && rows.hasNext()) {
+            addRow(rows.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the name of the table
+     */
+    public String getName() {
+        return m_name;
+    }
+
+    /**
+     * @return the number of rows which have been added
+     */
+    public long getRowCount() {
+        return m_rowCount;
+    }
+
+    /**
+     * @return the names of the columns which are written (columns of unsupported types are ignored)
+     */
+    public List<String> getColumnNames() {
+        return new ArrayList<>(m_columnNames);
+    }
+
+    /**
+     * @return if the values are kept in memory
+     */
+    public boolean isRecordingValues() {
+        return m_recordValues;
+    }
+
+    /**
+     * Returns a recorded value.
+     *
+     * @param row the index of the row
+     * @param column the index of the column (of the written columns)
+     * @return the value as it would be written by the native backend (e.g. {@link LocalDate} for date columns) or
+     *         <code>null</code> for missing values
+     * @throws IllegalStateException if the values are not recorded
+     */
+    public Object getValue(final long row, final int column) {
+        if (!m_recordValues) {
+            throw new IllegalStateException("The values of the table '" + m_name + "' are not recorded.");
+        }
+        if (row < 0 || row >= m_rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + m_rowCount);
+        }
+        final Column c = m_columns[column];
+        return c.m_missing.get((int)row) ? null : c.get((int)row);
+    }
+
+    boolean isCompatible(final DataTableSpec spec) {
+        int written = 0;
+        for (int i = 0; i < spec.getNumColumns(); i++) {
+            final DataColumnSpec colSpec = spec.getColumnSpec(i);
+            final Column column = createColumn(colSpec.getType(), 1);
+            if (column == null) {
+                continue;
+            }
+            if (written >= m_columns.length || !m_columnNames.get(written).equals(colSpec.getName())
+                || m_columns[written].getClass() != column.getClass()) {
+                return false;
+            }
+            written++;
+        }
+        return written == m_columns.length;
+    }
+
+    /** Buffer for the values of one column. */
+    private abstract static class Column {
+
+        final BitSet m_missing = new BitSet();
+
+        abstract void ensureCapacity(int capacity);
+
+        abstract void set(int row, DataCell cell);
+
+        abstract Object get(int row);
+
+        static int grow(final int length, final int capacity) {
+            return (int)Math.min(MAX_ROWS, Math.max(capacity, 2L * length));
+        }
+    }
+
+    private static final class BooleanColumn extends Column {
+
+        private final BitSet m_values;
+
+        BooleanColumn(final int capacity) {
+            m_values = new BitSet(capacity);
+        }
+
+        @Override
+        void ensureCapacity(final int capacity) {
+            // The bit set grows on its own
+        }
+
+        @Override
+        void set(final int row, final DataCell cell) {
+            m_values.set(row, ((BooleanValue)cell).getBooleanValue());
+        }
+
+        @Override
+        Object get(final int row) {
+            return m_values.get(row);
+        }
+    }
+
+    private static final class IntColumn extends Column {
+
+        private int[] m_values;
+
+        IntColumn(final int capacity) {
+            m_values = new int[capacity];
+        }
+
+        @Override
+        void ensureCapacity(final int capacity) {
+            if (capacity > m_values.length) {
+                m_values = Arrays.copyOf(m_values, grow(m_values.length, capacity));
+            }
+        }
+
+        @Override
+        void set(final int row, final DataCell cell) {
+            m_values[row] = ((IntValue)cell).getIntValue();
+        }
+
+        @Override
+        Object get(final int row) {
+            return m_values[row];
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+
+        private double[] m_values;
+
+        DoubleColumn(final int capacity) {
+            m_values = new double[capacity];
+        }
+
+        @Override
+        void ensureCapacity(final int capacity) {
+            if (capacity > m_values.length) {
+                m_values = Arrays.copyOf(m_values, grow(m_values.length, capacity));
+            }
+        }
+
+        @Override
+        void set(final int row, final DataCell cell) {
+            m_values[row] = ((DoubleValue)cell).getDoubleValue();
+        }
+
+        @Override
+        Object get(final int row) {
+            return m_values[row];
+        }
+    }
+
+    /** Dates as days since the epoch. */
+    private static final class DateColumn extends Column {
+
+        private long[] m_epochDays;
+
+        DateColumn(final int capacity) {
+            m_epochDays = new long[capacity];
+        }
+
+        @Override
+        void ensureCapacity(final int capacity) {
+            if (capacity > m_epochDays.length) {
+                m_epochDays = Arrays.copyOf(m_epochDays, grow(m_epochDays.length, capacity));
+            }
+        }
+
+        @Override
+        void set(final int row, final DataCell cell) {
+            m_epochDays[row] = ((LocalDateValue)cell).getLocalDate().toEpochDay();
+        }
+
+        @Override
+        Object get(final int row) {
+            return LocalDate.ofEpochDay(m_epochDays[row]);
+        }
+    }
+
+    /** Date&times as seconds since the epoch and the nanoseconds of the second. */
+    private static final class DateTimeColumn extends Column {
+
+        private long[] m_epochSeconds;
+
+        private int[] m_nanos;
+
+        DateTimeColumn(final int capacity) {
+            m_epochSeconds = new long[capacity];
+            m_nanos = new int[capacity];
+        }
+
+        @Override
+        void ensureCapacity(final int capacity) {
+            if (capacity > m_epochSeconds.length) {
+                final int length = grow(m_epochSeconds.length, capacity);
+                m_epochSeconds = Arrays.copyOf(m_epochSeconds, length);
+                m_nanos = Arrays.copyOf(m_nanos, length);
+            }
+        }
+
+        @Override
+        void set(final int row, final DataCell cell) {
+            final LocalDateTime dateTime = ((LocalDateTimeValue)cell).getLocalDateTime();
+            m_epochSeconds[row] = dateTime.toEpochSecond(ZoneOffset.UTC);
+            m_nanos[row] = dateTime.getNano();
+        }
+
+        @Override
+        Object get(final int row) {
+            return LocalDateTime.ofEpochSecond(m_epochSeconds[row], m_nanos[row], ZoneOffset.UTC);
+        }
+    }
+
+    /** Durations as seconds and the nanoseconds of the second. */
+    private static final class DurationColumn extends Column {
+
+        private long[] m_seconds;
+
+        private int[] m_nanos;
+
+        DurationColumn(final int capacity) {
+            m_seconds = new long[capacity];
+            m_nanos = new int[capacity];
+        }
+
+        @Override
+        void ensureCapacity(final int capacity) {
+            if (capacity > m_seconds.length) {
+                final int length = grow(m_seconds.length, capacity);
+                m_seconds = Arrays.copyOf(m_seconds, length);
+                m_nanos = Arrays.copyOf(m_nanos, length);
+            }
+        }
+
+        @Override
+        void set(final int row, final DataCell cell) {
+            final Duration duration = ((DurationValue)cell).getDuration();
+            m_seconds[row] = duration.getSeconds();
+            m_nanos[row] = duration.getNano();
+        }
+
+        @Override
+        Object get(final int row) {
+            return Duration.ofSeconds(m_seconds[row], m_nanos[row]);
+        }
+    }
+
+    private static final class StringColumn extends Column {
+
+        private String[] m_values;
+
+        StringColumn(final int capacity) {
+            m_values = new String[capacity];
+        }
+
+        @Override
+        void ensureCapacity(final int capacity) {
+            if (capacity > m_values.length) {
+                m_values = Arrays.copyOf(m_values, grow(m_values.length, capacity));
+            }
+        }
+
+        @Override
+        void set(final int row, final DataCell cell) {
+            m_values[row] = ((StringValue)cell).getStringValue();
+        }
+
+        @Override
+        Object get(final int row) {
+            return m_values[row];
+        }
+    }
+}
@@ -72,6 +72,9 @@ public void initializeDefaultPreferences() {
         } else {
             store.setDefault(TableauPlugin.TABLEAU_SDK_KEY, TABLEAU_SDK.HYPER.name());
         }
+        // Only count the rows by default: Recording the values of large tables needs a lot of memory
+        store.setDefault(TableauPlugin.IN_MEMORY_RECORD_KEY, false);
+        store.setDefault(TableauPlugin.EXTRACT_CACHE_SIZE_KEY, TableauPreferencePage.DEFAULT_EXTRACT_CACHE_SIZE);
     }
 
 }
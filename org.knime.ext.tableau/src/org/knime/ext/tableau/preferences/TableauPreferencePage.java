@@ -69,6 +69,7 @@
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Link;
 import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 import org.eclipse.ui.PlatformUI;
@@ -88,6 +89,11 @@ public class TableauPreferencePage extends PreferencePage implements IWorkbenchP
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(TableauPreferencePage.class);
 
+    /** Default size of the extract cache in MB */
+    static final int DEFAULT_EXTRACT_CACHE_SIZE = 4096;
+
+    private static final int MAX_EXTRACT_CACHE_SIZE = 1024 * 1024;
+
     private boolean m_apply = false;
 
     private String m_tmpSDK;
@@ -96,6 +102,12 @@ public class TableauPreferencePage extends PreferencePage implements IWorkbenchP
 
     private Button m_hyperButton;
 
+    private Button m_inMemoryButton;
+
+    private Button m_recordValuesButton;
+
+    private Spinner m_cacheSizeSpinner;
+
     /**
      *
      */
@@ -154,11 +166,40 @@ public void widgetSelected(final SelectionEvent e) {
             }
         });
 
+        // In-memory backend for profiling and testing without the native libraries
+        m_inMemoryButton = new Button(sdkSeletionComposite, SWT.RADIO);
+        m_inMemoryButton.setText(TABLEAU_SDK.IN_MEMORY.toString() + " (for testing, no extract files are written)");
+        m_recordValuesButton = new Button(sdkSeletionComposite, SWT.CHECK);
+        m_recordValuesButton.setText("Keep the written values in memory (otherwise only count the rows)");
+        m_inMemoryButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(final SelectionEvent e) {
+                m_recordValuesButton.setEnabled(m_inMemoryButton.getSelection());
+                if (m_inMemoryButton.getSelection()) {
+                    if (TableauPlugin.getSelectedSDK() != TABLEAU_SDK.IN_MEMORY) {
+                        setMessage("You need to restart KNIME Analytics Platform to apply this setting!",
+                            IMessageProvider.WARNING);
+                    } else {
+                        setMessage("", IMessageProvider.NONE);
+                    }
+                }
+            }
+        });
+
+        // Written extracts are reused if the input of a send node has not changed
+        final Composite cacheComposite = createComposite(composite, 2, "Extract Cache");
+        final Label cacheSizeLabel = new Label(cacheComposite, SWT.NONE);
+        cacheSizeLabel.setText("Maximum size of the cached extracts in MB (0 to disable):");
+        m_cacheSizeSpinner = new Spinner(cacheComposite, SWT.BORDER);
+        m_cacheSizeSpinner.setValues(DEFAULT_EXTRACT_CACHE_SIZE, 0, MAX_EXTRACT_CACHE_SIZE, 0, 1024, 1024);
+
         // Add additional settings for windows and mac
 
         final String os = Platform.getOS();
-        // Windows
-        if (os.equals(Platform.WS_WIN32)) {
+        if (TableauPlugin.getSelectedSDK() == TABLEAU_SDK.IN_MEMORY) {
+            // No native library to install
+        } else if (os.equals(Platform.WS_WIN32)) {
+            // Windows
             addWindowsFields(composite);
         } else if (os.equals(Platform.OS_MACOSX) && (TableauPlugin.getSelectedSDK() == TABLEAU_SDK.HYPER)) {
             addMacHyperFields(composite);
@@ -176,10 +217,17 @@ private void initializeValues() {
         final TABLEAU_SDK sdk = TableauPlugin.getSelectedSDK();
         if (sdk == TABLEAU_SDK.HYPER) {
             m_hyperButton.setSelection(true);
+        } else if (sdk == TABLEAU_SDK.IN_MEMORY) {
+            m_hyperButton.setSelection(false);
+            m_inMemoryButton.setSelection(true);
         } else {
             m_hyperButton.setSelection(false);
             m_tdeButton.setSelection(true);
         }
+        m_recordValuesButton.setSelection(getPreferenceStore().getBoolean(TableauPlugin.IN_MEMORY_RECORD_KEY));
+        m_recordValuesButton.setEnabled(sdk == TABLEAU_SDK.IN_MEMORY);
+        m_cacheSizeSpinner.setSelection(
+            (int)Math.min(MAX_EXTRACT_CACHE_SIZE, getPreferenceStore().getLong(TableauPlugin.EXTRACT_CACHE_SIZE_KEY)));
     }
 
     /**
@@ -299,9 +347,13 @@ private void saveSDKPreference() {
         final IPreferenceStore store = getPreferenceStore();
         if (m_hyperButton.getSelection()) {
             store.setValue(TableauPlugin.TABLEAU_SDK_KEY, TABLEAU_SDK.HYPER.name());
+        } else if (m_inMemoryButton.getSelection()) {
+            store.setValue(TableauPlugin.TABLEAU_SDK_KEY, TABLEAU_SDK.IN_MEMORY.name());
         } else {
             store.setValue(TableauPlugin.TABLEAU_SDK_KEY, TABLEAU_SDK.TDE.name());
         }
+        store.setValue(TableauPlugin.IN_MEMORY_RECORD_KEY, m_recordValuesButton.getSelection());
+        store.setValue(TableauPlugin.EXTRACT_CACHE_SIZE_KEY, (long)m_cacheSizeSpinner.getSelection());
     }
 
     /**